@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 中日韩分词器 <br/>
+ * 描述 : 文本先经过NFKC规范化(全角转半角, 兼容字符合并)并转换为小写,
+ * 中日韩字符切分为单字及相邻两字, 单字查询可以匹配多字词语, 拉丁字母及数字按标准规则切分 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+public class CJKTokenizer implements Tokenizer {
+
+    // 超过该长度的拉丁词项将被截断
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    // 规范化后需要展开为多个字符时的标志, 需要走慢速路径
+    private static final char EXPAND = '\uFFFF';
+
+    // 基本多文种平面字符的规范化缓存, 避免对每个字符调用Normalizer
+    private static final char[] NORMALIZED = new char[Character.MAX_VALUE + 1];
+
+    // 基本多文种平面字符是否为中日韩字符的缓存
+    private static final boolean[] CJK = new boolean[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (Character.isSurrogate((char) c)) {
+                NORMALIZED[c] = (char) c;
+                continue;
+            }
+            CJK[c] = isCJKScript(c);
+            String normalized = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFKC).toLowerCase();
+            NORMALIZED[c] = normalized.length() == 1 ? normalized.charAt(0) : EXPAND;
+        }
+    }
+
+    @Override
+    public List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String source = normalize(text);
+        List<String> tokens = new ArrayList<>(source.length() + 1);
+        StringBuilder latin = new StringBuilder();
+        // 上一个中日韩字符, -1 表示不在中日韩字符串中
+        int previous = -1;
+        for (int i = 0; i < source.length(); ) {
+            int codePoint = source.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCJK(codePoint)) {
+                flush(latin, tokens);
+                tokens.add(new String(Character.toChars(codePoint)));
+                if (previous >= 0) {
+                    tokens.add(bigram(previous, codePoint));
+                }
+                previous = codePoint;
+                continue;
+            }
+            previous = -1;
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (latin.length() < MAX_TOKEN_LENGTH) {
+                    latin.appendCodePoint(codePoint);
+                }
+            } else {
+                flush(latin, tokens);
+            }
+        }
+        flush(latin, tokens);
+        return tokens;
+    }
+
+    /**
+     * 规范化文本, NFKC规范化并转换为小写
+     *
+     * @param text 文本
+     * @return 规范化后的文本
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder builder = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char normalized = NORMALIZED[c];
+            if (normalized == EXPAND) {
+                // 存在需要展开的字符时整体规范化
+                return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+            }
+            if (normalized != c && builder == null) {
+                builder = new StringBuilder(text.length());
+                builder.append(text, 0, i);
+            }
+            if (builder != null) {
+                builder.append(normalized);
+            }
+        }
+        return builder == null ? text : builder.toString();
+    }
+
+    private static boolean isCJK(int codePoint) {
+        return codePoint <= Character.MAX_VALUE ? CJK[codePoint] : isCJKScript(codePoint);
+    }
+
+    private static boolean isCJKScript(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static String bigram(int first, int second) {
+        if (Character.isBmpCodePoint(first) && Character.isBmpCodePoint(second)) {
+            return new String(new char[]{(char) first, (char) second});
+        }
+        return new StringBuilder(4).appendCodePoint(first).appendCodePoint(second).toString();
+    }
+
+    private static void flush(StringBuilder latin, List<String> tokens) {
+        if (latin.length() > 0) {
+            tokens.add(latin.toString());
+            latin.setLength(0);
+        }
+    }
+
+}
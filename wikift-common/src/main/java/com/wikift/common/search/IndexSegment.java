@@ -0,0 +1,262 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 索引分段, 每个分段持有部分文档的倒排列表, 分段之间可以并行写入和检索
+ *
+ * @author qianmoQ
+ */
+class IndexSegment {
+
+    // BM25 参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 正排信息, 用于更新或删除文档时移除旧的倒排数据
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+
+    // 词项 -> (文档id -> 词频), 按文档id排序
+    private final Map<String, TreeMap<Long, Integer>> postings = new HashMap<>();
+
+    // 过滤条件 -> 文档id, 按文档id排序
+    private final Map<String, TreeSet<Long>> filters = new HashMap<>();
+
+    private long totalLength;
+
+    void put(IndexedDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getId());
+            documents.put(document.getId(), document);
+            document.getTerms().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new TreeMap<>()).put(document.getId(), frequency));
+            document.getFilters().forEach(filter ->
+                    filters.computeIfAbsent(filter, key -> new TreeSet<>()).add(document.getId()));
+            totalLength += document.getLength();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long id) {
+        IndexedDocument document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        document.getTerms().keySet().forEach(term -> {
+            TreeMap<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        });
+        document.getFilters().forEach(filter -> {
+            TreeSet<Long> posting = filters.get(filter);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    filters.remove(filter);
+                }
+            }
+        });
+        totalLength -= document.getLength();
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long totalLength() {
+        lock.readLock().lock();
+        try {
+            return totalLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int docFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            TreeMap<Long, Integer> posting = postings.get(term);
+            return posting == null ? 0 : posting.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 对词项及过滤条件的倒排列表求交, 并计算命中文档的相关度
+     *
+     * @param idf            词项的逆文档频率
+     * @param mustFilters    必须满足的过滤条件
+     * @param excludeFilters 必须排除的过滤条件
+     * @param averageLength  文档平均长度
+     * @param hits           命中结果收集器
+     */
+    void collect(Map<String, Double> idf, Collection<String> mustFilters, Collection<String> excludeFilters,
+                 double averageLength, List<SearchResult.Hit> hits) {
+        lock.readLock().lock();
+        try {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String term : idf.keySet()) {
+                TreeMap<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    return;
+                }
+                lists.add(posting.keySet());
+            }
+            for (String filter : mustFilters) {
+                TreeSet<Long> posting = filters.get(filter);
+                if (posting == null) {
+                    return;
+                }
+                lists.add(posting);
+            }
+            if (lists.isEmpty()) {
+                return;
+            }
+            List<Set<Long>> excludes = new ArrayList<>();
+            for (String filter : excludeFilters) {
+                TreeSet<Long> posting = filters.get(filter);
+                if (posting != null) {
+                    excludes.add(posting);
+                }
+            }
+            // 从最短的倒排列表开始, 逐个到其他列表中探测
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> shortest = lists.get(0);
+            for (Long id : shortest) {
+                if (!containsAll(lists, id) || containsAny(excludes, id)) {
+                    continue;
+                }
+                hits.add(new SearchResult.Hit(id, score(id, idf, averageLength)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean containsAll(List<Set<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsAny(List<Set<Long>> lists, Long id) {
+        for (Set<Long> list : lists) {
+            if (list.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double score(Long id, Map<String, Double> idf, double averageLength) {
+        IndexedDocument document = documents.get(id);
+        double normalize = K1 * (1 - B + B * document.getLength() / Math.max(averageLength, 1D));
+        double score = 0;
+        for (Map.Entry<String, Double> entry : idf.entrySet()) {
+            int frequency = postings.get(entry.getKey()).get(id);
+            score += entry.getValue() * frequency * (K1 + 1) / (frequency + normalize);
+        }
+        return score;
+    }
+
+    void writeTo(DataOutputStream output) throws IOException {
+        lock.readLock().lock();
+        try {
+            output.writeInt(documents.size());
+            for (IndexedDocument document : documents.values()) {
+                output.writeLong(document.getId());
+                output.writeInt(document.getLength());
+                output.writeInt(document.getTerms().size());
+                for (Map.Entry<String, Integer> entry : document.getTerms().entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeInt(entry.getValue());
+                }
+                output.writeInt(document.getFilters().size());
+                for (String filter : document.getFilters()) {
+                    output.writeUTF(filter);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static IndexSegment readFrom(DataInputStream input) throws IOException {
+        IndexSegment segment = new IndexSegment();
+        int documentCount = input.readInt();
+        for (int i = 0; i < documentCount; i++) {
+            Long id = input.readLong();
+            int length = input.readInt();
+            int termCount = input.readInt();
+            Map<String, Integer> terms = new HashMap<>(termCount * 2);
+            for (int j = 0; j < termCount; j++) {
+                terms.put(input.readUTF(), input.readInt());
+            }
+            int filterCount = input.readInt();
+            Set<String> filters = new HashSet<>(filterCount * 2);
+            for (int j = 0; j < filterCount; j++) {
+                filters.add(input.readUTF());
+            }
+            segment.put(new IndexedDocument(id, terms, length, filters));
+        }
+        return segment;
+    }
+
+}
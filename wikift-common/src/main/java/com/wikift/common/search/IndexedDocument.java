@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分词完成的文档
+ *
+ * @author qianmoQ
+ */
+@Data
+@ToString
+@AllArgsConstructor
+class IndexedDocument {
+
+    private Long id;
+
+    // 词项 -> 加权词频
+    private Map<String, Integer> terms;
+
+    // 文档长度, 即加权词频之和
+    private int length;
+
+    private Set<String> filters;
+
+}
@@ -0,0 +1,339 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 倒排索引 <br/>
+ * 描述 : 文档按id分布到多个分段中, 检索时各分段分别对倒排列表求交并使用BM25计算相关度 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+public class InvertedIndex {
+
+    private static final int MAGIC = 0x57494B49;
+    // 分段格式或分词规则变化时升级版本, 使磁盘上的旧分段失效
+    private static final int VERSION = 3;
+
+    // 标题中的词项权重
+    private static final int TITLE_BOOST = 3;
+
+    private final Tokenizer tokenizer;
+
+    private final int segmentCount;
+
+    private volatile IndexSegment[] segments;
+
+    // 重建期间的增量变更, 重建完成后重放到新索引中, value为null表示删除
+    private Map<Long, IndexedDocument> journal;
+
+    private final Object journalLock = new Object();
+
+    private volatile boolean modified;
+
+    public InvertedIndex(Tokenizer tokenizer, int segmentCount) {
+        this.tokenizer = tokenizer;
+        this.segmentCount = segmentCount;
+        this.segments = newSegments();
+    }
+
+    /**
+     * 添加或更新文档
+     *
+     * @param document 文档
+     */
+    public void put(SearchDocument document) {
+        IndexedDocument indexed = analyze(document);
+        synchronized (journalLock) {
+            segmentOf(segments, indexed.getId()).put(indexed);
+            if (journal != null) {
+                journal.put(indexed.getId(), indexed);
+            }
+            modified = true;
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param id 文档id
+     */
+    public void remove(Long id) {
+        synchronized (journalLock) {
+            segmentOf(segments, id).remove(id);
+            if (journal != null) {
+                journal.put(id, null);
+            }
+            modified = true;
+        }
+    }
+
+    /**
+     * 检索文档, 查询文本中的所有词项必须全部命中
+     *
+     * @param query          查询文本
+     * @param mustFilters    必须满足的过滤条件
+     * @param excludeFilters 必须排除的过滤条件
+     * @param offset         起始位置
+     * @param limit          返回数量
+     * @return 检索结果
+     */
+    public SearchResult search(String query, Collection<String> mustFilters, Collection<String> excludeFilters, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenizer.tokenize(query));
+        if (terms.isEmpty() && mustFilters.isEmpty()) {
+            return new SearchResult(0, Collections.emptyList());
+        }
+        IndexSegment[] current = segments;
+        // 使用所有分段的统计信息计算相关度, 保证各分段的得分可以比较
+        long documentCount = 0;
+        long totalLength = 0;
+        for (IndexSegment segment : current) {
+            documentCount += segment.size();
+            totalLength += segment.totalLength();
+        }
+        if (documentCount == 0) {
+            return new SearchResult(0, Collections.emptyList());
+        }
+        Map<String, Double> idf = new LinkedHashMap<>();
+        for (String term : terms) {
+            int frequency = 0;
+            for (IndexSegment segment : current) {
+                frequency += segment.docFrequency(term);
+            }
+            if (frequency == 0) {
+                return new SearchResult(0, Collections.emptyList());
+            }
+            idf.put(term, Math.log(1 + (documentCount - frequency + 0.5D) / (frequency + 0.5D)));
+        }
+        double averageLength = (double) totalLength / documentCount;
+        List<SearchResult.Hit> hits = new ArrayList<>();
+        for (IndexSegment segment : current) {
+            segment.collect(idf, mustFilters, excludeFilters, averageLength, hits);
+        }
+        return new SearchResult(hits.size(), top(hits, offset, limit));
+    }
+
+    private List<SearchResult.Hit> top(List<SearchResult.Hit> hits, int offset, int limit) {
+        Comparator<SearchResult.Hit> order = Comparator.comparing(SearchResult.Hit::getScore)
+                .thenComparing(SearchResult.Hit::getId)
+                .reversed();
+        int size = offset + limit;
+        if (offset >= hits.size() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // 只保留前 offset + limit 条结果, 无需对全部命中结果排序
+        PriorityQueue<SearchResult.Hit> queue = new PriorityQueue<>(size, order.reversed());
+        for (SearchResult.Hit hit : hits) {
+            queue.offer(hit);
+            if (queue.size() > size) {
+                queue.poll();
+            }
+        }
+        List<SearchResult.Hit> sorted = new ArrayList<>(queue);
+        sorted.sort(order);
+        return sorted.subList(offset, Math.min(size, sorted.size()));
+    }
+
+    /**
+     * 开始重建索引, 重建期间原索引继续提供检索, 增量变更同时记录到日志中
+     *
+     * @return 重建器
+     */
+    public Rebuild startRebuild() {
+        synchronized (journalLock) {
+            if (journal != null) {
+                throw new IllegalStateException("index is rebuilding");
+            }
+            journal = new HashMap<>();
+            return new Rebuild(newSegments());
+        }
+    }
+
+    /**
+     * 文档总数
+     *
+     * @return 文档总数
+     */
+    public int size() {
+        int size = 0;
+        for (IndexSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * 将所有分段写入磁盘, 先写入临时文件后替换, 避免写入中断导致分段损坏
+     *
+     * @param directory 索引目录
+     * @throws IOException 写入失败
+     */
+    public void persist(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        IndexSegment[] current;
+        synchronized (journalLock) {
+            current = segments;
+            modified = false;
+        }
+        try {
+            for (int i = 0; i < current.length; i++) {
+                Path target = directory.resolve(segmentName(i));
+                Path temp = directory.resolve(segmentName(i) + ".tmp");
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeInt(segmentCount);
+                    output.writeInt(i);
+                    current[i].writeTo(output);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            modified = true;
+            throw e;
+        }
+    }
+
+    /**
+     * 从磁盘加载分段, 任意分段缺失或与当前分段数量不一致时不加载
+     *
+     * @param directory 索引目录
+     * @return 是否加载成功
+     * @throws IOException 读取失败
+     */
+    public boolean load(Path directory) throws IOException {
+        IndexSegment[] loaded = new IndexSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            Path source = directory.resolve(segmentName(i));
+            if (!Files.exists(source)) {
+                return false;
+            }
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+                if (input.readInt() != MAGIC || input.readInt() != VERSION
+                        || input.readInt() != segmentCount || input.readInt() != i) {
+                    return false;
+                }
+                loaded[i] = IndexSegment.readFrom(input);
+            }
+        }
+        synchronized (journalLock) {
+            segments = loaded;
+        }
+        return true;
+    }
+
+    private String segmentName(int index) {
+        return "segment-" + index + ".idx";
+    }
+
+    private IndexedDocument analyze(SearchDocument document) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        for (String term : tokenizer.tokenize(document.getTitle())) {
+            terms.merge(term, TITLE_BOOST, Integer::sum);
+            length += TITLE_BOOST;
+        }
+        for (String term : tokenizer.tokenize(document.getContent())) {
+            terms.merge(term, 1, Integer::sum);
+            length++;
+        }
+        return new IndexedDocument(document.getId(), terms, length, new LinkedHashSet<>(document.getFilters()));
+    }
+
+    private IndexSegment[] newSegments() {
+        IndexSegment[] created = new IndexSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            created[i] = new IndexSegment();
+        }
+        return created;
+    }
+
+    private IndexSegment segmentOf(IndexSegment[] source, Long id) {
+        return source[(int) Math.floorMod(id, (long) segmentCount)];
+    }
+
+    /**
+     * 索引重建器, 可由多个线程并发写入
+     */
+    public class Rebuild {
+
+        private final IndexSegment[] building;
+
+        private Rebuild(IndexSegment[] building) {
+            this.building = building;
+        }
+
+        public void put(SearchDocument document) {
+            IndexedDocument indexed = analyze(document);
+            segmentOf(building, indexed.getId()).put(indexed);
+        }
+
+        /**
+         * 重放重建期间的增量变更并替换原索引
+         */
+        public void commit() {
+            synchronized (journalLock) {
+                journal.forEach((id, document) -> {
+                    if (document == null) {
+                        segmentOf(building, id).remove(id);
+                    } else {
+                        segmentOf(building, id).put(document);
+                    }
+                });
+                journal = null;
+                segments = building;
+                modified = true;
+            }
+        }
+
+        /**
+         * 放弃重建, 原索引不受影响
+         */
+        public void abort() {
+            synchronized (journalLock) {
+                journal = null;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 待索引的文档, 标题和内容参与全文检索, 过滤条件以 字段:值 的形式参与倒排列表求交
+ *
+ * @author qianmoQ
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchDocument {
+
+    private Long id;
+
+    private String title;
+
+    private String content;
+
+    private Set<String> filters = new HashSet<>();
+
+    public SearchDocument(Long id, String title, String content) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+    }
+
+    /**
+     * 添加过滤条件
+     *
+     * @param field 过滤字段
+     * @param value 过滤值
+     */
+    public void addFilter(String field, Object value) {
+        filters.add(filter(field, value));
+    }
+
+    /**
+     * 生成过滤条件
+     *
+     * @param field 过滤字段
+     * @param value 过滤值
+     * @return 过滤条件
+     */
+    public static String filter(String field, Object value) {
+        return field + ":" + value;
+    }
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import java.util.List;
+
+/**
+ * 分词器, 将文本切分为用于索引和查询的词项
+ *
+ * @author qianmoQ
+ */
+public interface Tokenizer {
+
+    /**
+     * 对文本进行分词
+     *
+     * @param text 文本
+     * @return 词项列表, 保留重复词项用于统计词频
+     */
+    List<String> tokenize(String text);
+
+}
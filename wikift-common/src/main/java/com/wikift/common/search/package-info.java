@@ -0,0 +1 @@
+package com.wikift.common.search;
@@ -46,6 +46,7 @@ public class TreeModelSupport {
     private String icon; // 数据图标
     private Boolean checked = false; // 是否选中
     List<TreeModelSupport> children; // 子数据
+    private Boolean leaf; // 是否没有子数据, 懒加载时子数据可能未加载
     private Long item;
 //    private TreeModelItemSupport item;
 
@@ -17,7 +17,11 @@
  */
 package com.wikift.common.tree;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * <p> TreeUtils </p>
@@ -29,8 +33,48 @@ import java.util.List;
  */
 public class TreeUtils {
 
-    public static List<TreeModelSupport> getChildren(Long id, List datas) {
-        return null;
+    /**
+     * 根据父节点标志构建树形数据, 只遍历一次数据集合且不使用递归, 层级再深也不会栈溢出
+     * <p>
+     * 同一父节点下的子节点保持数据集合中的顺序, 父节点为空时作为根节点,
+     * 父节点不存在或形成环的数据无法从根节点访问, 不会出现在结果中
+     *
+     * @param id           根节点标志
+     * @param datas        数据集合
+     * @param parentMapper 获取数据的父节点标志
+     * @param nodeMapper   将数据转换为树节点, 节点标志用于关联子节点
+     * @return 根节点下的子节点, 没有子节点时返回null
+     */
+    public static <T> List<TreeModelSupport> getChildren(Long id, List<T> datas,
+                                                         Function<T, Long> parentMapper,
+                                                         Function<T, TreeModelSupport> nodeMapper) {
+        Map<Long, TreeModelSupport> nodes = new HashMap<>(datas.size() * 4 / 3 + 1);
+        List<TreeModelSupport> supports = new ArrayList<>(datas.size());
+        for (T data : datas) {
+            TreeModelSupport support = nodeMapper.apply(data);
+            nodes.put(support.getId(), support);
+            supports.add(support);
+        }
+        List<TreeModelSupport> childrens = null;
+        for (int i = 0; i < supports.size(); i++) {
+            TreeModelSupport support = supports.get(i);
+            Long parent = parentMapper.apply(datas.get(i));
+            if (parent == null || parent.equals(id)) {
+                if (childrens == null) {
+                    childrens = new ArrayList<>();
+                }
+                childrens.add(support);
+                continue;
+            }
+            TreeModelSupport parentSupport = nodes.get(parent);
+            if (parentSupport != null) {
+                if (parentSupport.getChildren() == null) {
+                    parentSupport.setChildren(new ArrayList<>());
+                }
+                parentSupport.getChildren().add(support);
+            }
+        }
+        return childrens;
     }
 
 }
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import org.springframework.util.ObjectUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 属性映射工具
+ * <p>
+ * 创建时根据属性名称一次性解析类中的属性并缓存为 MethodHandle, 映射时不再查找属性,
+ * 配置多个属性时依次读取, 返回第一个非空的属性值. 与 {@link ReflectUtils#getFieldValue(String, Object)} 一致, 只查找类中声明的属性,
+ * 属性不存在时在创建时抛出异常, 避免配置错误的属性名称在映射时被当作空值
+ *
+ * @author qianmoQ
+ */
+public class AttributeMapper<T> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<T> type;
+
+    private final MethodHandle[] getters;
+
+    private AttributeMapper(Class<T> type, MethodHandle[] getters) {
+        this.type = type;
+        this.getters = getters;
+    }
+
+    /**
+     * 创建属性映射
+     *
+     * @param type   映射的类
+     * @param fields 按优先级排列的属性名称
+     * @return 属性映射
+     * @throws IllegalArgumentException 类中不存在配置的属性
+     */
+    public static <T> AttributeMapper<T> of(Class<T> type, String... fields) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<MethodHandle> getters = new ArrayList<>(fields.length);
+        for (String name : fields) {
+            Field field = findField(type, name);
+            if (field == null) {
+                throw new IllegalArgumentException("field " + name + " not found in " + type.getName());
+            }
+            try {
+                // 设置访问private属性, 只在创建时执行一次
+                field.setAccessible(true);
+                // 统一为 (Object)Object, 读取时可以使用 invokeExact
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can not access field " + name + " of " + type.getName(), e);
+            }
+        }
+        return new AttributeMapper<>(type, getters.toArray(new MethodHandle[0]));
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取第一个非空的属性值
+     *
+     * @param object 读取属性的对象
+     * @return 属性值, 所有属性均为空时返回null
+     */
+    public Object getValue(T object) {
+        if (object == null) {
+            return null;
+        }
+        for (MethodHandle getter : getters) {
+            Object result;
+            try {
+                result = getter.invokeExact((Object) object);
+            } catch (Throwable e) {
+                throw new IllegalStateException("can not read field of " + type.getName(), e);
+            }
+            if (!ObjectUtils.isEmpty(result)) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取第一个非空的属性值并转换为字符串
+     *
+     * @param object 读取属性的对象
+     * @return 属性值, 所有属性均为空时返回null
+     */
+    public String getString(T object) {
+        Object result = getValue(object);
+        return result == null ? null : String.valueOf(result);
+    }
+
+}
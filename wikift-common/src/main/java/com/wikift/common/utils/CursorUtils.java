@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import com.wikift.model.enums.MessageEnums;
+import com.wikift.model.enums.OrderEnums;
+import com.wikift.model.result.CursorPage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 游标分页工具
+ * <p>
+ * 游标由 排序方式, 排序键, 数据id 组成, 对外以 base64 编码后的不透明字符串传递
+ *
+ * @author qianmoQ
+ */
+public class CursorUtils {
+
+    private static final String SEPARATOR = ":";
+
+    // 游标分页每页最大数据条数
+    public static final int MAX_SIZE = 100;
+
+    // 创建时间游标第一页的起始值
+    private static final long MAX_CREATE_TIME = new GregorianCalendar(9999, Calendar.DECEMBER, 31).getTimeInMillis();
+
+    /**
+     * 生成游标
+     *
+     * @param order   排序方式
+     * @param sortKey 排序键
+     * @param id      数据id
+     * @return 游标字符串
+     */
+    public static String encode(OrderEnums order, Long sortKey, Long id) {
+        String source = order.name() + SEPARATOR + sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor 游标字符串
+     * @param order  当前排序方式
+     * @return 游标信息, 游标无效或与排序方式不匹配时返回null
+     */
+    public static Cursor decode(String cursor, OrderEnums order) {
+        if (StringUtils.isEmpty(cursor)) {
+            return null;
+        }
+        try {
+            String source = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] values = source.split(SEPARATOR);
+            if (values.length != 3 || !order.name().equals(values[0])) {
+                return null;
+            }
+            return new Cursor(order, Long.valueOf(values[1]), Long.valueOf(values[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 校验每页数据条数
+     *
+     * @param size 每页数据条数
+     * @return 是否在 1 到 {@link #MAX_SIZE} 之间
+     */
+    public static boolean isValidSize(Integer size) {
+        return size != null && size >= 1 && size <= MAX_SIZE;
+    }
+
+    /**
+     * 按游标查询一页数据, 多查询一条数据用于判断是否存在下一页, 并根据当前页最后一条数据生成下一页游标
+     * <p>
+     * 游标为空或无效时从第一页开始查询, 此时排序键为该排序方式的最大值, 数据id为 {@link Long#MAX_VALUE},
+     * 创建时间排序时排序键为毫秒时间戳
+     *
+     * @param order         排序方式
+     * @param cursor        游标字符串
+     * @param size          每页数据条数
+     * @param query         根据游标及查询条数查询排在游标之后的数据
+     * @param sortKeyMapper 获取数据的排序键
+     * @param idMapper      获取数据id
+     * @return 游标分页结果
+     */
+    public static <T> CursorPage<T> query(OrderEnums order, String cursor, Integer size,
+                                          BiFunction<Cursor, Integer, List<T>> query,
+                                          Function<T, Long> sortKeyMapper,
+                                          Function<T, Long> idMapper) {
+        Assert.isTrue(isValidSize(size), MessageEnums.PARAMS_CURSOR_SIZE_INVALID.getValue());
+        Cursor current = decode(cursor, order);
+        if (current == null) {
+            current = new Cursor(order, order == OrderEnums.NATIVE_CREATE_TIME ? MAX_CREATE_TIME : Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+        List<T> entities = query.apply(current, size + 1);
+        if (entities.size() <= size) {
+            return new CursorPage<>(entities, size, null, true);
+        }
+        List<T> content = new ArrayList<>(entities.subList(0, size));
+        T tail = content.get(content.size() - 1);
+        return new CursorPage<>(content, size, encode(order, sortKeyMapper.apply(tail), idMapper.apply(tail)), false);
+    }
+
+    @Data
+    @ToString
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cursor {
+
+        private OrderEnums order; // 排序方式
+        private Long sortKey; // 排序键
+        private Long id; // 数据id
+
+    }
+
+}
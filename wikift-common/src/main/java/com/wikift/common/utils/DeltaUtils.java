@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文本差异编码工具
+ * <p>
+ * 以行为单位将目标文本编码为对基准文本的 复制 与 插入 操作:
+ * C起始行,行数\n 表示从基准文本复制若干行, I字符数\n文本 表示插入一段新文本
+ *
+ * @author qianmoQ
+ */
+public class DeltaUtils {
+
+    private static final char COPY = 'C';
+    private static final char INSERT = 'I';
+
+    // 每行最多比较的候选位置数量, 避免大量重复行时退化为平方复杂度
+    private static final int MAX_CANDIDATES = 16;
+
+    /**
+     * 生成目标文本相对基准文本的差异
+     *
+     * @param base   基准文本
+     * @param target 目标文本
+     * @return 差异
+     */
+    public static String encode(String base, String target) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < baseLines.size(); i++) {
+            positions.computeIfAbsent(baseLines.get(i), key -> new ArrayList<>()).add(i);
+        }
+        StringBuilder delta = new StringBuilder();
+        StringBuilder insert = new StringBuilder();
+        // 上一次复制结束的位置, 优先从该位置继续匹配
+        int expected = 0;
+        int i = 0;
+        while (i < targetLines.size()) {
+            int bestStart = -1;
+            int bestLength = 0;
+            if (expected < baseLines.size() && baseLines.get(expected).equals(targetLines.get(i))) {
+                bestStart = expected;
+                bestLength = matchLength(baseLines, expected, targetLines, i);
+            }
+            List<Integer> candidates = positions.get(targetLines.get(i));
+            if (candidates != null) {
+                for (int j = 0; j < candidates.size() && j < MAX_CANDIDATES; j++) {
+                    int length = matchLength(baseLines, candidates.get(j), targetLines, i);
+                    if (length > bestLength) {
+                        bestStart = candidates.get(j);
+                        bestLength = length;
+                    }
+                }
+            }
+            if (bestLength == 0) {
+                insert.append(targetLines.get(i));
+                i++;
+                continue;
+            }
+            flushInsert(delta, insert);
+            delta.append(COPY).append(bestStart).append(',').append(bestLength).append('\n');
+            expected = bestStart + bestLength;
+            i += bestLength;
+        }
+        flushInsert(delta, insert);
+        return delta.toString();
+    }
+
+    /**
+     * 根据基准文本及差异还原目标文本
+     *
+     * @param base  基准文本
+     * @param delta 差异
+     * @return 目标文本
+     */
+    public static String decode(String base, String delta) {
+        List<String> baseLines = splitLines(base);
+        StringBuilder target = new StringBuilder(base.length());
+        int position = 0;
+        while (position < delta.length()) {
+            char op = delta.charAt(position);
+            int lineEnd = delta.indexOf('\n', position);
+            if (lineEnd < 0) {
+                throw new IllegalArgumentException("invalid delta at " + position);
+            }
+            String argument = delta.substring(position + 1, lineEnd);
+            if (op == COPY) {
+                int separator = argument.indexOf(',');
+                int start = Integer.parseInt(argument.substring(0, separator));
+                int count = Integer.parseInt(argument.substring(separator + 1));
+                for (int i = start; i < start + count; i++) {
+                    target.append(baseLines.get(i));
+                }
+                position = lineEnd + 1;
+            } else if (op == INSERT) {
+                int length = Integer.parseInt(argument);
+                target.append(delta, lineEnd + 1, lineEnd + 1 + length);
+                position = lineEnd + 1 + length;
+            } else {
+                throw new IllegalArgumentException("invalid delta operation " + op + " at " + position);
+            }
+        }
+        return target.toString();
+    }
+
+    private static int matchLength(List<String> baseLines, int baseStart, List<String> targetLines, int targetStart) {
+        int length = 0;
+        while (baseStart + length < baseLines.size() && targetStart + length < targetLines.size()
+                && baseLines.get(baseStart + length).equals(targetLines.get(targetStart + length))) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void flushInsert(StringBuilder delta, StringBuilder insert) {
+        if (insert.length() > 0) {
+            delta.append(INSERT).append(insert.length()).append('\n').append(insert);
+            insert.setLength(0);
+        }
+    }
+
+    /**
+     * 按行切分文本, 每行保留行尾换行符, 拼接后与原文本一致
+     */
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * 文章摘要工具
+ * <p>
+ * 去除Markdown及HTML标记后截取文章开头的纯文本作为摘要
+ *
+ * @author qianmoQ
+ */
+public class ExcerptUtils {
+
+    // 摘要最大字符数
+    public static final int MAX_LENGTH = 120;
+
+    private static final String ELLIPSIS = "...";
+
+    private static final Pattern CODE_BLOCK = Pattern.compile("```[\\s\\S]*?(```|$)");
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern IMAGE = Pattern.compile("!\\[([^\\]]*)\\]\\([^)]*\\)");
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]*)\\]\\([^)]*\\)");
+    private static final Pattern LINE_MARKER = Pattern.compile("(?m)^\\s*(#{1,6}|>|[-*+]|\\d+\\.)\\s+");
+    private static final Pattern INLINE_MARKER = Pattern.compile("[*_~`]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 根据文章内容生成摘要
+     *
+     * @param content 文章内容
+     * @return 摘要, 内容为空时返回空字符串
+     */
+    public static String excerpt(String content) {
+        return excerpt(content, MAX_LENGTH);
+    }
+
+    /**
+     * 根据文章内容生成摘要
+     *
+     * @param content   文章内容
+     * @param maxLength 摘要最大字符数
+     * @return 摘要, 内容为空时返回空字符串
+     */
+    public static String excerpt(String content, int maxLength) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        String text = CODE_BLOCK.matcher(content).replaceAll(" ");
+        text = HTML_TAG.matcher(text).replaceAll(" ");
+        text = IMAGE.matcher(text).replaceAll("$1");
+        text = LINK.matcher(text).replaceAll("$1");
+        text = LINE_MARKER.matcher(text).replaceAll("");
+        text = INLINE_MARKER.matcher(text).replaceAll("");
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        if (text.codePointCount(0, text.length()) <= maxLength) {
+            return text;
+        }
+        int end = text.offsetByCodePoints(0, maxLength - ELLIPSIS.length());
+        return text.substring(0, end).trim() + ELLIPSIS;
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.job.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+
+import java.util.concurrent.Executor;
+
+/**
+ * AsyncExecutorConfig <br/>
+ * 描述 : 异步任务线程池配置, 每个线程池的线程数量及队列长度有上限, 队列已满时按配置的策略处理,
+ * 服务关闭时等待已提交的任务执行完成 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Configuration
+public class AsyncExecutorConfig implements AsyncConfigurer, ApplicationListener<ContextClosedEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncExecutorConfig.class);
+
+    public static final String DEFAULT_EXECUTOR = "taskExecutor";
+    public static final String REMIND_EXECUTOR = "remindExecutor";
+    public static final String PUSH_EXECUTOR = "pushExecutor";
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * 未指定线程池的 @Async 任务使用的线程池
+     */
+    @Bean(name = DEFAULT_EXECUTOR)
+    public MonitoredTaskExecutor taskExecutor() {
+        return build("default", 4, 16, 1000, MonitoredTaskExecutor.POLICY_CALLER_RUNS, true);
+    }
+
+    /**
+     * 文章提醒发送线程池, 与其他异步任务隔离
+     */
+    @Bean(name = REMIND_EXECUTOR)
+    public MonitoredTaskExecutor remindExecutor() {
+        return build("remind", 2, 4, 10000, MonitoredTaskExecutor.POLICY_CALLER_RUNS, true);
+    }
+
+    /**
+     * 提醒推送线程池, 向在线用户的连接写入推送消息
+     * <p>
+     * 连接在推送任务执行结束前不会再次提交任务, 任务被丢弃后该连接不再推送, 因此不支持丢弃任务的策略.
+     * 默认拒绝任务, 消息保留在连接缓冲区中稍后重新推送, 配置为 caller-runs 时由发送提醒的线程阻塞写入连接
+     */
+    @Bean(name = PUSH_EXECUTOR)
+    public MonitoredTaskExecutor pushExecutor() {
+        return build("push", 2, 8, 10000, MonitoredTaskExecutor.POLICY_ABORT, false);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return taskExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (e, method, params) -> LOGGER.error("async method {}.{} failed",
+                method.getDeclaringClass().getSimpleName(), method.getName(), e);
+    }
+
+    /**
+     * 在关闭其他组件之前停止接收新任务, 并等待已提交的任务执行完成
+     */
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        event.getApplicationContext().getBeansOfType(MonitoredTaskExecutor.class).values().forEach(MonitoredTaskExecutor::shutdown);
+    }
+
+    /**
+     * 根据 wikift.async.线程池名称.* 配置创建线程池
+     *
+     * @param name          线程池名称
+     * @param coreSize      默认核心线程数
+     * @param maxSize       默认最大线程数
+     * @param queueCapacity 默认队列长度
+     * @param policy        默认队列已满时的处理策略
+     * @param discardable   是否允许配置丢弃任务的策略
+     * @return 线程池
+     */
+    private MonitoredTaskExecutor build(String name, int coreSize, int maxSize, int queueCapacity, String policy, boolean discardable) {
+        String prefix = "wikift.async." + name + ".";
+        String rejectedPolicy = environment.getProperty(prefix + "rejected-policy", policy);
+        if (!discardable && (MonitoredTaskExecutor.POLICY_DROP.equals(rejectedPolicy)
+                || MonitoredTaskExecutor.POLICY_DROP_OLDEST.equals(rejectedPolicy))) {
+            throw new IllegalArgumentException("rejected policy " + rejectedPolicy + " is not supported by async executor " + name);
+        }
+        MonitoredTaskExecutor executor = new MonitoredTaskExecutor(name,
+                environment.getProperty(prefix + "core-size", Integer.class, coreSize),
+                environment.getProperty(prefix + "max-size", Integer.class, maxSize),
+                environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity),
+                environment.getProperty(prefix + "keep-alive-seconds", Integer.class, 60),
+                rejectedPolicy);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(environment.getProperty("wikift.async.shutdown.await-seconds", Integer.class, 30));
+        return executor;
+    }
+
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.job.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MonitoredTaskExecutor <br/>
+ * 描述 : 有界异步线程池, 记录任务排队时间, 执行时间及拒绝次数 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+public class MonitoredTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MonitoredTaskExecutor.class);
+
+    public static final String POLICY_CALLER_RUNS = "caller-runs";
+    public static final String POLICY_DROP = "drop";
+    public static final String POLICY_DROP_OLDEST = "drop-oldest";
+    public static final String POLICY_ABORT = "abort";
+
+    private final String name;
+    private final String policy;
+    private final int queueCapacity;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public MonitoredTaskExecutor(String name, int coreSize, int maxSize, int queueCapacity, int keepAliveSeconds, String policy) {
+        this.name = name;
+        this.policy = policy;
+        this.queueCapacity = queueCapacity;
+        setBeanName(name);
+        setThreadNamePrefix("wikift-" + name + "-");
+        setCorePoolSize(coreSize);
+        setMaxPoolSize(Math.max(coreSize, maxSize));
+        setQueueCapacity(queueCapacity);
+        setKeepAliveSeconds(keepAliveSeconds);
+        setRejectedExecutionHandler(new CountingRejectedHandler(toHandler(policy)));
+        setTaskDecorator(this::decorate);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long finished = completed.sum() + failed.sum();
+        metrics.put("policy", policy);
+        metrics.put("corePoolSize", getCorePoolSize());
+        metrics.put("maxPoolSize", getMaxPoolSize());
+        metrics.put("poolSize", getPoolSize());
+        metrics.put("activeThreads", getActiveCount());
+        metrics.put("queueCapacity", queueCapacity);
+        ThreadPoolExecutor executor = getThreadPoolExecutorIfInitialized();
+        metrics.put("queueDepth", executor == null ? 0 : executor.getQueue().size());
+        metrics.put("submitted", submitted.sum());
+        metrics.put("completed", completed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("avgWaitMillis", finished > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / finished) : 0);
+        metrics.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        metrics.put("avgRunMillis", finished > 0 ? TimeUnit.NANOSECONDS.toMillis(runNanos.sum() / finished) : 0);
+        return metrics;
+    }
+
+    private ThreadPoolExecutor getThreadPoolExecutorIfInitialized() {
+        try {
+            return getThreadPoolExecutor();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private Runnable decorate(Runnable task) {
+        submitted.increment();
+        long queuedAt = System.nanoTime();
+        return () -> {
+            long start = System.nanoTime();
+            long wait = start - queuedAt;
+            waitNanos.add(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            try {
+                task.run();
+                completed.increment();
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                runNanos.add(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private RejectedExecutionHandler toHandler(String policy) {
+        switch (policy) {
+            case POLICY_DROP:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case POLICY_DROP_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case POLICY_ABORT:
+                return new ThreadPoolExecutor.AbortPolicy();
+            case POLICY_CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            default:
+                throw new IllegalArgumentException("unknown rejected policy " + policy + " of async executor " + name);
+        }
+    }
+
+    private class CountingRejectedHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler delegate;
+
+        CountingRejectedHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejected.increment();
+            if (!POLICY_CALLER_RUNS.equals(policy)) {
+                LOGGER.warn("async executor {} is full, task rejected by {} policy", name, policy);
+            }
+            delegate.rejectedExecution(task, executor);
+        }
+
+    }
+
+}
@@ -18,18 +18,12 @@
 package com.wikift.job.async;
 
 import com.wikift.model.article.ArticleEntity;
-import com.wikift.model.remind.RemindEntity;
-import com.wikift.model.remind.RemindTypeEntity;
-import com.wikift.model.user.UserEntity;
 import com.wikift.support.service.article.ArticleService;
-import com.wikift.support.service.remind.RemindService;
-import com.wikift.support.service.user.UserService;
+import com.wikift.support.service.remind.RemindFanout;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 /**
  * 异步消息发送
  *
@@ -38,33 +32,30 @@ import java.util.List;
 @Service(value = "ramindAsyncJob")
 public class RamindAsyncJob {
 
+    // 文章通知提醒类型
+    private static final Long REMIND_TYPE_ARTICLE = 2L;
+
     @Autowired
-    private UserService userService;
+    private RemindFanout remindFanout;
 
     @Autowired
-    private RemindService remindService;
+    private ArticleService articleService;
 
     /**
      * 发送消息到当前文章创建者的所有关注用户
      *
      * @param entity 当前创建的文章
      */
-    @Async
+    @Async(value = AsyncExecutorConfig.REMIND_EXECUTOR)
     public void sendRamindToUserFollows(ArticleEntity entity) {
-        // 查询所有关注当前创建文章的用户列表
-        List<UserEntity> covers = userService.findAllCoversByUserId(entity.getUser().getId());
-        if (covers != null && covers.size() > 0) {
-            RemindEntity remind = new RemindEntity();
-            remind.setId(0L);
-            remind.setArticle(entity);
-            remind.setUsers(covers);
-            RemindTypeEntity type = new RemindTypeEntity();
-            type.setId(2L);
-            remind.setRemindType(type);
-            remind.setTitle("文章通知");
-            remind.setContent(String.format("用户 %s 创建了 %s 文章", entity.getUser().getUsername(), entity.getTitle()));
-            remindService.save(remind);
+        // 文章作者为延迟加载, 异步线程中重新查询文章及作者
+        ArticleEntity article = articleService.getArticleOwner(entity.getId());
+        if (article == null) {
+            return;
         }
+        // 关注者分批写入, 发送中断时由定时任务继续发送
+        remindFanout.send(article, REMIND_TYPE_ARTICLE, "文章通知",
+                String.format("用户 %s 创建了 %s 文章", article.getUser().getUsername(), article.getTitle()));
     }
 
 }
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.job.task;
+
+import com.wikift.support.service.article.ArticleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 文章统计重建任务 <br/>
+ * 描述 : 根据浏览, 点赞, 评论明细定期校正 article_stats 中的统计数据 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class ArticleStatsTaskJob {
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Scheduled(cron = "${wikift.article.stats.rebuild.cron:0 0 4 * * ?}")
+    public void rebuildArticleStats() {
+        Boolean rebuildEnable = Boolean.valueOf(environment.getProperty("wikift.article.stats.rebuild.enable", "true"));
+        if (rebuildEnable) {
+            articleService.rebuildStats();
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.job.task;
+
+import com.wikift.support.service.article.ArticleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 文章层级路径重建任务 <br/>
+ * 描述 : 启动时为升级前的文章及父节点无效的文章生成层级路径 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class ArticleTreeTaskJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArticleTreeTaskJob.class);
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        Boolean rebuildEnable = Boolean.valueOf(environment.getProperty("wikift.article.tree.rebuild-on-startup", "true"));
+        if (rebuildEnable) {
+            Integer count = articleService.rebuildTreePaths();
+            if (count > 0) {
+                LOGGER.info("rebuild article tree paths, {} articles", count);
+            }
+        }
+    }
+
+}
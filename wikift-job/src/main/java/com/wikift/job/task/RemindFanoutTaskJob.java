@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.job.task;
+
+import com.wikift.support.service.remind.RemindFanout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 提醒发送恢复任务 <br/>
+ * 描述 : 定期继续发送因服务中断或异常未发送完成的提醒, 服务启动后立即执行一次 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class RemindFanoutTaskJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemindFanoutTaskJob.class);
+
+    @Autowired
+    private RemindFanout remindFanout;
+
+    @Scheduled(fixedDelayString = "${wikift.remind.fanout.resume.interval:300000}")
+    public void resumeRemindFanout() {
+        int count = remindFanout.resumePending();
+        if (count > 0) {
+            LOGGER.info("resumed {} pending reminds", count);
+        }
+    }
+
+}
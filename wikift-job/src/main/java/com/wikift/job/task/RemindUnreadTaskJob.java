@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.job.task;
+
+import com.wikift.support.service.remind.RemindUnreadCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 未读提醒数量校正任务 <br/>
+ * 描述 : 定期对比记录的未读提醒数量与收件箱中的实际数量, 校正不一致的用户 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class RemindUnreadTaskJob {
+
+    @Autowired
+    private RemindUnreadCounter remindUnreadCounter;
+
+    @Scheduled(fixedDelayString = "${wikift.remind.unread.reconcile.interval:600000}",
+            initialDelayString = "${wikift.remind.unread.reconcile.interval:600000}")
+    public void reconcileRemindUnread() {
+        remindUnreadCounter.reconcile();
+    }
+
+}
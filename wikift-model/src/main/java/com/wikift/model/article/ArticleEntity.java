@@ -24,6 +24,7 @@ import com.wikift.model.space.SpaceEntity;
 import com.wikift.model.user.UserEntity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.Fetch;
@@ -38,14 +39,24 @@ import java.util.Date;
 import java.util.List;
 
 @Data
-@ToString
+// 延迟加载的关联不参与比较及输出, 避免在会话外触发加载
+@EqualsAndHashCode(exclude = {"user", "articleType", "articleTags", "space"})
+@ToString(exclude = {"user", "articleType", "articleTags", "space"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
 @Table(name = "article")
 @EntityListeners(value = AuditingEntityListener.class)
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
-@JsonIgnoreProperties({"articleEntityList"})
+@JsonIgnoreProperties({"articleEntityList", "hibernateLazyInitializer", "handler"})
+@NamedEntityGraphs({
+        // 权限校验只需要文章作者
+        @NamedEntityGraph(name = "article.owner", attributeNodes = @NamedAttributeNode("user")),
+        // 文章详情需要作者, 类型, 标签及空间
+        @NamedEntityGraph(name = "article.detail", attributeNodes = {
+                @NamedAttributeNode("user"), @NamedAttributeNode("articleType"),
+                @NamedAttributeNode("articleTags"), @NamedAttributeNode("space")})
+})
 public class ArticleEntity {
 
     @Id
@@ -69,28 +80,28 @@ public class ArticleEntity {
     private Date createTime;
 
     @JsonIgnore
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinTable(name = "users_article_relation",
             joinColumns = @JoinColumn(name = "uar_article_id"),
             inverseJoinColumns = @JoinColumn(name = "uar_user_id"))
     @NotNull
     private UserEntity user;
 
-    @OneToOne(fetch = FetchType.EAGER)
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinTable(name = "article_type_relation",
             joinColumns = @JoinColumn(name = "atr_article_id"),
             inverseJoinColumns = @JoinColumn(name = "atr_article_type_id"))
     @NotNull
     private ArticleTypeEntity articleType;
 
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "article_tag_relation",
             joinColumns = @JoinColumn(name = "atr_article_id"),
             inverseJoinColumns = @JoinColumn(name = "atr_article_tag_id"))
     @Fetch(FetchMode.SUBSELECT)
     private List<ArticleTagEntity> articleTags;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinTable(name = "space_article_relation",
             joinColumns = @JoinColumn(name = "sar_article_id"),
             inverseJoinColumns = @JoinColumn(name = "sar_space_id"))
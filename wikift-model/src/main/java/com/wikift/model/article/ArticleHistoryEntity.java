@@ -34,7 +34,6 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
 import java.util.Date;
 import java.util.List;
 
@@ -57,21 +56,40 @@ public class ArticleHistoryEntity {
     @NotNull
     private String version;
 
+    // 关键帧存储完整内容, 差异版本存储相对上一版本的差异
     @Column(name = "ah_content")
     @NotNull
-    @Size(min = 10)
     private String content;
 
+    // 存储类型, 0 关键帧, 1 差异
+    @Column(name = "ah_type")
+    @JsonIgnore
+    private Integer type;
+
+    // 差异版本所属关键帧的id
+    @Column(name = "ah_base_id")
+    @JsonIgnore
+    private Long baseId;
+
+    // 与所属关键帧之间间隔的版本数
+    @Column(name = "ah_chain")
+    @JsonIgnore
+    private Integer chain;
+
+    // 当前版本完整内容的长度
+    @Column(name = "ah_size")
+    private Integer size;
+
     @Column(name = "create_time")
     @CreatedDate
     private Date createTime;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ah_users_id")
     @JsonBackReference
     private UserEntity user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ah_article_id")
     @JsonBackReference
     private ArticleEntity article;
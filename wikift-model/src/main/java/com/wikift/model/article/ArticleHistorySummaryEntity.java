@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.model.article;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * 文章修改历史摘要信息, 用于修改历史列表, 不包含修改内容
+ * <p>
+ * 作者及内容长度变化由查询语句关联得到, 该实体只读
+ *
+ * @author qianmoQ
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "article_history")
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ArticleHistorySummaryEntity {
+
+    @Id
+    @Column(name = "ah_id")
+    private Long id;
+
+    @Column(name = "ah_version")
+    private String version;
+
+    @Column(name = "create_time")
+    private Date createTime;
+
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Column(name = "author_name")
+    private String authorName;
+
+    // 当前版本内容长度
+    @Column(name = "ah_size")
+    private Integer size;
+
+    // 相对上一版本的内容长度变化
+    @Column(name = "size_delta")
+    private Integer sizeDelta;
+
+}
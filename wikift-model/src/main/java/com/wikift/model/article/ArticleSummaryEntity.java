@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.model.article;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * 文章摘要信息, 用于文章列表, 不包含文章内容
+ * <p>
+ * 作者, 空间及统计字段均由查询语句关联得到, 该实体只读
+ *
+ * @author qianmoQ
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "article")
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ArticleSummaryEntity {
+
+    @Id
+    @Column(name = "a_id")
+    private Long id;
+
+    @Column(name = "a_title")
+    private String title;
+
+    // 文章摘要, 在文章保存时根据内容生成
+    @Column(name = "a_excerpt")
+    private String excerpt;
+
+    @Column(name = "a_create_time")
+    private Date createTime;
+
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Column(name = "author_name")
+    private String authorName;
+
+    @Column(name = "space_id")
+    private Long spaceId;
+
+    @Column(name = "space_code")
+    private String spaceCode;
+
+    @Column(name = "space_name")
+    private String spaceName;
+
+    @Column(name = "view_count")
+    private Integer viewCount;
+
+    @Column(name = "fabulou_count")
+    private Integer fabulouCount;
+
+    @Column(name = "comments_count")
+    private Integer commentsCount;
+
+}
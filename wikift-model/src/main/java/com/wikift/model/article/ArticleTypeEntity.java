@@ -17,6 +17,7 @@
  */
 package com.wikift.model.article;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -34,6 +35,7 @@ import java.util.Date;
 @Entity
 @Table(name = "article_type")
 @EntityListeners(value = AuditingEntityListener.class)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class ArticleTypeEntity {
 
     @Id
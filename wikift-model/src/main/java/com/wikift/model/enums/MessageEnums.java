@@ -28,6 +28,8 @@ public enum MessageEnums {
     PARAMS_NOT_NULL(4000, "参数不能为空"),
     PARAMS_VALIDATE_ERROR(4001, "参数输入错误"),
     PARAMS_CONTRAST_VALIDATE_ERROR(4002, "两次输入的数据不一致"),
+    PARAMS_CURSOR_INVALID(4003, "无效的分页游标"),
+    PARAMS_CURSOR_SIZE_INVALID(4004, "每页数据条数必须在1到100之间"),
 
     CREDENTIALS_BAD(4100, "无效的认证凭据, 请检查输入的认证信息"),
 
@@ -44,6 +46,11 @@ public enum MessageEnums {
      */
     SPACE_NOT_FOUND(5100, "空间未找到,请校验传递参数的有效性"),
 
+    /**
+     * 文章相关提示
+     */
+    ARTICLE_PARENT_INVALID(5200, "文章不能移动到自身或其子文章下"),
+
     UNSUPPORT_MEDIA_TYPE(4415, "不支持的数据类型");
 
 
@@ -24,8 +24,8 @@ package com.wikift.model.enums;
  */
 public enum OrderEnums {
 
-    FABULOU("COUNT(uafr.uafr_user_id)"),
-    VIEW("SUM(uavr.uavr_view_count)"),
+    FABULOU("ast.as_fabulou_count"),
+    VIEW("ast.as_view_count"),
 
     NATIVE_CREATE_TIME("a_create_time");
 
@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.model.remind;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Date;
+
+/**
+ * 用户提醒收件箱 <br/>
+ * 描述 : 每个接收用户一条记录, 阅读状态属于接收用户, 不加载提醒的其他接收用户 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemindInboxEntity {
+
+    private Long remindId; // 提醒信息id
+    private String title; // 提醒标题
+    private String content; // 提醒内容
+    private Long articleId; // 提醒关联的文章id
+    private Date createTime; // 提醒时间
+    private Boolean read; // 是否已读
+    private Date readTime; // 阅读时间
+
+}
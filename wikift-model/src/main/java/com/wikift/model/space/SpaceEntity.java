@@ -17,6 +17,7 @@
  */
 package com.wikift.model.space;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.wikift.model.user.UserEntity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -38,6 +39,7 @@ import javax.validation.constraints.NotNull;
 @AllArgsConstructor
 @Entity
 @Table(name = "space")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class SpaceEntity {
 
     @Id
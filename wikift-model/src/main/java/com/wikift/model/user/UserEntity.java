@@ -22,6 +22,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.wikift.model.role.RoleEntity;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.Fetch;
@@ -31,14 +32,21 @@ import javax.persistence.*;
 import java.util.List;
 
 @Data
-@ToString
+// 延迟加载的关联不参与比较及输出, 避免在会话外触发加载
+@EqualsAndHashCode(exclude = {"userRoles", "follows", "userType"})
+@ToString(exclude = {"userRoles", "follows", "userType"})
 @NoArgsConstructor
 // 禁用: 防止 Failed to evaluate Jackson deserialization for type
 //@AllArgsConstructor
 @Entity
 @Table(name = "users")
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
-@JsonIgnoreProperties(value = {"password", "userEntity"})
+@JsonIgnoreProperties(value = {"password", "userEntity", "hibernateLazyInitializer", "handler"})
+@NamedEntityGraphs({
+        // 用户详情需要用户角色及用户类型, 不加载关注用户
+        @NamedEntityGraph(name = "user.detail", attributeNodes = {
+                @NamedAttributeNode("userRoles"), @NamedAttributeNode("userType")})
+})
 public class UserEntity {
 
     @Id
@@ -70,13 +78,13 @@ public class UserEntity {
     @Column(name = "u_lock")
     private Boolean lock = false;
 
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "users_role_relation",
             joinColumns = @JoinColumn(name = "urr_user_id", referencedColumnName = "u_id"),
             inverseJoinColumns = @JoinColumn(name = "urr_role_id", referencedColumnName = "r_id"))
     private List<RoleEntity> userRoles;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "users_follow_relation",
             joinColumns = @JoinColumn(name = "ufr_user_id_follw"),
             inverseJoinColumns = @JoinColumn(name = "ufr_user_id_cover"))
@@ -84,7 +92,7 @@ public class UserEntity {
     @Fetch(FetchMode.SUBSELECT)
     private List<UserEntity> follows;
 
-    @OneToOne(fetch = FetchType.EAGER)
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinTable(name = "users_type_relation",
             joinColumns = @JoinColumn(name = "utr_users_id", referencedColumnName = "u_id"),
             inverseJoinColumns = @JoinColumn(name = "utr_users_type_id", referencedColumnName = "ut_id"))
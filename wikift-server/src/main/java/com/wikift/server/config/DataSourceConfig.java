@@ -17,12 +17,17 @@
  */
 package com.wikift.server.config;
 
+import com.wikift.server.support.DataSourceMetricsSupport;
+import com.wikift.server.support.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.orm.jpa.JpaTransactionManager;
@@ -32,51 +37,152 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.beans.PropertyVetoException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Configuration
 @EnableTransactionManagement
 @EnableJpaRepositories(basePackages = "com.wikift.support.repository")
 public class DataSourceConfig {
 
+    private static final String PRIMARY_POOL_NAME = "wikift-primary";
+
+    // 与 EmbeddedDatabaseBuilder 创建的H2内存数据库地址一致
+    private static final String EMBEDDED_URL = "jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false";
+
     @Resource
     private Environment environment;
 
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Bean
+    public DataSourceMetricsSupport dataSourceMetrics() {
+        return new DataSourceMetricsSupport();
+    }
+
     @Bean
     public DataSource dataSource() throws PropertyVetoException {
+        DataSource primary = createDataSource(PRIMARY_POOL_NAME, environment.getProperty("wikift.database.mysql.url"));
+        Map<String, DataSource> replicas = createReplicaDataSources();
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replicas,
+                environment.getProperty("wikift.database.replica.selection", "round-robin"),
+                environment.getProperty("wikift.database.replica.read-your-write-window", Long.class, 5000L));
+        routingDataSource.afterPropertiesSet();
+        // 延迟获取物理连接, 保证事务的只读标志设置完成后再进行路由
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * 创建数据源
+     *
+     * @param poolName 连接池名称
+     * @param url      数据库连接地址, 内置数据库时不生效
+     * @return 数据源
+     */
+    private DataSource createDataSource(String poolName, String url) {
         boolean embeddedDatabase = Boolean.valueOf(environment.getProperty("wikift.database.embedded.enable"));
         if (embeddedDatabase) {
             EmbeddedDatabaseBuilder builder = new EmbeddedDatabaseBuilder();
             return builder.setType(EmbeddedDatabaseType.H2)
+                    .setName(poolName)
                     .addScripts("schema.sql", "data.sql")
                     .build();
         } else {
-            DriverManagerDataSource dataSource = new DriverManagerDataSource();
+            HikariConfig config = new HikariConfig();
             String dbType = environment.getProperty("wikift.database.type");
             Assert.notNull(dbType, "dababase type must not null");
             switch (dbType) {
                 case "mysql":
                     String dbMySQLClass = environment.getProperty("wikift.database.mysql.class");
-                    dataSource.setDriverClassName(dbMySQLClass);
                     Assert.notNull(dbMySQLClass, "mysql driver class must not null");
-                    String dbMySQLUrl = environment.getProperty("wikift.database.mysql.url");
-                    Assert.notNull(dbMySQLUrl, "mysql connection url must not null");
-                    dataSource.setUrl(dbMySQLUrl);
+                    config.setDriverClassName(dbMySQLClass);
+                    Assert.notNull(url, "mysql connection url must not null");
+                    config.setJdbcUrl(url);
                     String dbMySQLUser = environment.getProperty("wikift.database.mysql.username");
                     Assert.notNull(dbMySQLUser, "mysql connection user name must not null");
-                    dataSource.setUsername(dbMySQLUser);
+                    config.setUsername(dbMySQLUser);
                     String dbMySQLUserPassword = environment.getProperty("wikift.database.mysql.password");
-                    Assert.notNull(dbMySQLClass, "mysql connection user password must not null");
-                    dataSource.setPassword(dbMySQLUserPassword);
+                    Assert.notNull(dbMySQLUserPassword, "mysql connection user password must not null");
+                    config.setPassword(dbMySQLUserPassword);
+                    // 由驱动缓存预编译语句
+                    Integer statementCacheSize = environment.getProperty("wikift.database.pool.statement-cache-size", Integer.class, 250);
+                    if (statementCacheSize > 0) {
+                        config.addDataSourceProperty("cachePrepStmts", "true");
+                        config.addDataSourceProperty("prepStmtCacheSize", statementCacheSize);
+                        config.addDataSourceProperty("prepStmtCacheSqlLimit", environment.getProperty("wikift.database.pool.statement-cache-sql-limit", Integer.class, 2048));
+                        config.addDataSourceProperty("useServerPrepStmts", "true");
+                    }
             }
-            return dataSource;
+            config.setPoolName(poolName);
+            configurePool(config);
+            return new HikariDataSource(config);
         }
     }
 
+    /**
+     * 创建只读副本数据源, 外部数据库读取 wikift.database.mysql.replica.urls, 内置数据库读取 wikift.database.embedded.replicas
+     *
+     * @return 副本名称与数据源
+     */
+    private Map<String, DataSource> createReplicaDataSources() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        boolean embeddedDatabase = Boolean.valueOf(environment.getProperty("wikift.database.embedded.enable"));
+        if (embeddedDatabase) {
+            // 内置数据库的副本连接主库的同一个内存数据库, 只用于在本地验证路由, 不会读取到过期数据
+            Integer embeddedReplicas = environment.getProperty("wikift.database.embedded.replicas", Integer.class, 0);
+            for (int i = 0; i < embeddedReplicas; i++) {
+                replicas.put("wikift-replica-" + (i + 1), new DriverManagerDataSource(String.format(EMBEDDED_URL, PRIMARY_POOL_NAME), "sa", ""));
+            }
+            return replicas;
+        }
+        String replicaUrls = environment.getProperty("wikift.database.mysql.replica.urls");
+        if (StringUtils.isEmpty(replicaUrls)) {
+            return replicas;
+        }
+        for (String url : replicaUrls.split(",")) {
+            if (!StringUtils.isEmpty(url.trim())) {
+                String poolName = "wikift-replica-" + (replicas.size() + 1);
+                replicas.put(poolName, createDataSource(poolName, url.trim()));
+            }
+        }
+        return replicas;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 路由数据源不会被容器自动关闭, 需要手动关闭所有连接池
+        if (!ObjectUtils.isEmpty(routingDataSource)) {
+            routingDataSource.close();
+        }
+    }
+
+    /**
+     * 根据 wikift.database.pool.* 配置连接池
+     *
+     * @param config 连接池配置
+     */
+    private void configurePool(HikariConfig config) {
+        config.setMinimumIdle(environment.getProperty("wikift.database.pool.minimum-idle", Integer.class, 5));
+        config.setMaximumPoolSize(environment.getProperty("wikift.database.pool.maximum-size", Integer.class, 20));
+        config.setMaxLifetime(environment.getProperty("wikift.database.pool.max-lifetime", Long.class, 1800000L));
+        config.setIdleTimeout(environment.getProperty("wikift.database.pool.idle-timeout", Long.class, 600000L));
+        config.setConnectionTimeout(environment.getProperty("wikift.database.pool.connection-timeout", Long.class, 30000L));
+        // 连接借出超过该时间未归还时记录泄漏日志, 0为关闭
+        config.setLeakDetectionThreshold(environment.getProperty("wikift.database.pool.leak-detection-threshold", Long.class, 60000L));
+        config.setMetricsTrackerFactory(dataSourceMetrics());
+    }
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(@Qualifier("dataSource") DataSource dataSource) throws PropertyVetoException {
         LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
@@ -27,6 +27,8 @@ import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 
 import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * LdapConfig <br/>
@@ -61,6 +63,14 @@ public class LdapConfig {
             String ldapPrincipalPassword = environment.getProperty("wikift.ldap.principal.password");
             Assert.notNull(ldapPrincipalPassword, "ldap principal password must not null");
             contextSource.setPassword(ldapPrincipalPassword);
+            // 连接及读取超时, 避免LDAP响应缓慢时阻塞调用线程
+            Map<String, Object> baseEnvironment = new HashMap<>();
+            baseEnvironment.put("com.sun.jndi.ldap.connect.timeout", environment.getProperty("wikift.ldap.connect-timeout", "2000"));
+            baseEnvironment.put("com.sun.jndi.ldap.read.timeout", environment.getProperty("wikift.ldap.read-timeout", "5000"));
+            contextSource.setBaseEnvironmentProperties(baseEnvironment);
+            // 使用JNDI连接池复用管理员账号的连接, 用户认证的绑定连接不会放入连接池
+            // 连接池大小及空闲时间只能通过 -Dcom.sun.jndi.ldap.connect.pool.* 启动参数配置, JNDI在首次使用连接池时读取
+            contextSource.setPooled(Boolean.valueOf(environment.getProperty("wikift.ldap.pool.enable", "true")));
             return contextSource;
         }
         // TODO: 此处返回默认配置, 后期自主处理
@@ -18,6 +18,7 @@
 package com.wikift.server.config;
 
 import com.wikift.server.support.AuthorizationSupport;
+import com.wikift.server.support.LdapAuthenticationSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -48,6 +49,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private LdapAuthenticationSupport ldapAuthenticationSupport;
+
     @Bean
     @Override
     protected AuthenticationManager authenticationManager() throws Exception {
@@ -56,7 +60,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService)
+        // 先使用LDAP认证, LDAP未启用, 用户不存在或LDAP不可用时使用本地用户认证
+        auth.authenticationProvider(ldapAuthenticationSupport)
+                .userDetailsService(userDetailsService)
                 .passwordEncoder(new ShaPasswordEncoder(AuthorizationSupport.ENGING_STRENGTH));
     }
 
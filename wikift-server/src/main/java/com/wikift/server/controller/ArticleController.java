@@ -17,22 +17,28 @@
  */
 package com.wikift.server.controller;
 
+import com.wikift.common.utils.CursorUtils;
 import com.wikift.common.utils.MessageUtils;
 import com.wikift.common.utils.PageAndSortUtils;
 import com.wikift.job.async.RamindAsyncJob;
 import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleSummaryEntity;
 import com.wikift.model.article.ArticleTagEntity;
 import com.wikift.model.enums.MessageEnums;
 import com.wikift.model.enums.OrderEnums;
 import com.wikift.model.result.CommonResult;
+import com.wikift.model.result.CursorPage;
 import com.wikift.server.param.ArticleFabulousParam;
 import com.wikift.server.param.ArticleViewParam;
 import com.wikift.support.service.article.ArticleService;
 import com.wikift.support.service.article.ArticleTagService;
+import com.wikift.support.service.article.ArticleViewEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -51,21 +57,43 @@ public class ArticleController {
     @Autowired
     private RamindAsyncJob ramindAsyncJob;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @RequestMapping(value = "public/article/info/{id}", method = RequestMethod.GET)
     CommonResult<ArticleEntity> getArticle(@PathVariable(value = "id") Long id) {
         Assert.notNull(id, MessageEnums.PARAMS_NOT_NULL.getValue());
-        return CommonResult.success(articleService.getArticle(id));
+        ArticleEntity article = articleService.getArticle(id);
+        if (!ObjectUtils.isEmpty(article)) {
+            // 异步记录文章浏览量
+            applicationEventPublisher.publishEvent(new ArticleViewEvent(this, id));
+        }
+        return CommonResult.success(article);
     }
 
     @RequestMapping(value = "public/article/list", method = RequestMethod.GET)
-    CommonResult<ArticleEntity> list(@RequestParam(value = "page", defaultValue = "0") Integer page,
-                                     @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                     @RequestParam(value = "orderBy", defaultValue = "NATIVE_CREATE_TIME") OrderEnums order) {
+    CommonResult<ArticleSummaryEntity> list(@RequestParam(value = "page", defaultValue = "0") Integer page,
+                                            @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                            @RequestParam(value = "orderBy", defaultValue = "NATIVE_CREATE_TIME") OrderEnums order) {
         Assert.notNull(page, MessageUtils.getParamNotNull("page"));
         Assert.notNull(size, MessageUtils.getParamNotNull("size"));
         return CommonResult.success(articleService.findAll(order, PageAndSortUtils.getPage(page, size)));
     }
 
+    @RequestMapping(value = "public/article/list/cursor", method = RequestMethod.GET)
+    CommonResult<CursorPage<ArticleSummaryEntity>> listByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                                @RequestParam(value = "orderBy", defaultValue = "NATIVE_CREATE_TIME") OrderEnums order) {
+        Assert.notNull(size, MessageUtils.getParamNotNull("size"));
+        if (!CursorUtils.isValidSize(size)) {
+            return CommonResult.error(MessageEnums.PARAMS_CURSOR_SIZE_INVALID);
+        }
+        if (!StringUtils.isEmpty(cursor) && ObjectUtils.isEmpty(CursorUtils.decode(cursor, order))) {
+            return CommonResult.error(MessageEnums.PARAMS_CURSOR_INVALID);
+        }
+        return CommonResult.success(articleService.findAll(order, cursor, size));
+    }
+
     @RequestMapping(value = "public/article/list/tag/{tag}", method = RequestMethod.GET)
     CommonResult getListByTag(@PathVariable(value = "tag") String tag,
                               @RequestParam(value = "page", defaultValue = "0") Integer page,
@@ -124,9 +152,9 @@ public class ArticleController {
 
     @PreAuthorize("hasAuthority(('USER'))")
     @RequestMapping(value = "article/my", method = RequestMethod.GET)
-    CommonResult<ArticleEntity> getAllArticleByUser(@RequestParam(value = "page", defaultValue = "0") Integer page,
-                                                    @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                                    @RequestParam(value = "userId") Long userId) {
+    CommonResult<ArticleSummaryEntity> getAllArticleByUser(@RequestParam(value = "page", defaultValue = "0") Integer page,
+                                                           @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                           @RequestParam(value = "userId") Long userId) {
         Assert.notNull(page, MessageUtils.getParamNotNull("page"));
         Assert.notNull(page, MessageUtils.getParamNotNull("size"));
         Assert.notNull(userId, MessageUtils.getParamNotNull("userId"));
@@ -183,7 +211,7 @@ public class ArticleController {
 
 
     @RequestMapping(value = "public/article/search", method = RequestMethod.GET)
-    CommonResult<ArticleEntity> search(
+    CommonResult<ArticleSummaryEntity> search(
             @RequestParam(value = "page", defaultValue = "0") Integer page,
             @RequestParam(value = "size", defaultValue = "10") Integer size,
             @RequestParam(value = "tagId", required = false) Long tagId,
@@ -17,9 +17,12 @@
  */
 package com.wikift.server.controller;
 
+import com.wikift.common.utils.MessageUtils;
+import com.wikift.common.utils.PageAndSortUtils;
 import com.wikift.model.enums.MessageEnums;
 import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.result.CommonResult;
+import com.wikift.support.service.article.ArticleHistoryCompactor;
 import com.wikift.support.service.article.ArticleHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,6 +30,7 @@ import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -44,6 +48,17 @@ public class ArticleHistoryController {
     @Autowired
     private ArticleHistoryService articleHistoryService;
 
+    @Autowired
+    private ArticleHistoryCompactor articleHistoryCompactor;
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "article/history/compact", method = RequestMethod.POST)
+    CommonResult compactArticleHistory() {
+        // 异步执行, 通过 metrics/article/history 查看转换报告
+        articleHistoryCompactor.compact();
+        return CommonResult.success(articleHistoryCompactor.getReport());
+    }
+
     @PreAuthorize("hasPermission(#articleId, 'update|article')")
     @RequestMapping(value = "article/history/{articleId}", method = RequestMethod.GET)
     CommonResult getByArticle(@PathVariable(value = "articleId") Long articleId) {
@@ -53,6 +68,18 @@ public class ArticleHistoryController {
         return CommonResult.success(articleHistoryService.getByArticle(entity));
     }
 
+    @PreAuthorize("hasPermission(#articleId, 'update|article')")
+    @RequestMapping(value = "article/history/{articleId}/versions", method = RequestMethod.GET)
+    CommonResult getAllByArticle(@PathVariable(value = "articleId") Long articleId,
+                                 @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                 @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        Assert.notNull(articleId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        Assert.notNull(page, MessageUtils.getParamNotNull("page"));
+        Assert.notNull(size, MessageUtils.getParamNotNull("size"));
+        // 只返回版本信息, 修改内容通过版本详情接口获取
+        return CommonResult.success(articleHistoryService.getAllByArticle(articleId, PageAndSortUtils.getPage(page, size)));
+    }
+
     @PreAuthorize("hasAuthority(('USER')) && hasPermission(#articleId, 'update|article')")
     @RequestMapping(value = "article/history/{articleId}/{version}", method = RequestMethod.GET)
     CommonResult getArticleHistoryInfomation(@PathVariable(value = "articleId") Long articleId,
@@ -17,16 +17,20 @@
  */
 package com.wikift.server.controller;
 
+import com.wikift.common.utils.MessageUtils;
 import com.wikift.model.article.ArticleTagEntity;
 import com.wikift.model.result.CommonResult;
 import com.wikift.support.service.article.ArticleTagService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping(value = "${wikift.api.path}")
 public class ArticleTagController {
@@ -44,4 +48,10 @@ public class ArticleTagController {
         return CommonResult.success(articleTagService.getAllByArticlesCounterAndTop(top));
     }
 
+    @RequestMapping(value = "public/article/tag/search", method = RequestMethod.GET)
+    CommonResult<List<ArticleTagEntity>> search(@RequestParam(value = "keyword") String keyword) {
+        Assert.notNull(keyword, MessageUtils.getParamNotNull("keyword"));
+        return CommonResult.success(articleTagService.search(keyword));
+    }
+
 }
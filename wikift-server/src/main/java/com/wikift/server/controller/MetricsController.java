@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.server.controller;
+
+import com.wikift.job.async.MonitoredTaskExecutor;
+import com.wikift.model.result.CommonResult;
+import com.wikift.server.support.DataSourceMetricsSupport;
+import com.wikift.server.support.LdapAuthenticationSupport;
+import com.wikift.server.support.ReadWriteRoutingDataSource;
+import com.wikift.server.support.RemindPushSupport;
+import com.wikift.server.support.UserDetailsSupport;
+import com.wikift.support.ldap.service.LdapUserSync;
+import com.wikift.support.service.article.ArticleHistoryCompactor;
+import com.wikift.support.service.article.ArticleSearchIndex;
+import com.wikift.support.service.article.ArticleTagIndex;
+import com.wikift.support.service.article.ArticleTreeCache;
+import com.wikift.support.service.article.ArticleViewCounter;
+import com.wikift.support.service.remind.RemindFanout;
+import com.wikift.support.service.remind.RemindUnreadCounter;
+import com.wikift.support.service.user.UserFollowGraph;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 系统运行指标
+ *
+ * @author qianmoQ
+ */
+@RestController
+@RequestMapping(value = "${wikift.api.path}")
+public class MetricsController {
+
+    @Autowired
+    private ArticleViewCounter articleViewCounter;
+
+    @Autowired
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Autowired
+    private ArticleHistoryCompactor articleHistoryCompactor;
+
+    @Autowired
+    private ArticleTreeCache articleTreeCache;
+
+    @Autowired
+    private ArticleTagIndex articleTagIndex;
+
+    @Autowired
+    private UserFollowGraph userFollowGraph;
+
+    @Autowired
+    private RemindFanout remindFanout;
+
+    @Autowired
+    private RemindUnreadCounter remindUnreadCounter;
+
+    @Autowired
+    private RemindPushSupport remindPushSupport;
+
+    @Autowired
+    private UserDetailsSupport userDetailsSupport;
+
+    @Autowired
+    private LdapUserSync ldapUserSync;
+
+    @Autowired
+    private LdapAuthenticationSupport ldapAuthenticationSupport;
+
+    @Autowired
+    private List<MonitoredTaskExecutor> asyncExecutors;
+
+    @Autowired
+    private DataSourceMetricsSupport dataSourceMetrics;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/article/view", method = RequestMethod.GET)
+    CommonResult getArticleViewMetrics() {
+        return CommonResult.success(articleViewCounter.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/article/search", method = RequestMethod.GET)
+    CommonResult getArticleSearchMetrics() {
+        return CommonResult.success(articleSearchIndex.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/article/tag", method = RequestMethod.GET)
+    CommonResult getArticleTagMetrics() {
+        return CommonResult.success(articleTagIndex.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/article/history", method = RequestMethod.GET)
+    CommonResult getArticleHistoryMetrics() {
+        return CommonResult.success(articleHistoryCompactor.getReport());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/space/tree", method = RequestMethod.GET)
+    CommonResult getSpaceTreeMetrics() {
+        return CommonResult.success(articleTreeCache.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/user/follow", method = RequestMethod.GET)
+    CommonResult getUserFollowMetrics() {
+        return CommonResult.success(userFollowGraph.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/user/details", method = RequestMethod.GET)
+    CommonResult getUserDetailsMetrics() {
+        return CommonResult.success(userDetailsSupport.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/remind/fanout", method = RequestMethod.GET)
+    CommonResult getRemindFanoutMetrics() {
+        return CommonResult.success(remindFanout.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/remind/unread", method = RequestMethod.GET)
+    CommonResult getRemindUnreadMetrics() {
+        return CommonResult.success(remindUnreadCounter.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/remind/push", method = RequestMethod.GET)
+    CommonResult getRemindPushMetrics() {
+        return CommonResult.success(remindPushSupport.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/ldap/sync", method = RequestMethod.GET)
+    CommonResult getLdapSyncMetrics() {
+        return CommonResult.success(ldapUserSync.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/ldap/auth", method = RequestMethod.GET)
+    CommonResult getLdapAuthMetrics() {
+        return CommonResult.success(ldapAuthenticationSupport.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/async", method = RequestMethod.GET)
+    CommonResult getAsyncMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        asyncExecutors.forEach(executor -> metrics.put(executor.getName(), executor.getMetrics()));
+        return CommonResult.success(metrics);
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/datasource", method = RequestMethod.GET)
+    CommonResult getDataSourceMetrics() {
+        return CommonResult.success(dataSourceMetrics.getMetrics());
+    }
+
+    @PreAuthorize("hasAuthority(('ADMIN'))")
+    @RequestMapping(value = "metrics/datasource/routing", method = RequestMethod.GET)
+    CommonResult getDataSourceRoutingMetrics() {
+        DataSource target = dataSource;
+        if (target instanceof LazyConnectionDataSourceProxy) {
+            target = ((LazyConnectionDataSourceProxy) target).getTargetDataSource();
+        }
+        // 未配置副本时不进行读写分离
+        if (!(target instanceof ReadWriteRoutingDataSource)) {
+            return CommonResult.success(Collections.emptyMap());
+        }
+        return CommonResult.success(((ReadWriteRoutingDataSource) target).getMetrics());
+    }
+
+}
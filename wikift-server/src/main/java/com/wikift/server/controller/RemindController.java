@@ -17,15 +17,24 @@
  */
 package com.wikift.server.controller;
 
+import com.wikift.common.utils.CursorUtils;
+import com.wikift.common.utils.MessageUtils;
 import com.wikift.model.enums.MessageEnums;
+import com.wikift.model.enums.OrderEnums;
 import com.wikift.model.remind.RemindEntity;
+import com.wikift.model.remind.RemindInboxEntity;
 import com.wikift.model.result.CommonResult;
+import com.wikift.model.result.CursorPage;
 import com.wikift.model.user.UserEntity;
+import com.wikift.server.support.RemindPushSupport;
 import com.wikift.support.service.remind.RemindService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +46,9 @@ public class RemindController {
     @Autowired
     private RemindService remindService;
 
+    @Autowired
+    private RemindPushSupport remindPushSupport;
+
     @PreAuthorize("hasAuthority(('ADMIN'))")
     @RequestMapping(value = "list", method = RequestMethod.GET)
     CommonResult<RemindEntity> list() {
@@ -79,4 +91,59 @@ public class RemindController {
         return CommonResult.success(remindEntities);
     }
 
+    @PreAuthorize("hasAuthority(('USER')) && hasPermission(#userId, 'update|user')")
+    @RequestMapping(value = "remind/inbox", method = RequestMethod.GET)
+    CommonResult<CursorPage<RemindInboxEntity>> getInbox(@RequestParam(value = "userId") Long userId,
+                                                         @RequestParam(value = "type", defaultValue = "unread") String type,
+                                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                                         @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        Assert.notNull(size, MessageUtils.getParamNotNull("size"));
+        if (!CursorUtils.isValidSize(size)) {
+            return CommonResult.error(MessageEnums.PARAMS_CURSOR_SIZE_INVALID);
+        }
+        if (!StringUtils.isEmpty(cursor) && ObjectUtils.isEmpty(CursorUtils.decode(cursor, OrderEnums.NATIVE_CREATE_TIME))) {
+            return CommonResult.error(MessageEnums.PARAMS_CURSOR_INVALID);
+        }
+        return CommonResult.success(remindService.getInbox(userId, !"all".equals(type), cursor, size));
+    }
+
+    @PreAuthorize("hasAuthority(('USER')) && hasPermission(#userId, 'update|user')")
+    @RequestMapping(value = "remind/inbox/unread/count", method = RequestMethod.GET)
+    CommonResult getInboxUnreadCount(@RequestParam(value = "userId") Long userId) {
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        return CommonResult.success(remindService.getInboxUnreadCount(userId));
+    }
+
+    @PreAuthorize("hasAuthority(('USER')) && hasPermission(#userId, 'update|user')")
+    @RequestMapping(value = "remind/inbox/read/{remindId}", method = RequestMethod.PUT)
+    CommonResult readInbox(@PathVariable(value = "remindId") Long remindId,
+                           @RequestParam(value = "userId") Long userId) {
+        Assert.notNull(remindId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        return CommonResult.success(remindService.readInbox(userId, remindId));
+    }
+
+    /**
+     * 将指定提醒及更早的未读提醒全部标记为已读
+     */
+    @PreAuthorize("hasAuthority(('USER')) && hasPermission(#userId, 'update|user')")
+    @RequestMapping(value = "remind/inbox/read", method = RequestMethod.PUT)
+    CommonResult readInboxUpTo(@RequestParam(value = "userId") Long userId,
+                               @RequestParam(value = "upTo") Long remindId) {
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        Assert.notNull(remindId, MessageUtils.getParamNotNull("upTo"));
+        return CommonResult.success(remindService.readInboxUpTo(userId, remindId));
+    }
+
+    /**
+     * 订阅提醒推送, 新提醒写入收件箱后以 remind 事件推送, 断开后客户端自动重新连接
+     */
+    @PreAuthorize("hasAuthority(('USER')) && hasPermission(#userId, 'update|user')")
+    @RequestMapping(value = "remind/push", method = RequestMethod.GET, produces = "text/event-stream")
+    SseEmitter push(@RequestParam(value = "userId") Long userId) {
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        return remindPushSupport.subscribe(userId);
+    }
+
 }
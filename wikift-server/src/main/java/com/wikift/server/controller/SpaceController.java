@@ -20,18 +20,23 @@ package com.wikift.server.controller;
 import com.wikift.common.utils.BeanUtils;
 import com.wikift.common.utils.MessageUtils;
 import com.wikift.common.utils.PageAndSortUtils;
+import com.wikift.model.enums.MessageEnums;
 import com.wikift.model.result.CommonResult;
 import com.wikift.model.space.SpaceEntity;
 import com.wikift.model.user.UserEntity;
 import com.wikift.server.param.SpaceParam;
 import com.wikift.support.service.article.ArticleService;
+import com.wikift.support.service.article.ArticleTreeCache;
 import com.wikift.support.service.space.SpaceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping(value = "${wikift.api.path}")
@@ -42,6 +47,9 @@ public class SpaceController {
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private ArticleTreeCache articleTreeCache;
+
     @PreAuthorize("hasAuthority(('USER'))")
     @RequestMapping(value = "space/list", method = RequestMethod.GET)
     CommonResult<SpaceEntity> getAllSpaces(@RequestParam(value = "page", defaultValue = "0") Integer page,
@@ -73,10 +81,36 @@ public class SpaceController {
 
     @PreAuthorize("hasAuthority(('USER'))")
     @RequestMapping(value = "space/article", method = RequestMethod.GET)
-    public CommonResult<SpaceEntity> getAllArticleBySpace(@RequestParam(value = "page", defaultValue = "0") Integer page,
-                                                   @RequestParam(value = "size", defaultValue = "10") Integer size,
-                                                   @RequestParam(value = "spaceCode") String spaceCode) {
-        return articleService.getAllArticleBySpace(spaceCode, PageAndSortUtils.getPage(page, size));
+    public ResponseEntity<?> getAllArticleBySpace(@RequestParam(value = "page", defaultValue = "0") Integer page,
+                                                  @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                  @RequestParam(value = "spaceCode") String spaceCode,
+                                                  WebRequest request) {
+        Long spaceId = articleTreeCache.getSpaceId(spaceCode);
+        if (ObjectUtils.isEmpty(spaceId)) {
+            // 空间不存在时返回原有的校验信息
+            return ResponseEntity.ok(articleService.getAllArticleBySpace(spaceCode, PageAndSortUtils.getPage(page, size)));
+        }
+        // 导航树使用缓存中序列化后的数据, 版本号作为ETag, 未变化时返回304
+        ArticleTreeCache.Snapshot tree = articleTreeCache.getTree(spaceId);
+        if (request.checkNotModified(String.valueOf(tree.getVersion()))) {
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(tree.getBytes());
+    }
+
+    @PreAuthorize("hasAuthority(('USER'))")
+    @RequestMapping(value = "space/tree", method = RequestMethod.GET)
+    CommonResult getArticleTreeBySpace(@RequestParam(value = "spaceCode") String spaceCode,
+                                       @RequestParam(value = "parent", defaultValue = "-1") Long parent,
+                                       @RequestParam(value = "depth", defaultValue = "1") Integer depth) {
+        Assert.notNull(spaceCode, MessageUtils.getParamNotNull("spaceCode"));
+        Assert.isTrue(depth > 0, MessageEnums.PARAMS_VALIDATE_ERROR.getValue());
+        Long spaceId = articleTreeCache.getSpaceId(spaceCode);
+        if (ObjectUtils.isEmpty(spaceId)) {
+            return CommonResult.validateError(MessageEnums.SPACE_NOT_FOUND);
+        }
+        // 只返回父节点下指定层级内的文章, 更深的层级由客户端展开时再加载
+        return CommonResult.success(articleService.getChildren(spaceId, parent, depth));
     }
 
     @PreAuthorize("hasAuthority(('USER'))")
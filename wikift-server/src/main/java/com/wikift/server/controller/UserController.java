@@ -19,6 +19,8 @@ package com.wikift.server.controller;
 
 import com.wikift.model.enums.MessageEnums;
 import com.wikift.common.utils.BeanUtils;
+import com.wikift.common.utils.MessageUtils;
+import com.wikift.common.utils.PageAndSortUtils;
 import com.wikift.common.utils.ShaUtils;
 import com.wikift.model.result.CommonResult;
 import com.wikift.model.user.UserEntity;
@@ -142,6 +144,28 @@ public class UserController {
         return CommonResult.success(userService.findAllFollowersByUserId(userId));
     }
 
+    @PreAuthorize("hasAuthority(('USER'))")
+    @RequestMapping(value = "user/follows/{userId}/page", method = RequestMethod.GET)
+    CommonResult getFollowsByPage(@PathVariable(value = "userId") Long userId,
+                                  @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                  @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        Assert.notNull(page, MessageUtils.getParamNotNull("page"));
+        Assert.notNull(size, MessageUtils.getParamNotNull("size"));
+        return CommonResult.success(userService.getAllFollowsByUserId(userId, PageAndSortUtils.getPage(page, size)));
+    }
+
+    @PreAuthorize("hasAuthority(('USER'))")
+    @RequestMapping(value = "user/covers/{userId}/page", method = RequestMethod.GET)
+    CommonResult getCoversByPage(@PathVariable(value = "userId") Long userId,
+                                 @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                 @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        Assert.notNull(userId, MessageEnums.PARAMS_NOT_NULL.getValue());
+        Assert.notNull(page, MessageUtils.getParamNotNull("page"));
+        Assert.notNull(size, MessageUtils.getParamNotNull("size"));
+        return CommonResult.success(userService.getAllCoversByUserId(userId, PageAndSortUtils.getPage(page, size)));
+    }
+
     @PreAuthorize("hasAuthority(('USER'))")
     @RequestMapping(value = "user/follows/check", method = RequestMethod.GET)
     CommonResult<UserEntity> checkFollow(@RequestParam(value = "followUserId") Long followUserId,
@@ -90,7 +90,7 @@ public class UserSelfPermissionEvaluator implements PermissionEvaluator {
         RepositoryEnums repository = RepositoryEnums.get(source1[1].toUpperCase());
         switch (repository) {
             case ARTICLE:
-                ArticleEntity article = articleService.getArticle(primary);
+                ArticleEntity article = articleService.getArticleOwner(primary);
                 if (!ObjectUtils.isEmpty(article) && isSelfUser(auth, article.getUser())) {
                     return true;
                 }
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.server.support;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据库连接池统计信息, 由连接池在获取, 归还连接及获取超时时回调
+ *
+ * @author qianmoQ
+ */
+public class DataSourceMetricsSupport implements MetricsTrackerFactory {
+
+    private final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolMetrics metrics = new PoolMetrics(poolStats);
+        pools.put(poolName, metrics);
+        return metrics;
+    }
+
+    /**
+     * 获取所有连接池的统计信息
+     *
+     * @return 连接池名称与统计信息
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        pools.forEach((poolName, pool) -> metrics.put(poolName, pool.toMap()));
+        return metrics;
+    }
+
+    private static class PoolMetrics implements IMetricsTracker {
+
+        private final PoolStats poolStats;
+
+        private final LongAdder acquiredCount = new LongAdder();
+        private final LongAdder acquiredNanos = new LongAdder();
+        private final AtomicLong maxAcquiredNanos = new AtomicLong();
+        private final LongAdder usageMillis = new LongAdder();
+        private final AtomicLong maxUsageMillis = new AtomicLong();
+        private final LongAdder timeoutCount = new LongAdder();
+
+        PoolMetrics(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquiredCount.increment();
+            acquiredNanos.add(elapsedAcquiredNanos);
+            maxAcquiredNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+            maxUsageMillis.accumulateAndGet(elapsedBorrowedMillis, Math::max);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeoutCount.increment();
+        }
+
+        Map<String, Object> toMap() {
+            long acquired = acquiredCount.sum();
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("totalConnections", poolStats.getTotalConnections());
+            metrics.put("activeConnections", poolStats.getActiveConnections());
+            metrics.put("idleConnections", poolStats.getIdleConnections());
+            metrics.put("pendingThreads", poolStats.getPendingThreads());
+            metrics.put("acquiredCount", acquired);
+            metrics.put("averageWaitMillis", acquired == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(acquiredNanos.sum() / acquired));
+            metrics.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxAcquiredNanos.get()));
+            metrics.put("averageUsageMillis", acquired == 0 ? 0 : usageMillis.sum() / acquired);
+            metrics.put("maxUsageMillis", maxUsageMillis.get());
+            metrics.put("timeoutCount", timeoutCount.sum());
+            return metrics;
+        }
+
+    }
+
+}
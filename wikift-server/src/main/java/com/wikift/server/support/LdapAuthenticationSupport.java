@@ -0,0 +1,342 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.server.support;
+
+import com.wikift.support.ldap.model.LdapUserModel;
+import com.wikift.support.ldap.service.LdapUserSync;
+import com.wikift.support.service.user.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.OrFilter;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LdapAuthenticationSupport <br/>
+ * 描述 : 使用LDAP绑定认证用户, 认证成功但用户尚未同步时立即创建用户. 只认证LDAP用户及系统中不存在的用户,
+ * 本地用户即使与LDAP中的条目同名也不会通过LDAP认证.
+ * 成功的认证在短时间内以加盐摘要缓存, LDAP连续失败或响应缓慢时熔断, 熔断期间交由本地用户认证 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class LdapAuthenticationSupport implements AuthenticationProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LdapAuthenticationSupport.class);
+
+    private static final int SALT_LENGTH = 16;
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private LdapTemplate ldapTemplate;
+
+    @Autowired
+    private LdapUserSync ldapUserSync;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, CachedBind> cache = new ConcurrentHashMap<>();
+
+    private boolean enable;
+    private long ttl;
+    private int maxUsers;
+    private int failureThreshold;
+    private long openMillis;
+    private long slowMillis;
+
+    // 熔断状态, openUntil 为0时关闭, 到期后只放行一个试探请求
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trial = new AtomicBoolean();
+    private volatile long openUntil;
+
+    private final LongAdder attemptCount = new LongAdder();
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder badCredentialsCount = new LongAdder();
+    private final LongAdder notFoundCount = new LongAdder();
+    private final LongAdder localUserCount = new LongAdder();
+    private final LongAdder provisionedCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder slowCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder openedCount = new LongAdder();
+    private final LongAdder bindMillis = new LongAdder();
+    private final LongAdder bindCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        enable = Boolean.valueOf(environment.getProperty("wikift.ldap.enable"))
+                && Boolean.valueOf(environment.getProperty("wikift.ldap.auth.enable", "true"));
+        ttl = environment.getProperty("wikift.ldap.auth.cache.ttl", Long.class, 60000L);
+        maxUsers = environment.getProperty("wikift.ldap.auth.cache.max-users", Integer.class, 10000);
+        failureThreshold = Math.max(1, environment.getProperty("wikift.ldap.auth.breaker.failure-threshold", Integer.class, 5));
+        openMillis = environment.getProperty("wikift.ldap.auth.breaker.open-millis", Long.class, 30000L);
+        slowMillis = environment.getProperty("wikift.ldap.auth.breaker.slow-millis", Long.class, 2000L);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        String password = authentication.getCredentials() == null ? null : authentication.getCredentials().toString();
+        // 空密码在LDAP中为匿名绑定, 不能作为认证成功
+        if (!enable || StringUtils.isEmpty(username) || StringUtils.isEmpty(password)) {
+            return null;
+        }
+        attemptCount.increment();
+        // LDAP条目的 cn, sn 等属性可能与本地用户名相同, 本地用户只能使用系统密码认证
+        if (Boolean.FALSE.equals(userService.isLdapUser(username))) {
+            localUserCount.increment();
+            return null;
+        }
+        String key = username.toLowerCase();
+        CachedBind cached = cache.get(key);
+        if (cached != null && cached.expireTime > System.currentTimeMillis() && cached.matches(password)) {
+            cacheHitCount.increment();
+            return success(authentication, loadUser(username, null));
+        }
+        if (!allowRequest()) {
+            // 熔断期间不访问LDAP, 交由其他认证方式处理
+            rejectedCount.increment();
+            return null;
+        }
+        LdapQuery query = LdapQueryBuilder.query()
+                .filter(ldapTemplate.getObjectDirectoryMapper().filterFor(LdapUserModel.class, filterFor(username)));
+        long start = System.currentTimeMillis();
+        try {
+            ldapTemplate.authenticate(query, password);
+        } catch (EmptyResultDataAccessException e) {
+            onSuccess(start);
+            notFoundCount.increment();
+            return null;
+        } catch (IncorrectResultSizeDataAccessException e) {
+            onSuccess(start);
+            notFoundCount.increment();
+            LOGGER.warn("ldap user {} matches more than one entry", username);
+            return null;
+        } catch (org.springframework.ldap.AuthenticationException e) {
+            onSuccess(start);
+            badCredentialsCount.increment();
+            cache.remove(key);
+            throw new BadCredentialsException(String.format("ldap bind failed for user %s", username));
+        } catch (RuntimeException e) {
+            onFailure(start);
+            LOGGER.warn("ldap authenticate user {} failed, {}", username, e.getMessage());
+            return null;
+        }
+        onSuccess(start);
+        UserDetails userDetails = loadUser(username, query);
+        cacheBind(key, password);
+        return success(authentication, userDetails);
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long binds = bindCount.sum();
+        metrics.put("enable", enable);
+        metrics.put("breakerOpen", openUntil != 0);
+        metrics.put("consecutiveFailures", consecutiveFailures.get());
+        metrics.put("cachedUsers", cache.size());
+        metrics.put("maxUsers", maxUsers);
+        metrics.put("attemptCount", attemptCount.sum());
+        metrics.put("successCount", successCount.sum());
+        metrics.put("cacheHitCount", cacheHitCount.sum());
+        metrics.put("badCredentialsCount", badCredentialsCount.sum());
+        metrics.put("notFoundCount", notFoundCount.sum());
+        metrics.put("localUserCount", localUserCount.sum());
+        metrics.put("provisionedCount", provisionedCount.sum());
+        metrics.put("failureCount", failureCount.sum());
+        metrics.put("slowCount", slowCount.sum());
+        metrics.put("rejectedCount", rejectedCount.sum());
+        metrics.put("openedCount", openedCount.sum());
+        metrics.put("averageBindMillis", binds > 0 ? bindMillis.sum() / binds : 0);
+        return metrics;
+    }
+
+    /**
+     * 加载系统用户, 用户尚未同步时从LDAP中查询并创建
+     */
+    private UserDetails loadUser(String username, LdapQuery query) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            if (query == null) {
+                throw new BadCredentialsException(String.format("this user %s not found", username));
+            }
+        }
+        try {
+            ldapUserSync.syncEntry(ldapTemplate.findOne(query, LdapUserModel.class));
+            provisionedCount.increment();
+        } catch (RuntimeException e) {
+            throw new InternalAuthenticationServiceException(String.format("create ldap user %s failed", username), e);
+        }
+        // 查询期间可能已注册同名的本地用户, 此时不会创建LDAP用户
+        if (!Boolean.TRUE.equals(userService.isLdapUser(username))) {
+            throw new BadCredentialsException(String.format("this user %s can not be created", username));
+        }
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            // 用户名为空或超出长度限制时无法创建用户
+            throw new BadCredentialsException(String.format("this user %s can not be created", username));
+        }
+    }
+
+    private Authentication success(Authentication authentication, UserDetails userDetails) {
+        successCount.increment();
+        UsernamePasswordAuthenticationToken result = new UsernamePasswordAuthenticationToken(userDetails,
+                authentication.getCredentials(), userDetails.getAuthorities());
+        result.setDetails(authentication.getDetails());
+        return result;
+    }
+
+    private OrFilter filterFor(String username) {
+        OrFilter filter = new OrFilter();
+        for (String attribute : ldapUserSync.getUsernameAttributes()) {
+            filter.or(new EqualsFilter(attribute, username));
+        }
+        return filter;
+    }
+
+    private void cacheBind(String key, String password) {
+        if (ttl <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cache.size() >= maxUsers) {
+            cache.values().removeIf(value -> value.expireTime <= now);
+        }
+        if (cache.size() < maxUsers) {
+            byte[] salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+            cache.put(key, new CachedBind(salt, digest(salt, password), now + ttl));
+        }
+    }
+
+    private boolean allowRequest() {
+        long until = openUntil;
+        if (until == 0) {
+            return true;
+        }
+        return System.currentTimeMillis() >= until && trial.compareAndSet(false, true);
+    }
+
+    private void onSuccess(long start) {
+        long millis = System.currentTimeMillis() - start;
+        bindMillis.add(millis);
+        bindCount.increment();
+        if (millis > slowMillis) {
+            // 响应缓慢与失败同样计入熔断
+            slowCount.increment();
+            recordFailure();
+            return;
+        }
+        consecutiveFailures.set(0);
+        openUntil = 0;
+        trial.set(false);
+    }
+
+    private void onFailure(long start) {
+        bindMillis.add(System.currentTimeMillis() - start);
+        bindCount.increment();
+        failureCount.increment();
+        recordFailure();
+    }
+
+    private void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || trial.get()) {
+            openUntil = System.currentTimeMillis() + openMillis;
+            trial.set(false);
+            openedCount.increment();
+            LOGGER.warn("ldap authentication circuit opened for {} ms after {} failures", openMillis, consecutiveFailures.get());
+        }
+    }
+
+    private static byte[] digest(byte[] salt, String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(salt);
+            md.update(password.getBytes(StandardCharsets.UTF_8));
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedBind {
+
+        private final byte[] salt;
+        private final byte[] hash;
+        private final long expireTime;
+
+        CachedBind(byte[] salt, byte[] hash, long expireTime) {
+            this.salt = salt;
+            this.hash = hash;
+            this.expireTime = expireTime;
+        }
+
+        boolean matches(String password) {
+            return MessageDigest.isEqual(hash, digest(salt, password));
+        }
+
+    }
+
+}
@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.server.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ObjectUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写分离数据源, 只读事务路由到副本, 其余操作路由到主库
+ * <p>
+ * 当前用户在写入后的一段时间内(读己之写窗口)的只读事务仍然路由到主库, 避免副本复制延迟导致读取不到刚写入的数据
+ *
+ * @author qianmoQ
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    // 最近写入用户记录超过该数量时清理过期记录
+    private static final int RECENT_WRITERS_PURGE_SIZE = 10000;
+
+    private final DataSource primary;
+
+    private final Map<String, DataSource> replicas;
+
+    private final List<String> replicaKeys;
+
+    private final boolean leastLoaded;
+
+    private final long readYourWriteWindow;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> routed = new ConcurrentHashMap<>();
+
+    /**
+     * @param primary             主库数据源
+     * @param replicas            副本名称与数据源
+     * @param selection           副本选择策略, round-robin 轮询, least-loaded 选择活动连接最少的副本
+     * @param readYourWriteWindow 读己之写窗口, 单位毫秒
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String selection, long readYourWriteWindow) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.leastLoaded = "least-loaded".equalsIgnoreCase(selection);
+        this.readYourWriteWindow = readYourWriteWindow;
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = lookup();
+        routed.computeIfAbsent(key, k -> new LongAdder()).increment();
+        return key;
+    }
+
+    private String lookup() {
+        if (replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+        String principal = getPrincipal();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // 仅记录实际事务中的写入, 非事务的连接获取不一定产生写操作
+            if (!ObjectUtils.isEmpty(principal) && TransactionSynchronizationManager.isActualTransactionActive()) {
+                markWrite(principal);
+            }
+            return PRIMARY;
+        }
+        if (!ObjectUtils.isEmpty(principal)) {
+            Long writeTime = recentWriters.get(principal);
+            if (!ObjectUtils.isEmpty(writeTime) && System.currentTimeMillis() - writeTime < readYourWriteWindow) {
+                return PRIMARY;
+            }
+        }
+        return leastLoaded ? selectLeastLoaded() : selectRoundRobin();
+    }
+
+    private String selectRoundRobin() {
+        return replicaKeys.get(Math.floorMod(counter.getAndIncrement(), replicaKeys.size()));
+    }
+
+    private String selectLeastLoaded() {
+        // 从轮询位置开始比较, 活动连接数相同时不会总是选中第一个副本
+        int start = Math.floorMod(counter.getAndIncrement(), replicaKeys.size());
+        String selected = null;
+        int minActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get((start + i) % replicaKeys.size());
+            int active = getActiveConnections(replicas.get(key));
+            if (active < minActive) {
+                minActive = active;
+                selected = key;
+            }
+        }
+        return selected;
+    }
+
+    private int getActiveConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            if (!ObjectUtils.isEmpty(pool)) {
+                return pool.getActiveConnections();
+            }
+        }
+        return 0;
+    }
+
+    private void markWrite(String principal) {
+        long now = System.currentTimeMillis();
+        recentWriters.put(principal, now);
+        if (recentWriters.size() > RECENT_WRITERS_PURGE_SIZE) {
+            recentWriters.entrySet().removeIf(entry -> now - entry.getValue() >= readYourWriteWindow);
+        }
+    }
+
+    private String getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (ObjectUtils.isEmpty(authentication) || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * 获取各数据源的路由次数
+     *
+     * @return 数据源名称与路由次数
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("selection", leastLoaded ? "least-loaded" : "round-robin");
+        metrics.put("readYourWriteWindow", readYourWriteWindow);
+        metrics.put("recentWriters", recentWriters.size());
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put(PRIMARY, routed.containsKey(PRIMARY) ? routed.get(PRIMARY).sum() : 0L);
+        replicaKeys.forEach(key -> counts.put(key, routed.containsKey(key) ? routed.get(key).sum() : 0L));
+        metrics.put("routed", counts);
+        return metrics;
+    }
+
+    /**
+     * 关闭主库及所有副本的连接池
+     */
+    public void close() {
+        close(primary);
+        replicas.values().forEach(this::close);
+    }
+
+    private void close(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            ((HikariDataSource) dataSource).close();
+        } else if (dataSource instanceof EmbeddedDatabase) {
+            ((EmbeddedDatabase) dataSource).shutdown();
+        }
+    }
+
+}
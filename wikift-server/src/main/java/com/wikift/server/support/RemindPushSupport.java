@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.server.support;
+
+import com.wikift.job.async.AsyncExecutorConfig;
+import com.wikift.model.remind.RemindInboxEntity;
+import com.wikift.support.service.remind.RemindCreatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 提醒推送 <br/>
+ * 描述 : 维护在线用户的 SSE 连接, 提醒写入收件箱后推送给在线的接收用户, 每个连接使用有界缓冲区,
+ * 写入连接在推送线程池中执行, 不阻塞提醒发送 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class RemindPushSupport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemindPushSupport.class);
+
+    // 心跳消息, 只在缓冲区为空时加入
+    private static final Object HEARTBEAT = new Object();
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    @Qualifier(value = AsyncExecutorConfig.PUSH_EXECUTOR)
+    private Executor pushExecutor;
+
+    private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    private long timeout;
+    private int bufferSize;
+    private int maxConnectionsPerUser;
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final LongAdder pushedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder heartbeatCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        timeout = environment.getProperty("wikift.remind.push.timeout", Long.class, 1800000L);
+        bufferSize = Math.max(1, environment.getProperty("wikift.remind.push.buffer-size", Integer.class, 100));
+        maxConnectionsPerUser = Math.max(1, environment.getProperty("wikift.remind.push.max-connections-per-user", Integer.class, 5));
+    }
+
+    /**
+     * 为用户创建推送连接
+     *
+     * @param userId 用户id
+     * @return SSE 连接
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Connection connection = new Connection(userId, emitter, bufferSize);
+        List<Connection> userConnections = connections.compute(userId, (key, value) -> {
+            List<Connection> list = value == null ? new CopyOnWriteArrayList<>() : value;
+            list.add(connection);
+            return list;
+        });
+        connectionCount.incrementAndGet();
+        // 超过单个用户的连接上限时关闭最早的连接
+        while (userConnections.size() > maxConnectionsPerUser) {
+            close(userConnections.get(0));
+        }
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        return emitter;
+    }
+
+    @EventListener
+    public void onRemindCreated(RemindCreatedEvent event) {
+        for (Long userId : event.getUserIds()) {
+            List<Connection> userConnections = connections.get(userId);
+            if (userConnections != null) {
+                userConnections.forEach(connection -> offer(connection, event.getRemind()));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wikift.remind.push.heartbeat-interval:15000}")
+    public void heartbeat() {
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> {
+            if (connection.buffer.isEmpty()) {
+                offer(connection, HEARTBEAT);
+            } else {
+                // 推送线程池已满时未推送的消息
+                drain(connection);
+            }
+        }));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("connections", connectionCount.get());
+        metrics.put("users", connections.size());
+        metrics.put("bufferSize", bufferSize);
+        metrics.put("pushedCount", pushedCount.sum());
+        metrics.put("droppedCount", droppedCount.sum());
+        metrics.put("failedCount", failedCount.sum());
+        metrics.put("heartbeatCount", heartbeatCount.sum());
+        metrics.put("rejectedCount", rejectedCount.sum());
+        return metrics;
+    }
+
+    private void offer(Connection connection, Object message) {
+        synchronized (connection.buffer) {
+            if (!connection.buffer.offer(message)) {
+                // 缓冲区已满时丢弃最早的提醒, 客户端可通过收件箱查询完整列表
+                connection.buffer.poll();
+                connection.buffer.offer(message);
+                droppedCount.increment();
+            }
+        }
+        drain(connection);
+    }
+
+    private void drain(Connection connection) {
+        if (connection.closed || !connection.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pushExecutor.execute(() -> {
+                try {
+                    Object message;
+                    while (!connection.closed && (message = poll(connection)) != null) {
+                        send(connection, message);
+                    }
+                } finally {
+                    connection.draining.set(false);
+                }
+                if (!connection.closed && !connection.buffer.isEmpty()) {
+                    drain(connection);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 推送线程池只使用拒绝或由调用线程执行的策略, 任务不会被静默丢弃, 拒绝时消息保留在缓冲区中,
+            // 由下一条提醒或心跳重新提交
+            rejectedCount.increment();
+            connection.draining.set(false);
+        }
+    }
+
+    private Object poll(Connection connection) {
+        synchronized (connection.buffer) {
+            return connection.buffer.poll();
+        }
+    }
+
+    private void send(Connection connection, Object message) {
+        try {
+            if (message == HEARTBEAT) {
+                connection.emitter.send(SseEmitter.event().comment("heartbeat"));
+                heartbeatCount.increment();
+            } else {
+                RemindInboxEntity remind = (RemindInboxEntity) message;
+                connection.emitter.send(SseEmitter.event().name("remind").id(String.valueOf(remind.getRemindId()))
+                        .data(remind, MediaType.APPLICATION_JSON));
+                pushedCount.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            failedCount.increment();
+            LOGGER.debug("push to user {} failed, connection closed", connection.userId);
+            close(connection);
+        }
+    }
+
+    private void close(Connection connection) {
+        remove(connection);
+        try {
+            connection.emitter.complete();
+        } catch (IllegalStateException e) {
+            LOGGER.debug("connection of user {} already completed", connection.userId);
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (key, value) -> {
+            if (value.remove(connection)) {
+                connection.closed = true;
+                connectionCount.decrementAndGet();
+            }
+            return value.isEmpty() ? null : value;
+        });
+    }
+
+    private static class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Object> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Connection(Long userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+    }
+
+}
@@ -17,9 +17,11 @@
  */
 package com.wikift.server.support;
 
-import com.wikift.model.user.UserEntity;
+import com.wikift.model.user.UserAuthorityEntity;
+import com.wikift.support.service.user.UserChangedEvent;
 import com.wikift.support.service.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
@@ -27,28 +29,134 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.util.ObjectUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class UserDetailsSupport implements UserDetailsService {
 
+    @Resource
+    private Environment environment;
+
     @Autowired
     private UserService userService;
 
+    // 缓存认证信息而不是 UserDetails, 认证成功后 Spring Security 会清除 UserDetails 中的密码
+    private final Map<String, CachedAuthority> cache = new ConcurrentHashMap<>();
+
+    private long ttl;
+    private int maxUsers;
+
+    // 每次清除缓存后加1, 查询期间发生清除时不缓存查询结果, 避免缓存修改前的数据
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        ttl = environment.getProperty("wikift.user.details.cache.ttl", Long.class, 60000L);
+        maxUsers = environment.getProperty("wikift.user.details.cache.max-users", Integer.class, 10000);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        UserEntity userEntity = userService.getInfoByUsername(s);
-        if (ObjectUtils.isEmpty(userEntity)) {
+        UserAuthorityEntity authority = getAuthority(s);
+        if (ObjectUtils.isEmpty(authority)) {
             throw new UsernameNotFoundException(String.format("this user %s not found", s));
         }
         // 封装权限信息
         List<GrantedAuthority> authorities = new ArrayList<>();
-        userEntity.getUserRoles().forEach(v -> authorities.add(new SimpleGrantedAuthority(v.getRoleName())));
-        UserDetails userDetails = new User(userEntity.getUsername(), userEntity.getPassword(), authorities);
+        authority.getRoles().forEach(v -> authorities.add(new SimpleGrantedAuthority(v)));
+        // LDAP用户在系统中没有密码, 使用空字符串作为密码, 加密后的密码不会为空, 本地认证始终失败
+        String password = authority.getPassword() == null ? "" : authority.getPassword();
+        UserDetails userDetails = new User(authority.getUsername(), password, authorities);
         return userDetails;
     }
 
+    /**
+     * 用户信息修改并提交后清除缓存, 只有用户id时清除该用户的所有缓存
+     *
+     * @param event 用户信息修改事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        version.incrementAndGet();
+        if (!ObjectUtils.isEmpty(event.getUsername())) {
+            cache.remove(event.getUsername().toLowerCase());
+        }
+        if (!ObjectUtils.isEmpty(event.getUserId())) {
+            cache.values().removeIf(value -> event.getUserId().equals(value.authority.getId()));
+        }
+        evictCount.increment();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cachedUsers", cache.size());
+        metrics.put("maxUsers", maxUsers);
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        metrics.put("evictCount", evictCount.sum());
+        return metrics;
+    }
+
+    private UserAuthorityEntity getAuthority(String username) {
+        if (ttl <= 0 || ObjectUtils.isEmpty(username)) {
+            return userService.getAuthorityProjectionByUsername(username);
+        }
+        // 数据库用户名不区分大小写
+        String key = username.toLowerCase();
+        long now = System.currentTimeMillis();
+        CachedAuthority cached = cache.get(key);
+        if (cached != null && cached.expireTime > now) {
+            hitCount.increment();
+            return cached.authority;
+        }
+        missCount.increment();
+        long current = version.get();
+        UserAuthorityEntity authority = userService.getAuthorityProjectionByUsername(username);
+        // 不缓存不存在的用户, 避免新建用户在缓存过期前无法登录
+        if (authority == null) {
+            cache.remove(key);
+            return null;
+        }
+        if (cache.size() >= maxUsers) {
+            cache.values().removeIf(value -> value.expireTime <= now);
+        }
+        if (cache.size() < maxUsers) {
+            CachedAuthority entry = new CachedAuthority(authority, now + ttl);
+            // 在该用户的映射锁内检查版本并写入, 查询期间发生清除时保持原缓存
+            cache.compute(key, (k, value) -> current == version.get() ? entry : value);
+            // 写入后再次检查, 按用户id清除时遍历缓存可能错过正在写入的数据, 写入期间发生清除时删除刚写入的缓存
+            if (current != version.get()) {
+                cache.remove(key, entry);
+            }
+        }
+        return authority;
+    }
+
+    private static class CachedAuthority {
+
+        private final UserAuthorityEntity authority;
+        private final long expireTime;
+
+        CachedAuthority(UserAuthorityEntity authority, long expireTime) {
+            this.authority = authority;
+            this.expireTime = expireTime;
+        }
+
+    }
+
 }
@@ -0,0 +1,95 @@
+# 文章统计信息, 替代列表查询中对浏览, 点赞, 评论明细的聚合关联
+DROP TABLE IF EXISTS article_stats;
+CREATE TABLE article_stats(
+  as_article_id BIGINT(20) NOT NULL COMMENT '文章id' ,
+  as_view_count BIGINT(20) NOT NULL DEFAULT '0' COMMENT '文章浏览量' ,
+  as_fabulou_count BIGINT(20) NOT NULL DEFAULT '0' COMMENT '文章点赞量' ,
+  as_comments_count BIGINT(20) NOT NULL DEFAULT '0' COMMENT '文章评论量' ,
+  as_update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP ,
+  PRIMARY KEY(as_article_id) ,
+  KEY IDX_as_view_count(as_view_count , as_article_id) ,
+  KEY IDX_as_fabulou_count(as_fabulou_count , as_article_id) ,
+  CONSTRAINT FK_as_article_id FOREIGN KEY(as_article_id) REFERENCES article(a_id) ON DELETE CASCADE
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
+ALTER TABLE article ADD INDEX IDX_a_create_time(a_create_time);
+
+INSERT INTO article_stats(as_article_id, as_view_count, as_fabulou_count, as_comments_count)
+SELECT a.a_id,
+  IFNULL((SELECT SUM(uavr.uavr_view_count) FROM users_article_view_relation AS uavr WHERE uavr.uavr_article_id = a.a_id), 0),
+  (SELECT COUNT(DISTINCT uafr.uafr_user_id) FROM users_article_fabulous_relation AS uafr WHERE uafr.uafr_article_id = a.a_id),
+  (SELECT COUNT(car.car_comments_id) FROM comments_article_relation AS car WHERE car.car_article_id = a.a_id)
+FROM article AS a;
+
+# 文章摘要, 文章列表不再查询文章内容, 文章再次保存时会重新生成去除Markdown标记的摘要
+ALTER TABLE article ADD a_excerpt VARCHAR(255) DEFAULT NULL COMMENT '文章摘要, 用于文章列表' AFTER a_content;
+
+# a_create_time 定义了 ON UPDATE CURRENT_TIMESTAMP, 更新文章时需显式保持原创建时间
+UPDATE article SET a_create_time = a_create_time, a_excerpt = LEFT(TRIM(REPLACE(REPLACE(REPLACE(REPLACE(a_content, '#', ''), '*', ''), '\r', ''), '\n', ' ')), 120);
+
+# 文章修改历史按关键帧及差异存储, 已有数据保持为关键帧, 可通过 article/history/compact 原地转换为差异
+ALTER TABLE article_history ADD ah_type TINYINT(1) NOT NULL DEFAULT '0' COMMENT '存储类型, 0 关键帧, 1 差异' AFTER ah_content ,
+  ADD ah_base_id BIGINT(20) DEFAULT NULL COMMENT '差异版本所属关键帧id' AFTER ah_type ,
+  ADD ah_chain INT(11) NOT NULL DEFAULT '0' COMMENT '与所属关键帧间隔的版本数' AFTER ah_base_id ,
+  ADD ah_size INT(11) DEFAULT NULL COMMENT '版本完整内容长度, 为空表示未转换' AFTER ah_chain ,
+  ADD INDEX IDX_ah_article_id(ah_article_id , ah_id);
+
+# 文章层级路径, 用于懒加载导航树及移动子树, 服务启动时会为已有文章生成路径
+# 未创建 parent 字段的数据库需先执行:
+# ALTER TABLE article ADD parent BIGINT(20) DEFAULT '-1' COMMENT '父级文章id, -1为空间根节点' AFTER a_excerpt;
+ALTER TABLE article ADD a_path VARCHAR(760) CHARACTER SET ascii DEFAULT NULL COMMENT '从根节点到当前文章的文章id路径, 如 /1/5/9/' AFTER parent ,
+  ADD a_depth INT(11) NOT NULL DEFAULT '0' COMMENT '文章层级, 根节点为0' AFTER a_path ,
+  ADD INDEX IDX_parent(parent) ,
+  ADD INDEX IDX_a_path(a_path);
+
+# 文章提醒分批发送进度, 已有提醒均为发送完成
+ALTER TABLE remind ADD r_fanout_status TINYINT(1) NOT NULL DEFAULT '0' COMMENT '发送状态, 0 发送完成, 1 发送中' AFTER r_read_time ,
+  ADD r_fanout_cursor BIGINT(20) NOT NULL DEFAULT '0' COMMENT '已发送的最后一个接收用户id' AFTER r_fanout_status ,
+  ADD INDEX IDX_r_fanout_status(r_fanout_status);
+
+ALTER TABLE users_follow_relation ADD INDEX IDX_ufr_cover_follw(ufr_user_id_cover , ufr_user_id_follw);
+
+# 用户提醒收件箱, 每个接收用户一条记录, 阅读状态属于接收用户
+DROP TABLE IF EXISTS remind_inbox;
+CREATE TABLE remind_inbox(
+  ri_user_id BIGINT(20) NOT NULL COMMENT '接收用户id' ,
+  ri_create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '提醒时间' ,
+  ri_remind_id BIGINT(20) NOT NULL COMMENT '提醒信息id' ,
+  ri_read TINYINT(1) NOT NULL DEFAULT '0' COMMENT '是否阅读' ,
+  ri_read_time DATETIME DEFAULT NULL COMMENT '阅读时间' ,
+  PRIMARY KEY(ri_user_id , ri_create_time , ri_remind_id) ,
+  KEY IDX_ri_user_read(ri_user_id , ri_read , ri_create_time , ri_remind_id) ,
+  KEY FK_ri_remind_id(ri_remind_id , ri_user_id) ,
+  CONSTRAINT FK_ri_remind_id FOREIGN KEY(ri_remind_id) REFERENCES remind(r_id) ON DELETE CASCADE ,
+  CONSTRAINT FK_ri_user_id FOREIGN KEY(ri_user_id) REFERENCES users(u_id) ON DELETE CASCADE
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
+# 已有提醒的阅读状态保存在提醒信息上, 迁移时复制到每个接收用户
+INSERT IGNORE INTO remind_inbox(ri_user_id, ri_create_time, ri_remind_id, ri_read, ri_read_time)
+SELECT rur.rur_user_id, r.r_create_time, r.r_id, IFNULL(r.r_read, 0), r.r_read_time
+FROM remind_users_relation AS rur
+INNER JOIN remind AS r ON r.r_id = rur.rur_remind_id;
+
+# 用户未读提醒数量, 随提醒发送及阅读增减, 定期与收件箱校正
+DROP TABLE IF EXISTS remind_unread;
+CREATE TABLE remind_unread(
+  ru_user_id BIGINT(20) NOT NULL COMMENT '接收用户id' ,
+  ru_count INT(11) NOT NULL DEFAULT '0' COMMENT '未读提醒数量' ,
+  PRIMARY KEY(ru_user_id) ,
+  CONSTRAINT FK_ru_user_id FOREIGN KEY(ru_user_id) REFERENCES users(u_id) ON DELETE CASCADE
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
+INSERT INTO remind_unread(ru_user_id, ru_count)
+SELECT ri_user_id, COUNT(1) FROM remind_inbox WHERE ri_read = FALSE GROUP BY ri_user_id;
+
+# LDAP同步按用户名批量查询已存在的用户
+ALTER TABLE users ADD INDEX IDX_u_username(u_username);
+
+# LDAP增量同步的修改标记
+DROP TABLE IF EXISTS ldap_sync_state;
+CREATE TABLE ldap_sync_state(
+  lss_key VARCHAR(50) NOT NULL COMMENT '同步类型' ,
+  lss_value VARCHAR(255) DEFAULT NULL COMMENT '上次同步的最大修改标记' ,
+  lss_update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间' ,
+  PRIMARY KEY(lss_key)
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
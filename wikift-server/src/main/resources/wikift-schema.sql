@@ -13,11 +13,18 @@ CREATE TABLE article(
   a_id BIGINT(20) NOT NULL AUTO_INCREMENT ,
   a_title VARCHAR(255) NOT NULL ,
   a_content TEXT NOT NULL ,
+  a_excerpt VARCHAR(255) DEFAULT NULL COMMENT '文章摘要, 用于文章列表' ,
+  parent BIGINT(20) DEFAULT '-1' COMMENT '父级文章id, -1为空间根节点' ,
+  a_path VARCHAR(760) CHARACTER SET ascii DEFAULT NULL COMMENT '从根节点到当前文章的文章id路径, 如 /1/5/9/' ,
+  a_depth INT(11) NOT NULL DEFAULT '0' COMMENT '文章层级, 根节点为0' ,
   a_create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP ,
   fabulou_count BIGINT(255) DEFAULT NULL ,
   view_count BINARY(50) DEFAULT NULL ,
   comments_count INT(11) DEFAULT NULL ,
-  PRIMARY KEY(a_id)
+  PRIMARY KEY(a_id) ,
+  KEY IDX_a_create_time(a_create_time) ,
+  KEY IDX_parent(parent) ,
+  KEY IDX_a_path(a_path)
 ) ENGINE = INNODB AUTO_INCREMENT = 1 DEFAULT CHARSET = utf8;
 
 DROP TABLE IF EXISTS users;
@@ -31,9 +38,18 @@ CREATE TABLE users(
   u_email VARCHAR(50) ,
   u_active BOOLEAN DEFAULT TRUE COMMENT '该账号是否激活' ,
   u_lock BOOLEAN DEFAULT FALSE COMMENT '该账号是否锁定' ,
-  PRIMARY KEY(u_id)
+  PRIMARY KEY(u_id) ,
+  KEY IDX_u_username(u_username)
 ) ENGINE = INNODB AUTO_INCREMENT = 1 DEFAULT CHARSET = utf8;
 
+DROP TABLE IF EXISTS ldap_sync_state;
+CREATE TABLE ldap_sync_state(
+  lss_key VARCHAR(50) NOT NULL COMMENT '同步类型' ,
+  lss_value VARCHAR(255) DEFAULT NULL COMMENT '上次同步的最大修改标记' ,
+  lss_update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间' ,
+  PRIMARY KEY(lss_key)
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
 DROP TABLE IF EXISTS role;
 CREATE TABLE role(
   r_id BIGINT(20) NOT NULL AUTO_INCREMENT ,
@@ -85,7 +101,32 @@ CREATE TABLE remind(
   r_deleted TINYINT(1) DEFAULT '0' COMMENT '是否删除' ,
   r_read TINYINT(1) DEFAULT '0' COMMENT '是否阅读' ,
   r_read_time DATETIME DEFAULT NULL COMMENT '阅读时间' ,
-  PRIMARY KEY(r_id)
+  r_fanout_status TINYINT(1) NOT NULL DEFAULT '0' COMMENT '发送状态, 0 发送完成, 1 发送中' ,
+  r_fanout_cursor BIGINT(20) NOT NULL DEFAULT '0' COMMENT '已发送的最后一个接收用户id' ,
+  PRIMARY KEY(r_id) ,
+  KEY IDX_r_fanout_status(r_fanout_status)
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
+DROP TABLE IF EXISTS remind_inbox;
+CREATE TABLE remind_inbox(
+  ri_user_id BIGINT(20) NOT NULL COMMENT '接收用户id' ,
+  ri_create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '提醒时间' ,
+  ri_remind_id BIGINT(20) NOT NULL COMMENT '提醒信息id' ,
+  ri_read TINYINT(1) NOT NULL DEFAULT '0' COMMENT '是否阅读' ,
+  ri_read_time DATETIME DEFAULT NULL COMMENT '阅读时间' ,
+  PRIMARY KEY(ri_user_id , ri_create_time , ri_remind_id) ,
+  KEY IDX_ri_user_read(ri_user_id , ri_read , ri_create_time , ri_remind_id) ,
+  KEY FK_ri_remind_id(ri_remind_id , ri_user_id) ,
+  CONSTRAINT FK_ri_remind_id FOREIGN KEY(ri_remind_id) REFERENCES remind(r_id) ON DELETE CASCADE ,
+  CONSTRAINT FK_ri_user_id FOREIGN KEY(ri_user_id) REFERENCES users(u_id) ON DELETE CASCADE
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
+DROP TABLE IF EXISTS remind_unread;
+CREATE TABLE remind_unread(
+  ru_user_id BIGINT(20) NOT NULL COMMENT '接收用户id' ,
+  ru_count INT(11) NOT NULL DEFAULT '0' COMMENT '未读提醒数量' ,
+  PRIMARY KEY(ru_user_id) ,
+  CONSTRAINT FK_ru_user_id FOREIGN KEY(ru_user_id) REFERENCES users(u_id) ON DELETE CASCADE
 ) ENGINE = INNODB DEFAULT CHARSET = utf8;
 
 DROP TABLE IF EXISTS remind_type;
@@ -260,7 +301,8 @@ DROP TABLE IF EXISTS users_follow_relation;
 CREATE TABLE users_follow_relation(
   ufr_user_id_follw BIGINT(20) NOT NULL COMMENT '关注者用户id' ,
   ufr_user_id_cover BIGINT(20) NOT NULL COMMENT '被关注用户id' ,
-  ufr_create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+  ufr_create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ,
+  KEY IDX_ufr_cover_follw(ufr_user_id_cover , ufr_user_id_follw)
 ) ENGINE = INNODB DEFAULT CHARSET = utf8;
 
 # wikift-1.2.0
@@ -290,4 +332,19 @@ CREATE TABLE users_type_relation(
 
 INSERT INTO users_type_relation(utr_users_id , utr_users_type_id) SELECT u.u_id , 1 FROM users AS u;
 
+# wikift-1.6.0
+
+DROP TABLE IF EXISTS article_stats;
+CREATE TABLE article_stats(
+  as_article_id BIGINT(20) NOT NULL COMMENT '文章id' ,
+  as_view_count BIGINT(20) NOT NULL DEFAULT '0' COMMENT '文章浏览量' ,
+  as_fabulou_count BIGINT(20) NOT NULL DEFAULT '0' COMMENT '文章点赞量' ,
+  as_comments_count BIGINT(20) NOT NULL DEFAULT '0' COMMENT '文章评论量' ,
+  as_update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP ,
+  PRIMARY KEY(as_article_id) ,
+  KEY IDX_as_view_count(as_view_count , as_article_id) ,
+  KEY IDX_as_fabulou_count(as_fabulou_count , as_article_id) ,
+  CONSTRAINT FK_as_article_id FOREIGN KEY(as_article_id) REFERENCES article(a_id) ON DELETE CASCADE
+) ENGINE = INNODB DEFAULT CHARSET = utf8;
+
 SET FOREIGN_KEY_CHECKS = 1;
\ No newline at end of file
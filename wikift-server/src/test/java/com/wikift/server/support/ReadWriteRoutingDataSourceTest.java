@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.server.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 使用两个内置H2数据库分别作为主库及副本, 通过查询结果判断连接被路由到的数据库
+ *
+ * @author qianmoQ
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    @Before
+    public void setUp() {
+        primary = createDatabase("routing-primary");
+        replica = createDatabase("routing-replica");
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase createDatabase(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE node(n_name VARCHAR(50) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE note(n_value VARCHAR(50) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO node(n_name) VALUES(?)", name);
+        return database;
+    }
+
+    private static ReadWriteRoutingDataSource routing(DataSource primary, Map<String, DataSource> replicas) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replicas, "round-robin", 60000L);
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    /**
+     * 在事务中执行, 返回连接所在的数据库名称
+     */
+    private static String execute(ReadWriteRoutingDataSource routingDataSource, boolean readOnly, boolean write) {
+        // 与 DataSourceConfig 一致, 延迟获取物理连接保证路由时事务只读标志已设置
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return transactionTemplate.execute(status -> {
+            if (write) {
+                jdbcTemplate.update("INSERT INTO note(n_value) VALUES(?)", "write");
+            }
+            return jdbcTemplate.queryForObject("SELECT n_name FROM node", String.class);
+        });
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, "", Collections.emptyList()));
+    }
+
+    @Test
+    public void readOnlyTransactionUsesReplica() {
+        ReadWriteRoutingDataSource routingDataSource = routing(primary, Collections.singletonMap("replica", replica));
+        assertEquals("routing-replica", execute(routingDataSource, true, false));
+        login("reader");
+        assertEquals("routing-replica", execute(routingDataSource, true, false));
+    }
+
+    @Test
+    public void writeTransactionUsesPrimary() {
+        ReadWriteRoutingDataSource routingDataSource = routing(primary, Collections.singletonMap("replica", replica));
+        assertEquals("routing-primary", execute(routingDataSource, false, true));
+        assertEquals("routing-primary", execute(routingDataSource, false, false));
+        assertEquals(Integer.valueOf(1), new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM note", Integer.class));
+        assertEquals(Integer.valueOf(0), new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM note", Integer.class));
+    }
+
+    @Test
+    public void readYourWriteWindowUsesPrimary() {
+        ReadWriteRoutingDataSource routingDataSource = routing(primary, Collections.singletonMap("replica", replica));
+        login("writer");
+        assertEquals("routing-primary", execute(routingDataSource, false, true));
+        // 写入用户在窗口内的只读事务读取主库, 其他用户不受影响
+        assertEquals("routing-primary", execute(routingDataSource, true, false));
+        login("reader");
+        assertEquals("routing-replica", execute(routingDataSource, true, false));
+        SecurityContextHolder.clearContext();
+        assertEquals("routing-replica", execute(routingDataSource, true, false));
+    }
+
+    @Test
+    public void noReplicaUsesPrimary() {
+        ReadWriteRoutingDataSource routingDataSource = routing(primary, Collections.emptyMap());
+        assertEquals("routing-primary", execute(routingDataSource, true, false));
+        assertEquals("routing-primary", execute(routingDataSource, false, true));
+    }
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.ldap.model;
+
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.Date;
+
+/**
+ * LdapSyncReport <br/>
+ * 描述 : LDAP用户同步报告, 记录同步的数据量及各阶段耗时 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Data
+@ToString
+public class LdapSyncReport {
+
+    private Date startTime;
+
+    private long durationMillis;
+
+    // 查询LDAP耗时
+    private long searchMillis;
+
+    // 查询及写入数据库耗时
+    private long writeMillis;
+
+    // 是否为全量同步
+    private boolean full;
+
+    private int pages;
+
+    private int entries;
+
+    private int inserted;
+
+    private int updated;
+
+    private int unchanged;
+
+    // 用户名为空或超出长度限制被跳过的条目
+    private int skipped;
+
+    // 本次同步的最大修改标记
+    private String highWaterMark;
+
+    private boolean success;
+
+    private String error;
+
+}
@@ -25,6 +25,7 @@ import lombok.ToString;
 import org.springframework.ldap.odm.annotations.Attribute;
 import org.springframework.ldap.odm.annotations.Entry;
 import org.springframework.ldap.odm.annotations.Id;
+import org.springframework.ldap.odm.annotations.Transient;
 
 import javax.naming.Name;
 
@@ -73,4 +74,9 @@ public final class LdapUserModel {
 
     private String emailAddress;
 
+    // 条目修改标记(修改时间或USN), 为操作属性, 只在同步查询时读取
+    @Transient
+    @JsonIgnore
+    private String modifyTimestamp;
+
 }
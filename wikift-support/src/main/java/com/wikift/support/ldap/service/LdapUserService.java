@@ -19,6 +19,9 @@ package com.wikift.support.ldap.service;
 
 import com.wikift.support.ldap.model.LdapUserModel;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * LdapUserService <br/>
  * 描述 : LdapUserService <br/>
@@ -31,4 +34,14 @@ public interface LdapUserService {
 
     Iterable<LdapUserModel> findAll();
 
+    /**
+     * 分页查询修改标记不小于指定值的用户, 每页结果查询后立即交给 handler 处理, 不在内存中保存所有用户
+     *
+     * @param attribute 修改标记属性, 如 modifyTimestamp 或 uSNChanged
+     * @param since     修改标记下限(包含), 为空时查询所有用户
+     * @param pageSize  每页数量
+     * @param handler   每页数据处理
+     */
+    void findAllModifiedSince(String attribute, String since, Integer pageSize, Consumer<List<LdapUserModel>> handler);
+
 }
@@ -20,7 +20,19 @@ package com.wikift.support.ldap.service;
 import com.wikift.support.ldap.model.LdapUserModel;
 import com.wikift.support.ldap.repository.LdapUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.filter.GreaterThanOrEqualsFilter;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.naming.directory.SearchControls;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * LdapUserServiceImpl <br/>
@@ -36,9 +48,40 @@ public class LdapUserServiceImpl implements LdapUserService {
     @Autowired
     private LdapUserRepository ldapUserRepository;
 
+    @Autowired
+    private LdapTemplate ldapTemplate;
+
     @Override
     public Iterable<LdapUserModel> findAll() {
         return ldapUserRepository.findAll();
     }
 
+    @Override
+    public void findAllModifiedSince(String attribute, String since, Integer pageSize, Consumer<List<LdapUserModel>> handler) {
+        Filter modified = StringUtils.isEmpty(since) ? null : new GreaterThanOrEqualsFilter(attribute, since);
+        String filter = ldapTemplate.getObjectDirectoryMapper().filterFor(LdapUserModel.class, modified).encode();
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        controls.setReturningObjFlag(true);
+        // 修改标记为操作属性, 需要显式查询
+        controls.setReturningAttributes(new String[]{"*", attribute});
+        ContextMapper<LdapUserModel> mapper = ctx -> {
+            DirContextAdapter adapter = (DirContextAdapter) ctx;
+            LdapUserModel model = ldapTemplate.getObjectDirectoryMapper().mapFromLdapDataEntry(adapter, LdapUserModel.class);
+            model.setModifyTimestamp(adapter.getStringAttribute(attribute));
+            return model;
+        };
+        // 分页查询的所有请求必须使用同一个连接
+        SingleContextSource.doWithSingleContext(ldapTemplate.getContextSource(), operations -> {
+            PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+            do {
+                List<LdapUserModel> page = operations.search("", filter, controls, mapper, processor);
+                if (!page.isEmpty()) {
+                    handler.accept(page);
+                }
+            } while (processor.hasMore());
+            return null;
+        });
+    }
+
 }
@@ -0,0 +1,262 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.ldap.service;
+
+import com.wikift.common.utils.AttributeMapper;
+import com.wikift.model.enums.RoleEnums;
+import com.wikift.support.ldap.model.LdapSyncReport;
+import com.wikift.support.ldap.model.LdapUserModel;
+import com.wikift.support.repository.role.RoleRepository;
+import com.wikift.support.repository.user.UserRepositoryBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * LdapUserSync <br/>
+ * 描述 : 同步LDAP用户到wikift系统中, 按修改标记增量分页查询LDAP, 每页批量查询已存在的用户, 只写入新增用户及变化的邮箱 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "ldapUserSync")
+public class LdapUserSync {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LdapUserSync.class);
+
+    private static final String SYNC_KEY = "users";
+    // 与 users.u_username 长度一致
+    private static final int USERNAME_MAX_LENGTH = 25;
+
+    private static final String DEFAULT_EMAIL = "email";
+    private static final String[] DEFAULT_USERNAME = new String[]{"name", "cn", "sn"};
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private LdapUserService ldapUserService;
+
+    @Autowired
+    private UserRepositoryBatch userRepositoryBatch;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private AttributeMapper<LdapUserModel> emailMapper;
+
+    private AttributeMapper<LdapUserModel> usernameMapper;
+
+    private String[] usernameAttributes;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile LdapSyncReport report;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String emailField = environment.getProperty("wikift.ldap.reflect.attributes.email");
+        String usernameField = environment.getProperty("wikift.ldap.reflect.attributes.username");
+        // 如果没有配置映射使用默认
+        emailMapper = AttributeMapper.of(LdapUserModel.class,
+                ObjectUtils.isEmpty(emailField) || emailField.equalsIgnoreCase(DEFAULT_EMAIL) ? DEFAULT_EMAIL : emailField);
+        usernameAttributes = ObjectUtils.isEmpty(usernameField) || contain(usernameField) ? DEFAULT_USERNAME : new String[]{usernameField};
+        usernameMapper = AttributeMapper.of(LdapUserModel.class, usernameAttributes);
+    }
+
+    /**
+     * 同步LDAP用户, 上次同步未结束时直接返回
+     *
+     * @return 同步报告, 未执行同步时返回null
+     */
+    public LdapSyncReport sync() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        String attribute = environment.getProperty("wikift.ldap.sync.timestamp-attribute", "modifyTimestamp");
+        Integer pageSize = Math.max(1, Integer.valueOf(environment.getProperty("wikift.ldap.sync.page-size", "500")));
+        Boolean incremental = Boolean.valueOf(environment.getProperty("wikift.ldap.sync.incremental", "true"));
+        LdapSyncReport current = new LdapSyncReport();
+        current.setStartTime(new Date());
+        long start = System.currentTimeMillis();
+        try {
+            String since = incremental ? userRepositoryBatch.findLdapSyncMark(SYNC_KEY) : null;
+            current.setFull(StringUtils.isEmpty(since));
+            current.setHighWaterMark(since);
+            Long roleId = roleRepository.findByRoleName(RoleEnums.USER.name()).getId();
+            ldapUserService.findAllModifiedSince(attribute, since, pageSize, page -> {
+                long pageStart = System.currentTimeMillis();
+                syncPage(page, roleId, current);
+                current.setWriteMillis(current.getWriteMillis() + System.currentTimeMillis() - pageStart);
+            });
+            // 全部数据同步成功后才记录修改标记, 同步失败时下次从原标记重新同步
+            if (!ObjectUtils.isEmpty(current.getHighWaterMark()) && !current.getHighWaterMark().equals(since)) {
+                userRepositoryBatch.saveLdapSyncMark(SYNC_KEY, current.getHighWaterMark());
+            }
+            current.setSuccess(true);
+        } catch (RuntimeException e) {
+            current.setError(e.getMessage());
+            LOGGER.error("ldap user sync failed after {} entries", current.getEntries(), e);
+        } finally {
+            current.setDurationMillis(System.currentTimeMillis() - start);
+            current.setSearchMillis(current.getDurationMillis() - current.getWriteMillis());
+            report = current;
+            running.set(false);
+        }
+        LOGGER.info("ldap user sync {}", current);
+        return current;
+    }
+
+    /**
+     * 获取最近一次同步报告
+     *
+     * @return 同步报告, 未同步过时返回null
+     */
+    public LdapSyncReport getReport() {
+        return report;
+    }
+
+    /**
+     * 同步单个LDAP用户, 用于LDAP认证成功但用户尚未同步到系统时立即创建用户
+     *
+     * @param model LDAP用户
+     */
+    public void syncEntry(LdapUserModel model) {
+        Long roleId = roleRepository.findByRoleName(RoleEnums.USER.name()).getId();
+        syncPage(Collections.singletonList(model), roleId, new LdapSyncReport());
+    }
+
+    /**
+     * 获取映射为系统用户名的LDAP属性, 按优先级排列
+     *
+     * @return LDAP属性名称
+     */
+    public String[] getUsernameAttributes() {
+        return usernameAttributes.clone();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", running.get());
+        metrics.put("report", report);
+        return metrics;
+    }
+
+    // 定期同步与认证时的单个用户同步串行写入, 避免重复创建用户
+    private synchronized void syncPage(List<LdapUserModel> page, Long roleId, LdapSyncReport current) {
+        current.setPages(current.getPages() + 1);
+        current.setEntries(current.getEntries() + page.size());
+        // 同一页中用户名重复时以最后一条为准, 数据库用户名不区分大小写
+        Map<String, String[]> users = new LinkedHashMap<>();
+        for (LdapUserModel model : page) {
+            current.setHighWaterMark(maxMark(current.getHighWaterMark(), model.getModifyTimestamp()));
+            String username = usernameMapper.getString(model);
+            if (StringUtils.isEmpty(username) || username.length() > USERNAME_MAX_LENGTH) {
+                current.setSkipped(current.getSkipped() + 1);
+                continue;
+            }
+            users.put(username.toLowerCase(), new String[]{username, emailMapper.getString(model)});
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Object>> sources = new HashMap<>();
+        userRepositoryBatch.findAllByUsernames(users.values().stream().map(v -> v[0]).collect(Collectors.toList()))
+                .forEach(v -> sources.put(String.valueOf(v.get("u_username")).toLowerCase(), v));
+        List<String[]> inserts = new ArrayList<>();
+        Map<Long, String> emails = new HashMap<>();
+        users.forEach((key, user) -> {
+            Map<String, Object> source = sources.get(key);
+            if (source == null) {
+                inserts.add(user);
+            } else if (StringUtils.isEmpty(source.get("u_email")) && !StringUtils.isEmpty(user[1])) {
+                // 如果用户存在数据库中只补全为空的email
+                emails.put(((Number) source.get("u_id")).longValue(), user[1]);
+            }
+        });
+        current.setUnchanged(current.getUnchanged() + users.size() - inserts.size() - emails.size());
+        if (inserts.isEmpty() && emails.isEmpty()) {
+            return;
+        }
+        transactionTemplate.execute(status -> {
+            if (!inserts.isEmpty()) {
+                userRepositoryBatch.batchInsert(inserts);
+                List<Long> userIds = userRepositoryBatch.findAllByUsernames(inserts.stream().map(v -> v[0]).collect(Collectors.toList()))
+                        .stream().map(v -> ((Number) v.get("u_id")).longValue()).collect(Collectors.toList());
+                userRepositoryBatch.batchInsertRoleAndType(userIds, roleId, UserRepositoryBatch.USER_TYPE_LDAP);
+            }
+            if (!emails.isEmpty()) {
+                userRepositoryBatch.batchUpdateEmail(emails);
+            }
+            return null;
+        });
+        current.setInserted(current.getInserted() + inserts.size());
+        current.setUpdated(current.getUpdated() + emails.size());
+    }
+
+    private Boolean contain(String field) {
+        for (String s : DEFAULT_USERNAME) {
+            if (field.equalsIgnoreCase(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 比较修改标记, USN为数字按数值比较, 修改时间(GeneralizedTime)格式固定按字符串比较
+     */
+    private String maxMark(String current, String candidate) {
+        if (StringUtils.isEmpty(candidate)) {
+            return current;
+        }
+        if (StringUtils.isEmpty(current)) {
+            return candidate;
+        }
+        try {
+            return Long.parseLong(candidate) > Long.parseLong(current) ? candidate : current;
+        } catch (NumberFormatException e) {
+            return candidate.compareTo(current) > 0 ? candidate : current;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleHistoryEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ArticleHistoryRepositoryBatch <br/>
+ * 描述 : 文章修改历史批量操作, 只读取版本链所需的字段, 不加载用户及文章信息 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Repository
+public class ArticleHistoryRepositoryBatch {
+
+    private static final String SELECT_CHAIN = "SELECT ah_id, ah_article_id, ah_type, ah_base_id, ah_chain, ah_size, ah_content FROM article_history ";
+
+    private static final RowMapper<ArticleHistoryEntity> CHAIN_MAPPER = (rs, rowNum) -> {
+        ArticleHistoryEntity entity = new ArticleHistoryEntity();
+        entity.setId(rs.getLong("ah_id"));
+        ArticleEntity article = new ArticleEntity();
+        article.setId(rs.getLong("ah_article_id"));
+        entity.setArticle(article);
+        entity.setType(rs.getInt("ah_type"));
+        long baseId = rs.getLong("ah_base_id");
+        entity.setBaseId(rs.wasNull() ? null : baseId);
+        entity.setChain(rs.getInt("ah_chain"));
+        int size = rs.getInt("ah_size");
+        entity.setSize(rs.wasNull() ? null : size);
+        entity.setContent(rs.getString("ah_content"));
+        return entity;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 锁定文章, 保证同一篇文章的修改历史按顺序写入版本链, 需要在事务中调用
+     *
+     * @param articleId 文章id
+     */
+    public void lockArticle(Long articleId) {
+        jdbcTemplate.queryForList("SELECT a_id FROM article WHERE a_id = ? FOR UPDATE", Long.class, articleId);
+    }
+
+    /**
+     * 查询文章最新的一条修改历史, 使用当前读, 避免读取到事务中较早建立的快照而遗漏其他事务刚提交的版本,
+     * 需要在事务中调用
+     *
+     * @param articleId 文章id
+     * @return 修改历史, 不存在时返回null
+     */
+    public ArticleHistoryEntity findLatest(Long articleId) {
+        List<ArticleHistoryEntity> entities = jdbcTemplate.query(SELECT_CHAIN +
+                "WHERE ah_article_id = ? ORDER BY ah_id DESC LIMIT 1 FOR UPDATE", CHAIN_MAPPER, articleId);
+        return entities.isEmpty() ? null : entities.get(0);
+    }
+
+    /**
+     * 查询文章在指定范围内的修改历史, 按版本先后排序
+     *
+     * @param articleId 文章id
+     * @param fromId    起始历史id(包含)
+     * @param toId      结束历史id(包含)
+     * @return 修改历史列表
+     */
+    public List<ArticleHistoryEntity> findRange(Long articleId, Long fromId, Long toId) {
+        return jdbcTemplate.query(SELECT_CHAIN + "WHERE ah_article_id = ? AND ah_id >= ? AND ah_id <= ? ORDER BY ah_id",
+                CHAIN_MAPPER, articleId, fromId, toId);
+    }
+
+    /**
+     * 使用当前读查询文章在指定范围内的修改历史, 按版本先后排序, 需要在事务中调用
+     *
+     * @param articleId 文章id
+     * @param fromId    起始历史id(包含)
+     * @param toId      结束历史id(包含)
+     * @return 修改历史列表
+     */
+    public List<ArticleHistoryEntity> findRangeForUpdate(Long articleId, Long fromId, Long toId) {
+        return jdbcTemplate.query(SELECT_CHAIN + "WHERE ah_article_id = ? AND ah_id >= ? AND ah_id <= ? ORDER BY ah_id FOR UPDATE",
+                CHAIN_MAPPER, articleId, fromId, toId);
+    }
+
+    /**
+     * 查询文章所有修改历史, 按版本先后排序
+     *
+     * @param articleId 文章id
+     * @return 修改历史列表
+     */
+    public List<ArticleHistoryEntity> findAllByArticle(Long articleId) {
+        return jdbcTemplate.query(SELECT_CHAIN + "WHERE ah_article_id = ? ORDER BY ah_id", CHAIN_MAPPER, articleId);
+    }
+
+    /**
+     * 查询仍存在未压缩修改历史的文章
+     *
+     * @param afterArticleId 上一批最后的文章id
+     * @param limit          每批数量
+     * @return 文章id列表
+     */
+    public List<Long> findUncompactedArticleIds(Long afterArticleId, Integer limit) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT ah_article_id FROM article_history " +
+                "WHERE ah_size IS NULL AND ah_article_id > ? ORDER BY ah_article_id LIMIT ?", Long.class, afterArticleId, limit);
+    }
+
+    /**
+     * 批量更新修改历史的存储内容
+     *
+     * @param entities 修改历史列表
+     */
+    public void batchUpdateContent(List<ArticleHistoryEntity> entities) {
+        List<Object[]> params = new ArrayList<>(entities.size());
+        entities.forEach(entity -> params.add(new Object[]{entity.getType(), entity.getBaseId(), entity.getChain(),
+                entity.getSize(), entity.getContent(), entity.getId()}));
+        jdbcTemplate.batchUpdate("UPDATE article_history SET ah_type = ?, ah_base_id = ?, ah_chain = ?, ah_size = ?, ah_content = ? " +
+                "WHERE ah_id = ?", params);
+    }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import com.wikift.model.article.ArticleHistorySummaryEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import javax.transaction.Transactional;
+
+/**
+ * ArticleHistorySummaryRepository <br/>
+ * 描述 : 文章修改历史列表查询, 只查询版本信息, 不加载修改内容 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Transactional
+public interface ArticleHistorySummaryRepository extends Repository<ArticleHistorySummaryEntity, Long> {
+
+    /**
+     * 分页查询文章修改历史, 最新的版本在前
+     * <p>
+     * 未转换的历史版本没有记录内容长度, 此时按完整内容计算
+     *
+     * @param articleId 文章id
+     * @param pageable  分页信息
+     * @return 修改历史列表
+     */
+    @Query(value = "SELECT ah.ah_id, ah.ah_version, ah.create_time, ah.ah_users_id AS author_id, u.u_username AS author_name, " +
+            "IFNULL(ah.ah_size, CHAR_LENGTH(ah.ah_content)) AS ah_size, " +
+            "IFNULL(ah.ah_size, CHAR_LENGTH(ah.ah_content)) - IFNULL((SELECT IFNULL(p.ah_size, CHAR_LENGTH(p.ah_content)) FROM article_history AS p " +
+            "WHERE p.ah_article_id = ah.ah_article_id AND p.ah_id < ah.ah_id ORDER BY p.ah_id DESC LIMIT 1), 0) AS size_delta " +
+            "FROM article_history AS ah " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = ah.ah_users_id " +
+            "WHERE ah.ah_article_id = ?1 " +
+            "ORDER BY ah.ah_id DESC \n#pageable\n",
+            countQuery = "SELECT COUNT(ah.ah_id) FROM article_history AS ah WHERE ah.ah_article_id = ?1",
+            nativeQuery = true)
+    Page<ArticleHistorySummaryEntity> findAllByArticle(Long articleId, Pageable pageable);
+
+}
@@ -21,6 +21,7 @@ import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.space.SpaceEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
@@ -32,129 +33,26 @@ import java.util.List;
 @Transactional
 public interface ArticleRepository extends PagingAndSortingRepository<ArticleEntity, Long> {
 
-    /**
-     * 根据文章浏览量查询文章
-     *
-     * @param pageable 分页信息
-     * @return 文章列表
-     */
-    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
-            "FROM article AS a " +
-            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
-            "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
-            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
-            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
-            "WHERE s.s_private = FALSE " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-//            "ORDER BY ?#{#pageable}",
-            "ORDER BY SUM(uavr.uavr_view_count) DESC \n#pageable\n",
-            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
-            nativeQuery = true)
-    Page<ArticleEntity> findAllOrderByViewCount(Pageable pageable);
-
-    /**
-     * 根据文章点赞量查询文章
-     *
-     * @param pageable 分页信息
-     * @return 文章列表
-     */
-    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
+    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(ast.as_comments_count, 0) AS comments_count " +
             "FROM article AS a " +
             "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
             "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
             "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
             "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
-            "WHERE s.s_private = FALSE " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-            "ORDER BY COUNT(uafr.uafr_user_id) DESC \n#pageable\n",
-            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
+            "LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id " +
+            "WHERE a.a_id = ?1",
             nativeQuery = true)
-    Page<ArticleEntity> findAllOrderByFabulouCount(Pageable pageable);
+    ArticleEntity findById(Long articleId);
 
     /**
-     * 根据文章创建时间查询文章
+     * 根据文章id查询文章及文章作者, 用于权限校验
      *
-     * @param pageable 分页信息
-     * @return 文章列表
+     * @param articleId 文章id
+     * @return 文章信息
      */
-    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
-            "FROM article AS a " +
-            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
-            "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
-            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
-            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
-            "WHERE s.s_private = FALSE " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-            "ORDER BY a.a_create_time DESC \n#pageable\n",
-            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
-            nativeQuery = true)
-    Page<ArticleEntity> findAllOrderByCreateTime(Pageable pageable);
-
-    /**
-     * 根据文章标签查询文章
-     *
-     * @param pageable 分页信息
-     * @return 文章列表
-     */
-    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
-            "FROM article AS a " +
-            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
-            "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
-            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
-            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
-            "LEFT OUTER JOIN article_tag_relation AS atr1 ON a.a_id = atr1.atr_article_id " +
-            "WHERE s.s_private = FALSE " +
-            "AND atr1.atr_article_tag_id = ?1 " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-            "ORDER BY a.a_create_time DESC \n#pageable\n",
-            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
-            nativeQuery = true)
-    Page<ArticleEntity> findAllByTagAndCreateTime(Long tagId, Pageable pageable);
-
-    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
-            "FROM article AS a " +
-            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
-            "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
-            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
-            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
-            "WHERE uar.uar_user_id = :userId " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-            "ORDER BY a.a_create_time " +
-            "DESC \n#pageable\n",
-            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
-            nativeQuery = true)
-    Page<ArticleEntity> findAllToUserAndCreateTime(@Param(value = "userId") Long userId, Pageable pageable);
-
-    @Query(value = "SELECT a.a_id, a.parent, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
-            "FROM article AS a " +
-            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
-            "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
-            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
-            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
-            "WHERE a.a_id = ?1 " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-            "ORDER BY SUM(uavr.uavr_view_count) DESC \n#pageable\n",
-            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
-            nativeQuery = true)
-    ArticleEntity findById(Long articleId);
+    @EntityGraph(value = "article.owner")
+    @Query(value = "SELECT a FROM ArticleEntity AS a WHERE a.id = ?1")
+    ArticleEntity findOwnerById(Long articleId);
 
     /**
      * 根据空间查询所有该空间下的文章
@@ -162,18 +60,15 @@ public interface ArticleRepository extends PagingAndSortingRepository<ArticleEnt
      * @param spaceId 空间id
      * @return 该空间的文章列表
      */
-    @Query(value = "SELECT a.a_id, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count " +
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_content, a.a_create_time, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(ast.as_comments_count, 0) AS comments_count " +
             "FROM article AS a " +
             "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
             "LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id " +
-            "LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id " +
-            "LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id " +
             "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
             "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
-            "LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id " +
+            "LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id " +
             "WHERE sar.sar_space_id = :spaceId " +
-            "GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id " +
-            "ORDER BY SUM(uavr.uavr_view_count) DESC \n#pageable\n",
+            "ORDER BY ast.as_view_count DESC \n#pageable\n",
             countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
             nativeQuery = true)
     Page<ArticleEntity> findAllBySpace(@Param("spaceId") Long spaceId, Pageable pageable);
@@ -195,6 +90,15 @@ public interface ArticleRepository extends PagingAndSortingRepository<ArticleEnt
      */
     Iterable<ArticleEntity> findAllBySpace(SpaceEntity space);
 
+    /**
+     * 查询空间导航树所需的文章id, 父节点及标题, 不加载文章内容及关联信息
+     *
+     * @param spaceId 空间id
+     * @return 按文章id排序的 [id, parent, title] 列表
+     */
+    @Query(value = "SELECT a.id, a.parent, a.title FROM ArticleEntity AS a WHERE a.space.id = ?1 ORDER BY a.id")
+    List<Object[]> findAllTreeNodeBySpaceId(Long spaceId);
+
     /**
      * 根据用户和时间查询文章信息
      *
@@ -372,4 +276,86 @@ public interface ArticleRepository extends PagingAndSortingRepository<ArticleEnt
     List<ArticleEntity> findAllByUserAndCreateTimeRanger(@Param(value = "username") String username,
                                                          @Param(value = "timeline") String timeline);
 
+    /**
+     * 更新文章摘要, a_create_time 定义了 ON UPDATE CURRENT_TIMESTAMP, 需显式保持原值
+     *
+     * @param articleId 文章id
+     * @param excerpt   文章摘要
+     * @return 数据状态
+     */
+    @Modifying
+    @Query(value = "UPDATE article SET a_excerpt = ?2, a_create_time = a_create_time WHERE a_id = ?1",
+            nativeQuery = true)
+    Integer updateExcerpt(Long articleId, String excerpt);
+
+    /**
+     * 初始化文章统计信息, 统计数据已存在时不做任何操作
+     *
+     * @param articleId 文章id
+     * @return 数据状态
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO article_stats(as_article_id) " +
+            "VALUES (?1)",
+            nativeQuery = true)
+    Integer initStats(Long articleId);
+
+    /**
+     * 累加文章浏览量统计
+     *
+     * @param articleId 文章id
+     * @param viewCount 新增浏览量
+     * @return 数据状态
+     */
+    @Modifying
+    @Query(value = "INSERT INTO article_stats(as_article_id, as_view_count) " +
+            "VALUES (?1, ?2) " +
+            "ON DUPLICATE KEY UPDATE as_view_count = as_view_count + VALUES(as_view_count)",
+            nativeQuery = true)
+    Integer increaseViewCount(Long articleId, Integer viewCount);
+
+    /**
+     * 累加文章点赞量统计
+     *
+     * @param articleId    文章id
+     * @param fabulouCount 新增点赞量(解除赞时为负数)
+     * @return 数据状态
+     */
+    @Modifying
+    @Query(value = "INSERT INTO article_stats(as_article_id, as_fabulou_count) " +
+            "VALUES (?1, GREATEST(?2, 0)) " +
+            "ON DUPLICATE KEY UPDATE as_fabulou_count = GREATEST(as_fabulou_count + ?2, 0)",
+            nativeQuery = true)
+    Integer increaseFabulouCount(Long articleId, Integer fabulouCount);
+
+    /**
+     * 累加文章评论量统计
+     *
+     * @param articleId     文章id
+     * @param commentsCount 新增评论量(删除评论时为负数)
+     * @return 数据状态
+     */
+    @Modifying
+    @Query(value = "INSERT INTO article_stats(as_article_id, as_comments_count) " +
+            "VALUES (?1, GREATEST(?2, 0)) " +
+            "ON DUPLICATE KEY UPDATE as_comments_count = GREATEST(as_comments_count + ?2, 0)",
+            nativeQuery = true)
+    Integer increaseCommentsCount(Long articleId, Integer commentsCount);
+
+    /**
+     * 根据浏览, 点赞, 评论明细重建所有文章的统计信息
+     *
+     * @return 数据状态
+     */
+    @Modifying
+    @Query(value = "INSERT INTO article_stats(as_article_id, as_view_count, as_fabulou_count, as_comments_count) " +
+            "SELECT a.a_id, " +
+            "IFNULL((SELECT SUM(uavr.uavr_view_count) FROM users_article_view_relation AS uavr WHERE uavr.uavr_article_id = a.a_id), 0), " +
+            "(SELECT COUNT(DISTINCT uafr.uafr_user_id) FROM users_article_fabulous_relation AS uafr WHERE uafr.uafr_article_id = a.a_id), " +
+            "(SELECT COUNT(car.car_comments_id) FROM comments_article_relation AS car WHERE car.car_article_id = a.a_id) " +
+            "FROM article AS a " +
+            "ON DUPLICATE KEY UPDATE as_view_count = VALUES(as_view_count), as_fabulou_count = VALUES(as_fabulou_count), as_comments_count = VALUES(as_comments_count)",
+            nativeQuery = true)
+    Integer rebuildStats();
+
 }
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleTagEntity;
+import com.wikift.model.space.SpaceEntity;
+import com.wikift.model.user.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArticleRepositoryBatch <br/>
+ * 描述 : 文章数据库批量操作, 使用JDBC批量写入减少数据库交互次数 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Repository
+public class ArticleRepositoryBatch {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量写入文章浏览量, 已删除的文章将被忽略
+     *
+     * @param views 文章id与新增浏览量
+     */
+    @Transactional
+    public void batchViewArticle(Map<Long, Long> views) {
+        List<Object[]> params = new ArrayList<>(views.size());
+        views.forEach((articleId, viewCount) -> params.add(new Object[]{viewCount, articleId}));
+        jdbcTemplate.batchUpdate("INSERT INTO users_article_view_relation(uavr_article_id, uavr_view_count) " +
+                "SELECT a.a_id, ? FROM article AS a WHERE a.a_id = ?", params);
+        jdbcTemplate.batchUpdate("INSERT INTO article_stats(as_article_id, as_view_count) " +
+                "SELECT a.a_id, ? FROM article AS a WHERE a.a_id = ? " +
+                "ON DUPLICATE KEY UPDATE as_view_count = as_view_count + VALUES(as_view_count)", params);
+    }
+
+    /**
+     * 获取最大的文章id
+     *
+     * @return 最大的文章id, 没有文章时返回null
+     */
+    public Long findMaxArticleId() {
+        return jdbcTemplate.queryForObject("SELECT MAX(a_id) FROM article", Long.class);
+    }
+
+    /**
+     * 批量读取构建检索索引所需的文章信息, 只填充文章id, 标题, 内容及作者, 空间, 标签的id
+     *
+     * @param fromId 起始文章id(包含)
+     * @param toId   结束文章id(不包含)
+     * @return 文章列表
+     */
+    public List<ArticleEntity> findAllForIndex(Long fromId, Long toId) {
+        return jdbcTemplate.query("SELECT a.a_id, a.a_title, a.a_content, uar.uar_user_id, sar.sar_space_id, " +
+                "(SELECT GROUP_CONCAT(atr.atr_article_tag_id) FROM article_tag_relation AS atr WHERE atr.atr_article_id = a.a_id) AS tag_ids " +
+                "FROM article AS a " +
+                "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+                "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+                "WHERE a.a_id >= ? AND a.a_id < ?", (rs, rowNum) -> {
+            ArticleEntity entity = new ArticleEntity();
+            entity.setId(rs.getLong("a_id"));
+            entity.setTitle(rs.getString("a_title"));
+            entity.setContent(rs.getString("a_content"));
+            long userId = rs.getLong("uar_user_id");
+            if (!rs.wasNull()) {
+                UserEntity user = new UserEntity();
+                user.setId(userId);
+                entity.setUser(user);
+            }
+            long spaceId = rs.getLong("sar_space_id");
+            if (!rs.wasNull()) {
+                SpaceEntity space = new SpaceEntity();
+                space.setId(spaceId);
+                entity.setSpace(space);
+            }
+            List<ArticleTagEntity> tags = new ArrayList<>();
+            String tagIds = rs.getString("tag_ids");
+            if (!StringUtils.isEmpty(tagIds)) {
+                for (String tagId : tagIds.split(",")) {
+                    ArticleTagEntity tag = new ArticleTagEntity();
+                    tag.setId(Long.valueOf(tagId));
+                    tags.add(tag);
+                }
+            }
+            entity.setArticleTags(tags);
+            return entity;
+        }, fromId, toId);
+    }
+
+}
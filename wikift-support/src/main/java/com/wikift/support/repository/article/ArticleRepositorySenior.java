@@ -17,7 +17,7 @@
  */
 package com.wikift.support.repository.article;
 
-import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleSummaryEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +28,11 @@ import org.springframework.util.StringUtils;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * ArticleRepositorySenior <br/>
@@ -43,21 +48,22 @@ public class ArticleRepositorySenior {
     @PersistenceContext
     private EntityManager entityManager;
 
-    public Page<ArticleEntity> search(Long tagId, String articleTitle, Long spaceId, Long userId, Pageable pageable) {
+    public Page<ArticleSummaryEntity> search(Long tagId, String articleTitle, Long spaceId, Long userId, Pageable pageable) {
         StringBuffer bufferPrefix = new StringBuffer();
         // 默认查询的数据信息
-        bufferPrefix.append("SELECT a.a_id, a.a_title, a.a_content, a.a_create_time, IFNULL(SUM(uavr.uavr_view_count) , 0) AS view_count, IFNULL(COUNT(DISTINCT uafr.uafr_user_id), 0) AS fabulou_count, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id, IFNULL(c.comments_count, 0) AS comments_count ");
+        bufferPrefix.append("SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count ");
         bufferPrefix.append("FROM article AS a ");
 
         StringBuffer bufferJoin = new StringBuffer();
         bufferJoin.append("LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id ");
-        bufferJoin.append("LEFT OUTER JOIN article_type_relation AS atr ON a.a_id = atr.atr_article_id ");
-        bufferJoin.append("LEFT OUTER JOIN users_article_view_relation AS uavr ON a.a_id = uavr.uavr_article_id ");
-        bufferJoin.append("LEFT OUTER JOIN users_article_fabulous_relation AS uafr ON a.a_id = uafr.uafr_article_id ");
+        bufferJoin.append("LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id ");
         bufferJoin.append("LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id ");
         bufferJoin.append("LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id ");
-        bufferJoin.append("LEFT OUTER JOIN (SELECT car.car_article_id, count(car.car_comments_id) AS comments_count FROM comments_article_relation AS car GROUP BY car.car_article_id ) AS c ON a.a_id = c.car_article_id ");
-        bufferJoin.append("LEFT OUTER JOIN article_tag_relation AS atr1 ON a.a_id = atr1.atr_article_id ");
+        bufferJoin.append("LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id ");
+        // 只有根据标签查询时才关联标签, 避免多标签文章产生重复数据
+        if (!ObjectUtils.isEmpty(tagId) && tagId > 0) {
+            bufferJoin.append("INNER JOIN article_tag_relation AS atr1 ON a.a_id = atr1.atr_article_id ");
+        }
         bufferJoin.append("WHERE s.s_private = FALSE ");
         // 根据标签查询
         if (!ObjectUtils.isEmpty(tagId) && tagId > 0) {
@@ -75,12 +81,9 @@ public class ArticleRepositorySenior {
         if (!ObjectUtils.isEmpty(userId) && userId > 0) {
             bufferJoin.append("AND uar.uar_user_id = :userId ");
         }
-        
-        StringBuffer bufferGroup = new StringBuffer();
-        bufferGroup.append("GROUP BY a_id, uar.uar_user_id, atr.atr_article_type_id, sar.sar_space_id ");
-        
+
         StringBuffer bufferOrder = new StringBuffer();
-        bufferOrder.append("ORDER BY SUM(uavr.uavr_view_count) DESC ");
+        bufferOrder.append("ORDER BY ast.as_view_count DESC ");
 
         StringBuffer bufferLimit = new StringBuffer();
         bufferLimit.append("LIMIT :page, :pageSize");
@@ -88,11 +91,10 @@ public class ArticleRepositorySenior {
         StringBuffer bufferQuery = new StringBuffer();
         bufferQuery.append(bufferPrefix);
         bufferQuery.append(bufferJoin);
-        bufferQuery.append(bufferGroup);
         bufferQuery.append(bufferOrder);
         bufferQuery.append(bufferLimit);
 
-        Query query = entityManager.createNativeQuery(bufferQuery.toString(), ArticleEntity.class);
+        Query query = entityManager.createNativeQuery(bufferQuery.toString(), ArticleSummaryEntity.class);
         joinParam(tagId, articleTitle, spaceId, userId, query);
         query.setParameter("page", pageable.getPageNumber());
         query.setParameter("pageSize", pageable.getPageSize());
@@ -106,6 +108,36 @@ public class ArticleRepositorySenior {
         return new PageImpl<>(query.getResultList(), pageable, count);
     }
 
+    /**
+     * 根据文章id批量查询文章信息, 返回结果与传入id的顺序一致
+     *
+     * @param ids 文章id列表
+     * @return 文章列表
+     */
+    public List<ArticleSummaryEntity> findAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StringBuffer bufferQuery = new StringBuffer();
+        bufferQuery.append("SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count ");
+        bufferQuery.append("FROM article AS a ");
+        bufferQuery.append("LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id ");
+        bufferQuery.append("LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id ");
+        bufferQuery.append("LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id ");
+        bufferQuery.append("LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id ");
+        bufferQuery.append("LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id ");
+        bufferQuery.append("WHERE a.a_id IN (:ids)");
+        Query query = entityManager.createNativeQuery(bufferQuery.toString(), ArticleSummaryEntity.class);
+        query.setParameter("ids", ids);
+        Map<Long, ArticleSummaryEntity> entities = new HashMap<>();
+        for (Object entity : query.getResultList()) {
+            entities.put(((ArticleSummaryEntity) entity).getId(), (ArticleSummaryEntity) entity);
+        }
+        List<ArticleSummaryEntity> sorted = new ArrayList<>(ids.size());
+        ids.stream().filter(entities::containsKey).forEach(id -> sorted.add(entities.get(id)));
+        return sorted;
+    }
+
     private void joinParam(Long tagId, String articleTitle, Long spaceId, Long userId, Query query) {
         // 根据标签查询
         if (!ObjectUtils.isEmpty(tagId) && tagId > 0) {
@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import com.wikift.model.article.ArticleSummaryEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.Temporal;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.TemporalType;
+import javax.transaction.Transactional;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ArticleSummaryRepository <br/>
+ * 描述 : 文章列表查询, 只查询文章摘要信息, 不加载文章内容 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Transactional
+public interface ArticleSummaryRepository extends Repository<ArticleSummaryEntity, Long> {
+
+    /**
+     * 根据文章浏览量查询文章
+     *
+     * @param pageable 分页信息
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article_stats AS ast " +
+            "INNER JOIN article AS a ON a.a_id = ast.as_article_id " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "WHERE s.s_private = FALSE " +
+//            "ORDER BY ?#{#pageable}",
+            "ORDER BY ast.as_view_count DESC, ast.as_article_id DESC \n#pageable\n",
+            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
+            nativeQuery = true)
+    Page<ArticleSummaryEntity> findAllOrderByViewCount(Pageable pageable);
+
+    /**
+     * 根据文章点赞量查询文章
+     *
+     * @param pageable 分页信息
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article_stats AS ast " +
+            "INNER JOIN article AS a ON a.a_id = ast.as_article_id " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "WHERE s.s_private = FALSE " +
+            "ORDER BY ast.as_fabulou_count DESC, ast.as_article_id DESC \n#pageable\n",
+            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
+            nativeQuery = true)
+    Page<ArticleSummaryEntity> findAllOrderByFabulouCount(Pageable pageable);
+
+    /**
+     * 根据文章创建时间查询文章
+     *
+     * @param pageable 分页信息
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article AS a " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id " +
+            "WHERE s.s_private = FALSE " +
+            "ORDER BY a.a_create_time DESC \n#pageable\n",
+            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
+            nativeQuery = true)
+    Page<ArticleSummaryEntity> findAllOrderByCreateTime(Pageable pageable);
+
+    /**
+     * 根据文章浏览量游标查询文章, 查询排在(viewCount, articleId)之后的数据
+     *
+     * @param viewCount 游标中的浏览量
+     * @param articleId 游标中的文章id
+     * @param size      查询数据条数
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article_stats AS ast " +
+            "INNER JOIN article AS a ON a.a_id = ast.as_article_id " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "WHERE s.s_private = FALSE " +
+            "AND (ast.as_view_count < :viewCount OR (ast.as_view_count = :viewCount AND ast.as_article_id < :articleId)) " +
+            "ORDER BY ast.as_view_count DESC, ast.as_article_id DESC " +
+            "LIMIT :size",
+            nativeQuery = true)
+    List<ArticleSummaryEntity> findAllOrderByViewCountAfter(@Param(value = "viewCount") Long viewCount,
+                                                            @Param(value = "articleId") Long articleId,
+                                                            @Param(value = "size") Integer size);
+
+    /**
+     * 根据文章点赞量游标查询文章, 查询排在(fabulouCount, articleId)之后的数据
+     *
+     * @param fabulouCount 游标中的点赞量
+     * @param articleId    游标中的文章id
+     * @param size         查询数据条数
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article_stats AS ast " +
+            "INNER JOIN article AS a ON a.a_id = ast.as_article_id " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "WHERE s.s_private = FALSE " +
+            "AND (ast.as_fabulou_count < :fabulouCount OR (ast.as_fabulou_count = :fabulouCount AND ast.as_article_id < :articleId)) " +
+            "ORDER BY ast.as_fabulou_count DESC, ast.as_article_id DESC " +
+            "LIMIT :size",
+            nativeQuery = true)
+    List<ArticleSummaryEntity> findAllOrderByFabulouCountAfter(@Param(value = "fabulouCount") Long fabulouCount,
+                                                               @Param(value = "articleId") Long articleId,
+                                                               @Param(value = "size") Integer size);
+
+    /**
+     * 根据文章创建时间游标查询文章, 查询排在(createTime, articleId)之后的数据
+     *
+     * @param createTime 游标中的创建时间
+     * @param articleId  游标中的文章id
+     * @param size       查询数据条数
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article AS a " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id " +
+            "WHERE s.s_private = FALSE " +
+            "AND (a.a_create_time < :createTime OR (a.a_create_time = :createTime AND a.a_id < :articleId)) " +
+            "ORDER BY a.a_create_time DESC, a.a_id DESC " +
+            "LIMIT :size",
+            nativeQuery = true)
+    List<ArticleSummaryEntity> findAllOrderByCreateTimeAfter(@Temporal(TemporalType.TIMESTAMP) @Param(value = "createTime") Date createTime,
+                                                             @Param(value = "articleId") Long articleId,
+                                                             @Param(value = "size") Integer size);
+
+    /**
+     * 根据文章标签查询文章
+     *
+     * @param pageable 分页信息
+     * @return 文章列表
+     */
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article AS a " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id " +
+            "LEFT OUTER JOIN article_tag_relation AS atr1 ON a.a_id = atr1.atr_article_id " +
+            "WHERE s.s_private = FALSE " +
+            "AND atr1.atr_article_tag_id = ?1 " +
+            "ORDER BY a.a_create_time DESC \n#pageable\n",
+            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
+            nativeQuery = true)
+    Page<ArticleSummaryEntity> findAllByTagAndCreateTime(Long tagId, Pageable pageable);
+
+    @Query(value = "SELECT a.a_id, a.a_title, a.a_excerpt, a.a_create_time, uar.uar_user_id AS author_id, u.u_username AS author_name, sar.sar_space_id AS space_id, s.s_code AS space_code, s.s_name AS space_name, IFNULL(ast.as_view_count, 0) AS view_count, IFNULL(ast.as_fabulou_count, 0) AS fabulou_count, IFNULL(ast.as_comments_count, 0) AS comments_count " +
+            "FROM article AS a " +
+            "LEFT OUTER JOIN users_article_relation AS uar ON a.a_id = uar.uar_article_id " +
+            "LEFT OUTER JOIN users AS u ON u.u_id = uar.uar_user_id " +
+            "LEFT OUTER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id " +
+            "LEFT OUTER JOIN space AS s ON s.s_id = sar.sar_space_id " +
+            "LEFT OUTER JOIN article_stats AS ast ON a.a_id = ast.as_article_id " +
+            "WHERE uar.uar_user_id = :userId " +
+            "ORDER BY a.a_create_time " +
+            "DESC \n#pageable\n",
+            countQuery = "SELECT COUNT(a.a_id) FROM article AS a",
+            nativeQuery = true)
+    Page<ArticleSummaryEntity> findAllToUserAndCreateTime(@Param(value = "userId") Long userId, Pageable pageable);
+
+}
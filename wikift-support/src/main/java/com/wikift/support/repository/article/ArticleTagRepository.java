@@ -50,4 +50,12 @@ public interface ArticleTagRepository extends PagingAndSortingRepository<Article
      */
     ArticleTagEntity findByName(String name);
 
+    /**
+     * 查询id大于指定值的标签, 用于增量加载新增的标签
+     *
+     * @param id 已加载的最大标签id
+     * @return 标签列表
+     */
+    List<ArticleTagEntity> findAllByIdGreaterThanOrderByIdAsc(Long id);
+
 }
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArticleTreeRepository <br/>
+ * 描述 : 文章层级路径维护, 每篇文章在 a_path 中保存从根节点到自身的文章id路径(如 /1/5/9/),
+ * 查询子树及移动子树都通过路径前缀完成, a_create_time 定义了 ON UPDATE CURRENT_TIMESTAMP, 更新路径时需显式保持原值 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Repository
+public class ArticleTreeRepository {
+
+    // 根节点的父节点标志
+    public static final Long ROOT = -1L;
+
+    private static final String SELECT_NODE = "SELECT a.a_id, a.parent, a.a_title, a.a_depth, " +
+            "EXISTS(SELECT 1 FROM article AS c WHERE c.parent = a.a_id) AS has_children " +
+            "FROM article AS a " +
+            "INNER JOIN space_article_relation AS sar ON a.a_id = sar.sar_article_id ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 查询文章路径
+     *
+     * @param id 文章id
+     * @return 文章路径, 文章不存在或路径未生成时返回null
+     */
+    public String findPath(Long id) {
+        List<String> paths = jdbcTemplate.queryForList("SELECT a_path FROM article WHERE a_id = ?", String.class, id);
+        return paths.isEmpty() ? null : paths.get(0);
+    }
+
+    /**
+     * 生成新文章的路径, 父节点不存在时作为根节点
+     *
+     * @param id     文章id
+     * @param parent 父节点id
+     */
+    public void initPath(Long id, Long parent) {
+        String parentPath = isRoot(parent) ? null : findPath(parent);
+        if (parentPath == null) {
+            jdbcTemplate.update("UPDATE article SET a_path = CONCAT('/', a_id, '/'), a_depth = 0, a_create_time = a_create_time WHERE a_id = ?", id);
+        } else {
+            jdbcTemplate.update("UPDATE article SET a_path = CONCAT(?, a_id, '/'), a_depth = ?, a_create_time = a_create_time WHERE a_id = ?",
+                    parentPath, depthOf(parentPath) + 1, id);
+        }
+    }
+
+    /**
+     * 将文章及其所有子孙移动到新的父节点下, 只执行一次批量更新
+     *
+     * @param id     文章id
+     * @param parent 新的父节点id
+     * @return 更新的文章数量
+     */
+    public Integer move(Long id, Long parent) {
+        String path = findPath(id);
+        if (path == null) {
+            initPath(id, parent);
+            return 1;
+        }
+        String parentPath = isRoot(parent) ? null : findPath(parent);
+        String newPath = (parentPath == null ? "/" : parentPath) + id + "/";
+        return jdbcTemplate.update("UPDATE article SET a_path = CONCAT(?, SUBSTRING(a_path, ?)), a_depth = a_depth + ?, a_create_time = a_create_time " +
+                "WHERE a_path LIKE ?", newPath, path.length() + 1, depthOf(newPath) - depthOf(path), path + "%");
+    }
+
+    /**
+     * 判断文章是否为另一篇文章自身或其子孙
+     *
+     * @param ancestor 祖先文章id
+     * @param id       文章id
+     * @return 是否在子树中
+     */
+    public Boolean isInSubtree(Long ancestor, Long id) {
+        if (isRoot(id)) {
+            return false;
+        }
+        String ancestorPath = findPath(ancestor);
+        String path = findPath(id);
+        return ancestorPath != null && path != null && path.startsWith(ancestorPath);
+    }
+
+    /**
+     * 查询空间中父节点下指定层级内的文章, 不加载文章内容
+     *
+     * @param spaceId 空间id
+     * @param parent  父节点id, -1为空间根节点
+     * @param depth   查询的层级数
+     * @return 按文章id排序的文章节点
+     */
+    public List<Map<String, Object>> findChildren(Long spaceId, Long parent, Integer depth) {
+        if (isRoot(parent)) {
+            return jdbcTemplate.queryForList(SELECT_NODE + "WHERE sar.sar_space_id = ? AND a.a_depth < ? ORDER BY a.a_id",
+                    spaceId, depth);
+        }
+        String path = findPath(parent);
+        if (path == null) {
+            return jdbcTemplate.queryForList(SELECT_NODE + "WHERE 1 = 0");
+        }
+        int parentDepth = depthOf(path);
+        return jdbcTemplate.queryForList(SELECT_NODE + "WHERE sar.sar_space_id = ? AND a.a_path LIKE ? " +
+                "AND a.a_depth > ? AND a.a_depth <= ? ORDER BY a.a_id", spaceId, path + "%", parentDepth, parentDepth + depth);
+    }
+
+    /**
+     * 查询未生成路径的文章数量
+     *
+     * @return 文章数量
+     */
+    public Long countWithoutPath() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(a_id) FROM article WHERE a_path IS NULL", Long.class);
+    }
+
+    /**
+     * 按层级重建所有文章的路径, 父节点不存在的文章作为根节点, 形成环的文章路径保持为空
+     *
+     * @return 重建的文章数量
+     */
+    public Integer rebuildPaths() {
+        jdbcTemplate.update("UPDATE article SET a_path = NULL, a_depth = 0, a_create_time = a_create_time");
+        int count = jdbcTemplate.update("UPDATE article AS a LEFT OUTER JOIN article AS p ON p.a_id = a.parent " +
+                "SET a.a_path = CONCAT('/', a.a_id, '/'), a.a_depth = 0, a.a_create_time = a.a_create_time WHERE p.a_id IS NULL");
+        int depth = 0;
+        int updated = count;
+        while (updated > 0) {
+            updated = jdbcTemplate.update("UPDATE article AS a INNER JOIN article AS p ON p.a_id = a.parent " +
+                    "SET a.a_path = CONCAT(p.a_path, a.a_id, '/'), a.a_depth = p.a_depth + 1, a.a_create_time = a.a_create_time " +
+                    "WHERE p.a_depth = ? AND p.a_path IS NOT NULL AND a.a_path IS NULL", depth);
+            count += updated;
+            depth++;
+        }
+        return count;
+    }
+
+    private boolean isRoot(Long parent) {
+        return parent == null || ROOT.equals(parent);
+    }
+
+    /**
+     * 根据路径计算层级, 根节点为0
+     */
+    private int depthOf(String path) {
+        int count = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                count++;
+            }
+        }
+        return count - 2;
+    }
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.remind;
+
+import com.wikift.model.remind.RemindInboxEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RemindInboxRepository <br/>
+ * 描述 : 用户提醒收件箱, 按 (接收用户, 提醒时间, 提醒id) 存储, 查询按提醒时间倒序游标分页 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Repository
+public class RemindInboxRepository {
+
+    private static final RowMapper<RemindInboxEntity> INBOX_MAPPER = (rs, rowNum) -> {
+        RemindInboxEntity entity = new RemindInboxEntity();
+        entity.setRemindId(rs.getLong("ri_remind_id"));
+        entity.setTitle(rs.getString("r_title"));
+        entity.setContent(rs.getString("r_content"));
+        long articleId = rs.getLong("rar_article_id");
+        entity.setArticleId(rs.wasNull() ? null : articleId);
+        entity.setCreateTime(rs.getTimestamp("ri_create_time"));
+        entity.setRead(rs.getBoolean("ri_read"));
+        entity.setReadTime(rs.getTimestamp("ri_read_time"));
+        return entity;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量写入接收用户的收件箱
+     *
+     * @param remindId   提醒信息id
+     * @param createTime 提醒时间, 同一提醒的所有接收用户使用相同的时间
+     * @param userIds    接收用户id列表
+     */
+    public void batchInsert(Long remindId, Date createTime, List<Long> userIds) {
+        Timestamp time = new Timestamp(createTime.getTime());
+        jdbcTemplate.batchUpdate("INSERT INTO remind_inbox(ri_user_id, ri_create_time, ri_remind_id) VALUES(?, ?, ?)", userIds, userIds.size(),
+                (statement, userId) -> {
+                    statement.setLong(1, userId);
+                    statement.setTimestamp(2, time);
+                    statement.setLong(3, remindId);
+                });
+    }
+
+    /**
+     * 查询用户在指定位置之前的提醒, 按提醒时间及提醒id倒序
+     *
+     * @param userId     接收用户id
+     * @param unread     是否只查询未读提醒
+     * @param createTime 上一页最后一条提醒的时间
+     * @param remindId   上一页最后一条提醒的id
+     * @param limit      查询数量
+     * @return 提醒列表
+     */
+    public List<RemindInboxEntity> findAllBefore(Long userId, Boolean unread, Date createTime, Long remindId, Integer limit) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT ri.ri_remind_id, ri.ri_create_time, ri.ri_read, ri.ri_read_time, r.r_title, r.r_content, rar.rar_article_id ");
+        sql.append("FROM remind_inbox AS ri ");
+        sql.append("INNER JOIN remind AS r ON r.r_id = ri.ri_remind_id ");
+        sql.append("LEFT OUTER JOIN remind_article_relation AS rar ON rar.rar_remind_id = ri.ri_remind_id ");
+        sql.append("WHERE ri.ri_user_id = ? ");
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        if (unread) {
+            sql.append("AND ri.ri_read = FALSE ");
+        }
+        sql.append("AND (ri.ri_create_time < ? OR (ri.ri_create_time = ? AND ri.ri_remind_id < ?)) ");
+        sql.append("ORDER BY ri.ri_create_time DESC, ri.ri_remind_id DESC LIMIT ?");
+        Timestamp time = new Timestamp(createTime.getTime());
+        params.add(time);
+        params.add(time);
+        params.add(remindId);
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), INBOX_MAPPER, params.toArray());
+    }
+
+    /**
+     * 查询用户收件箱中提醒的时间
+     *
+     * @param userId   接收用户id
+     * @param remindId 提醒id
+     * @return 提醒时间, 不存在时返回null
+     */
+    public Date findCreateTime(Long userId, Long remindId) {
+        List<Timestamp> times = jdbcTemplate.queryForList("SELECT ri_create_time FROM remind_inbox " +
+                "WHERE ri_remind_id = ? AND ri_user_id = ?", Timestamp.class, remindId, userId);
+        return times.isEmpty() ? null : times.get(0);
+    }
+
+    /**
+     * 阅读单条提醒
+     *
+     * @param userId   接收用户id
+     * @param remindId 提醒id
+     * @return 更新的数据条数
+     */
+    public Integer read(Long userId, Long remindId) {
+        return jdbcTemplate.update("UPDATE remind_inbox SET ri_read = TRUE, ri_read_time = CURRENT_TIMESTAMP() " +
+                "WHERE ri_remind_id = ? AND ri_user_id = ? AND ri_read = FALSE", remindId, userId);
+    }
+
+    /**
+     * 将指定位置及之前的所有未读提醒标记为已读
+     *
+     * @param userId     接收用户id
+     * @param createTime 最后一条标记提醒的时间
+     * @param remindId   最后一条标记提醒的id
+     * @return 更新的数据条数
+     */
+    public Integer readUpTo(Long userId, Date createTime, Long remindId) {
+        Timestamp time = new Timestamp(createTime.getTime());
+        return jdbcTemplate.update("UPDATE remind_inbox SET ri_read = TRUE, ri_read_time = CURRENT_TIMESTAMP() " +
+                "WHERE ri_user_id = ? AND ri_read = FALSE " +
+                "AND (ri_create_time < ? OR (ri_create_time = ? AND ri_remind_id <= ?))", userId, time, time, remindId);
+    }
+
+    /**
+     * 接收用户未读提醒数量加1, 需要与写入收件箱在同一事务中调用
+     *
+     * @param userIds 接收用户id列表
+     */
+    public void batchIncrementUnread(List<Long> userIds) {
+        jdbcTemplate.batchUpdate("INSERT INTO remind_unread(ru_user_id, ru_count) VALUES(?, 1) " +
+                        "ON DUPLICATE KEY UPDATE ru_count = ru_count + 1", userIds, userIds.size(),
+                (statement, userId) -> statement.setLong(1, userId));
+    }
+
+    /**
+     * 减少用户未读提醒数量, 需要与阅读提醒在同一事务中调用
+     *
+     * @param userId 接收用户id
+     * @param count  已阅读的提醒数量
+     */
+    public void decrementUnread(Long userId, Integer count) {
+        jdbcTemplate.update("UPDATE remind_unread SET ru_count = GREATEST(ru_count - ?, 0) WHERE ru_user_id = ?", count, userId);
+    }
+
+    /**
+     * 查询用户未读提醒数量
+     *
+     * @param userId 接收用户id
+     * @return 未读提醒数量
+     */
+    public Long findUnread(Long userId) {
+        List<Long> counts = jdbcTemplate.queryForList("SELECT ru_count FROM remind_unread WHERE ru_user_id = ?", Long.class, userId);
+        return counts.isEmpty() ? 0L : counts.get(0);
+    }
+
+    /**
+     * 分批查询未读数量记录及收件箱中实际的未读数量
+     *
+     * @param afterUserId 上一批最后的用户id
+     * @param limit       每批数量
+     * @return 用户id(ru_user_id), 记录的数量(ru_count)及实际数量(actual)
+     */
+    public List<Map<String, Object>> findUnreadWithActual(Long afterUserId, Integer limit) {
+        return jdbcTemplate.queryForList("SELECT ru.ru_user_id, ru.ru_count, " +
+                "(SELECT COUNT(1) FROM remind_inbox AS ri WHERE ri.ri_user_id = ru.ru_user_id AND ri.ri_read = FALSE) AS actual " +
+                "FROM remind_unread AS ru WHERE ru.ru_user_id > ? ORDER BY ru.ru_user_id LIMIT ?", afterUserId, limit);
+    }
+
+    /**
+     * 校正用户未读数量, 记录的数量在查询后被修改时不更新
+     *
+     * @param userId   接收用户id
+     * @param expected 查询时记录的数量
+     * @param actual   实际数量
+     * @return 是否更新成功
+     */
+    public boolean updateUnread(Long userId, Long expected, Long actual) {
+        return jdbcTemplate.update("UPDATE remind_unread SET ru_count = ? WHERE ru_user_id = ? AND ru_count = ?", actual, userId, expected) > 0;
+    }
+
+}
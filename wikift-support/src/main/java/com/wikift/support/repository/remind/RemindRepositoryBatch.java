@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.remind;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RemindRepositoryBatch <br/>
+ * 描述 : 提醒信息批量操作, 用于向大量用户分批发送提醒 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Repository
+public class RemindRepositoryBatch {
+
+    public static final int FANOUT_DONE = 0;
+    public static final int FANOUT_PENDING = 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 创建待发送的文章提醒信息, 需要在事务中调用
+     *
+     * @param title      提醒标题
+     * @param content    提醒内容
+     * @param typeId     提醒类型id
+     * @param articleId  文章id
+     * @param createTime 提醒时间
+     * @return 提醒信息id
+     */
+    public Long insertPending(String title, String content, Long typeId, Long articleId, Date createTime) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO remind(r_title, r_content, r_create_time, r_fanout_status, r_fanout_cursor) " +
+                    "VALUES(?, ?, ?, ?, 0)", Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, title);
+            statement.setString(2, content);
+            statement.setTimestamp(3, new Timestamp(createTime.getTime()));
+            statement.setInt(4, FANOUT_PENDING);
+            return statement;
+        }, keyHolder);
+        Long remindId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO remind_type_relation(rtr_remind_id, rtr_remind_type_id) VALUES(?, ?)", remindId, typeId);
+        jdbcTemplate.update("INSERT INTO remind_article_relation(rar_remind_id, rar_article_id) VALUES(?, ?)", remindId, articleId);
+        return remindId;
+    }
+
+    /**
+     * 批量写入提醒接收用户
+     *
+     * @param remindId 提醒信息id
+     * @param userIds  接收用户id列表
+     */
+    public void batchInsertUsers(Long remindId, List<Long> userIds) {
+        jdbcTemplate.batchUpdate("INSERT INTO remind_users_relation(rur_remind_id, rur_user_id) VALUES(?, ?)", userIds, userIds.size(),
+                (statement, userId) -> {
+                    statement.setLong(1, remindId);
+                    statement.setLong(2, userId);
+                });
+    }
+
+    /**
+     * 更新发送进度, 只有进度与读取时一致才会更新, 避免多个任务重复发送同一提醒
+     *
+     * @param remindId       提醒信息id
+     * @param expectedCursor 读取时的进度
+     * @param cursor         已发送的最后一个用户id
+     * @param done           是否发送完成
+     * @return 是否更新成功
+     */
+    public boolean updateCursor(Long remindId, Long expectedCursor, Long cursor, boolean done) {
+        return jdbcTemplate.update("UPDATE remind SET r_fanout_cursor = ?, r_fanout_status = ? " +
+                        "WHERE r_id = ? AND r_fanout_status = ? AND r_fanout_cursor = ?",
+                cursor, done ? FANOUT_DONE : FANOUT_PENDING, remindId, FANOUT_PENDING, expectedCursor) > 0;
+    }
+
+    /**
+     * 查询未发送完成的提醒信息
+     *
+     * @return 提醒信息id(r_id), 标题(r_title), 内容(r_content), 提醒时间(r_create_time), 文章id(article_id)及发送进度(r_fanout_cursor)
+     */
+    public List<Map<String, Object>> findAllPending() {
+        return jdbcTemplate.queryForList("SELECT r.r_id, r.r_title, r.r_content, r.r_create_time, rar.rar_article_id AS article_id, r.r_fanout_cursor FROM remind AS r " +
+                "INNER JOIN remind_article_relation AS rar ON rar.rar_remind_id = r.r_id " +
+                "WHERE r.r_fanout_status = ? ORDER BY r.r_id", FANOUT_PENDING);
+    }
+
+    /**
+     * 按用户id顺序分批查询关注该用户的用户id
+     *
+     * @param userId  被关注者用户id
+     * @param afterId 上一批最后的用户id
+     * @param limit   每批数量
+     * @return 关注者用户id列表
+     */
+    public List<Long> findCoverIds(Long userId, Long afterId, Integer limit) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT ufr_user_id_follw FROM users_follow_relation " +
+                "WHERE ufr_user_id_cover = ? AND ufr_user_id_follw > ? ORDER BY ufr_user_id_follw LIMIT ?", Long.class, userId, afterId, limit);
+    }
+
+    /**
+     * 查询仍然存在的用户id并加共享锁, 避免写入提醒时用户被删除, 需要在事务中调用
+     *
+     * @param userIds 用户id列表
+     * @return 存在的用户id, 按用户id排序
+     */
+    public List<Long> findExistingUserIds(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.queryForList("SELECT u_id FROM users WHERE u_id IN (" +
+                String.join(", ", Collections.nCopies(userIds.size(), "?")) + ") ORDER BY u_id LOCK IN SHARE MODE", Long.class, userIds.toArray());
+    }
+
+}
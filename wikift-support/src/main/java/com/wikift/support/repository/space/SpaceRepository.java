@@ -92,4 +92,12 @@ public interface SpaceRepository extends PagingAndSortingRepository<SpaceEntity,
             "WHERE s_id = ?1",
     nativeQuery = true)
     Long findArticleCountById(Long spaceId);
+
+    /**
+     * 查询所有私有空间的id
+     *
+     * @return 私有空间id列表
+     */
+    @Query(value = "SELECT s.id FROM SpaceEntity AS s WHERE s.privated = TRUE")
+    List<Long> findAllPrivatedIds();
 }
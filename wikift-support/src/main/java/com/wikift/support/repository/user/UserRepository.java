@@ -19,6 +19,7 @@ package com.wikift.support.repository.user;
 
 import com.wikift.model.user.UserContributionEntity;
 import com.wikift.model.user.UserEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -31,11 +32,12 @@ import java.util.List;
 public interface UserRepository extends CrudRepository<UserEntity, Long> {
 
     /**
-     * 根据用户名称查找用户
+     * 根据用户名称查找用户, 同时加载用户角色及用户类型
      *
      * @param username 用户名
      * @return 用户信息
      */
+    @EntityGraph(value = "user.detail")
     UserEntity findByUsername(String username);
 
     /**
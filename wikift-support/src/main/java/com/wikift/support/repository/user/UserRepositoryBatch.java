@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.user;
+
+import com.wikift.model.user.UserAuthorityEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserRepositoryBatch <br/>
+ * 描述 : 用户数据库批量操作 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Repository
+public class UserRepositoryBatch {
+
+    // LDAP用户的用户类型
+    public static final Long USER_TYPE_LDAP = 2L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 逐行读取所有关注关系, 不在内存中保存查询结果
+     *
+     * @param handler 每行调用一次, 第一列为关注者用户id, 第二列为被关注者用户id
+     */
+    public void findAllFollows(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT ufr_user_id_follw, ufr_user_id_cover FROM users_follow_relation", handler);
+    }
+
+    /**
+     * 根据用户名批量查询用户id及邮箱
+     *
+     * @param usernames 用户名列表
+     * @return 用户id(u_id), 用户名(u_username)及邮箱(u_email)
+     */
+    public List<Map<String, Object>> findAllByUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.queryForList("SELECT u_id, u_username, u_email FROM users WHERE u_username IN (" +
+                String.join(", ", Collections.nCopies(usernames.size(), "?")) + ")", usernames.toArray());
+    }
+
+    /**
+     * 批量创建用户, 不设置密码
+     *
+     * @param users 用户名及邮箱, 每项为 {用户名, 邮箱}
+     */
+    public void batchInsert(List<String[]> users) {
+        jdbcTemplate.batchUpdate("INSERT INTO users(u_username, u_email, u_active, u_lock) VALUES(?, ?, FALSE, FALSE)", users, users.size(),
+                (statement, user) -> {
+                    statement.setString(1, user[0]);
+                    statement.setString(2, user[1]);
+                });
+    }
+
+    /**
+     * 批量设置用户角色及用户类型
+     *
+     * @param userIds 用户id列表
+     * @param roleId  角色id
+     * @param typeId  用户类型id
+     */
+    public void batchInsertRoleAndType(List<Long> userIds, Long roleId, Long typeId) {
+        jdbcTemplate.batchUpdate("INSERT INTO users_role_relation(urr_user_id, urr_role_id) VALUES(?, ?)", userIds, userIds.size(),
+                (statement, userId) -> {
+                    statement.setLong(1, userId);
+                    statement.setLong(2, roleId);
+                });
+        jdbcTemplate.batchUpdate("INSERT INTO users_type_relation(utr_users_id, utr_users_type_id) VALUES(?, ?)", userIds, userIds.size(),
+                (statement, userId) -> {
+                    statement.setLong(1, userId);
+                    statement.setLong(2, typeId);
+                });
+    }
+
+    /**
+     * 批量更新用户邮箱
+     *
+     * @param emails 用户id及邮箱
+     */
+    public void batchUpdateEmail(Map<Long, String> emails) {
+        List<Map.Entry<Long, String>> entries = new ArrayList<>(emails.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE users SET u_email = ? WHERE u_id = ?", entries, entries.size(),
+                (statement, entry) -> {
+                    statement.setString(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                });
+    }
+
+    /**
+     * 查询LDAP同步的修改标记
+     *
+     * @param key 同步类型
+     * @return 上次同步的最大修改标记, 未同步过时返回null
+     */
+    public String findLdapSyncMark(String key) {
+        List<String> marks = jdbcTemplate.queryForList("SELECT lss_value FROM ldap_sync_state WHERE lss_key = ?", String.class, key);
+        return marks.isEmpty() ? null : marks.get(0);
+    }
+
+    /**
+     * 保存LDAP同步的修改标记
+     *
+     * @param key   同步类型
+     * @param value 本次同步的最大修改标记
+     */
+    public void saveLdapSyncMark(String key, String value) {
+        jdbcTemplate.update("INSERT INTO ldap_sync_state(lss_key, lss_value) VALUES(?, ?) " +
+                "ON DUPLICATE KEY UPDATE lss_value = VALUES(lss_value)", key, value);
+    }
+
+    /**
+     * 根据用户名查询用户认证信息, 只查询用户及角色名称
+     *
+     * @param username 用户名
+     * @return 用户认证信息, 用户不存在时返回null
+     */
+    public UserAuthorityEntity findAuthorityByUsername(String username) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT u.u_id, u.u_username, u.u_password, r.r_name FROM users AS u " +
+                "LEFT OUTER JOIN users_role_relation AS urr ON urr.urr_user_id = u.u_id " +
+                "LEFT OUTER JOIN role AS r ON r.r_id = urr.urr_role_id " +
+                "WHERE u.u_username = ? ORDER BY u.u_id", username);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> first = rows.get(0);
+        Long userId = ((Number) first.get("u_id")).longValue();
+        List<String> roles = new ArrayList<>();
+        rows.stream()
+                .filter(row -> userId.equals(((Number) row.get("u_id")).longValue()) && row.get("r_name") != null)
+                .forEach(row -> roles.add((String) row.get("r_name")));
+        return new UserAuthorityEntity(userId, (String) first.get("u_username"), (String) first.get("u_password"), roles);
+    }
+
+    /**
+     * 根据用户名查询用户是否为LDAP用户
+     *
+     * @param username 用户名
+     * @return 是否为LDAP用户, 用户不存在时返回null
+     */
+    public Boolean isLdapUser(String username) {
+        List<Long> counts = jdbcTemplate.queryForList("SELECT COUNT(utr.utr_users_type_id) FROM users AS u " +
+                "LEFT OUTER JOIN users_type_relation AS utr ON utr.utr_users_id = u.u_id AND utr.utr_users_type_id = ? " +
+                "WHERE u.u_username = ? GROUP BY u.u_id", Long.class, USER_TYPE_LDAP, username);
+        return counts.isEmpty() ? null : counts.get(0) > 0;
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.wikift.common.utils.DeltaUtils;
+import com.wikift.model.article.ArticleHistoryEntity;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ArticleHistoryCodec <br/>
+ * 描述 : 文章修改历史编码, 每隔固定版本数保存一次完整内容作为关键帧, 其余版本只保存相对上一版本的差异,
+ * 还原任意版本最多只需读取一个关键帧间隔内的记录 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Component
+public class ArticleHistoryCodec {
+
+    public static final int TYPE_KEYFRAME = 0;
+    public static final int TYPE_DELTA = 1;
+
+    // 差异超过完整内容的该比例时直接保存关键帧
+    private static final double MAX_DELTA_RATIO = 0.5;
+
+    @Resource
+    private Environment environment;
+
+    private int keyframeInterval;
+
+    @PostConstruct
+    public void init() {
+        keyframeInterval = Math.max(1, Integer.valueOf(environment.getProperty("wikift.article.history.keyframe-interval", "20")));
+    }
+
+    /**
+     * 编码修改历史, 调用前修改历史中为完整内容, 调用后为实际存储的内容
+     *
+     * @param previous        上一版本修改历史, 不存在时为null
+     * @param previousContent 上一版本完整内容
+     * @param entity          当前版本修改历史
+     */
+    public void encode(ArticleHistoryEntity previous, String previousContent, ArticleHistoryEntity entity) {
+        String content = entity.getContent();
+        entity.setSize(content.length());
+        if (previous != null && previous.getChain() + 1 < keyframeInterval) {
+            String delta = DeltaUtils.encode(previousContent, content);
+            if (delta.length() < content.length() * MAX_DELTA_RATIO) {
+                entity.setType(TYPE_DELTA);
+                entity.setBaseId(previous.getType() == TYPE_KEYFRAME ? previous.getId() : previous.getBaseId());
+                entity.setChain(previous.getChain() + 1);
+                entity.setContent(delta);
+                return;
+            }
+        }
+        entity.setType(TYPE_KEYFRAME);
+        entity.setBaseId(null);
+        entity.setChain(0);
+    }
+
+    /**
+     * 还原版本链中最后一个版本的完整内容
+     *
+     * @param chain 从关键帧开始按版本先后排序的修改历史
+     * @return 完整内容
+     */
+    public String decode(List<ArticleHistoryEntity> chain) {
+        List<String> contents = decodeAll(chain);
+        return contents.get(contents.size() - 1);
+    }
+
+    /**
+     * 依次还原每个版本的完整内容
+     *
+     * @param entities 从关键帧开始按版本先后排序的修改历史
+     * @return 与修改历史一一对应的完整内容
+     */
+    public List<String> decodeAll(List<ArticleHistoryEntity> entities) {
+        List<String> contents = new ArrayList<>(entities.size());
+        String content = null;
+        for (ArticleHistoryEntity entity : entities) {
+            if (entity.getType() == TYPE_KEYFRAME) {
+                content = entity.getContent();
+            } else if (content == null) {
+                throw new IllegalStateException("article history " + entity.getId() + " missing keyframe");
+            } else {
+                content = DeltaUtils.decode(content, entity.getContent());
+            }
+            contents.add(content);
+        }
+        return contents;
+    }
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.wikift.model.article.ArticleHistoryEntity;
+import com.wikift.support.repository.article.ArticleHistoryRepositoryBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ArticleHistoryCompactor <br/>
+ * 描述 : 将升级前以完整内容保存的文章修改历史原地转换为关键帧及差异, 按文章分批处理, 每篇文章单独提交,
+ * 中断后再次执行会从未转换的文章继续 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "articleHistoryCompactor")
+public class ArticleHistoryCompactor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArticleHistoryCompactor.class);
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private ArticleHistoryRepositoryBatch articleHistoryRepositoryBatch;
+
+    @Autowired
+    private ArticleHistoryCodec articleHistoryCodec;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // 最近一次转换的统计信息
+    private volatile long articles;
+    private volatile long rows;
+    private volatile long keyframes;
+    private volatile long deltas;
+    private volatile long bytesBefore;
+    private volatile long bytesAfter;
+    private volatile long lastArticleId;
+    private volatile long startTime;
+    private volatile long finishTime;
+    private volatile String error;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        chunkSize = Math.max(1, Integer.valueOf(environment.getProperty("wikift.article.history.compact.chunk-size", "100")));
+    }
+
+    /**
+     * 在异步线程中转换所有未压缩的修改历史, 已在执行时直接返回
+     */
+    @Async
+    public void compact() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        articles = rows = keyframes = deltas = bytesBefore = bytesAfter = lastArticleId = 0;
+        startTime = System.currentTimeMillis();
+        finishTime = 0;
+        error = null;
+        try {
+            List<Long> articleIds;
+            do {
+                articleIds = articleHistoryRepositoryBatch.findUncompactedArticleIds(lastArticleId, chunkSize);
+                for (Long articleId : articleIds) {
+                    transactionTemplate.execute(status -> {
+                        compactArticle(articleId);
+                        return null;
+                    });
+                    lastArticleId = articleId;
+                    articles++;
+                }
+            } while (articleIds.size() == chunkSize);
+            LOGGER.info("compact article history finished, articles {}, rows {}, saved {} bytes", articles, rows, bytesBefore - bytesAfter);
+        } catch (Exception e) {
+            error = e.getMessage();
+            LOGGER.error("compact article history failed after article {}", lastArticleId, e);
+        } finally {
+            finishTime = System.currentTimeMillis();
+            running.set(false);
+        }
+    }
+
+    /**
+     * 重新编码文章的整个版本链, 已转换的版本会先还原为完整内容后一并重新编码
+     */
+    private void compactArticle(Long articleId) {
+        articleHistoryRepositoryBatch.lockArticle(articleId);
+        List<ArticleHistoryEntity> entities = articleHistoryRepositoryBatch.findAllByArticle(articleId);
+        List<String> contents = articleHistoryCodec.decodeAll(entities);
+        ArticleHistoryEntity previous = null;
+        String previousContent = null;
+        long before = 0, after = 0, keyframeCount = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            ArticleHistoryEntity entity = entities.get(i);
+            before += entity.getContent().getBytes(StandardCharsets.UTF_8).length;
+            entity.setContent(contents.get(i));
+            articleHistoryCodec.encode(previous, previousContent, entity);
+            after += entity.getContent().getBytes(StandardCharsets.UTF_8).length;
+            if (entity.getType() == ArticleHistoryCodec.TYPE_KEYFRAME) {
+                keyframeCount++;
+            }
+            previous = entity;
+            previousContent = contents.get(i);
+        }
+        articleHistoryRepositoryBatch.batchUpdateContent(entities);
+        rows += entities.size();
+        keyframes += keyframeCount;
+        deltas += entities.size() - keyframeCount;
+        bytesBefore += before;
+        bytesAfter += after;
+    }
+
+    /**
+     * 获取最近一次转换的报告
+     *
+     * @return 转换报告
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("running", running.get());
+        report.put("articles", articles);
+        report.put("rows", rows);
+        report.put("keyframes", keyframes);
+        report.put("deltas", deltas);
+        report.put("bytesBefore", bytesBefore);
+        report.put("bytesAfter", bytesAfter);
+        report.put("bytesSaved", bytesBefore - bytesAfter);
+        report.put("savedPercent", bytesBefore == 0 ? 0 : (bytesBefore - bytesAfter) * 100.0 / bytesBefore);
+        report.put("lastArticleId", lastArticleId);
+        report.put("startTime", startTime);
+        report.put("finishTime", finishTime);
+        report.put("error", error);
+        return report;
+    }
+
+}
@@ -2,6 +2,9 @@ package com.wikift.support.service.article;
 
 import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.article.ArticleHistoryEntity;
+import com.wikift.model.article.ArticleHistorySummaryEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -11,6 +14,15 @@ public interface ArticleHistoryService {
 
     List<ArticleHistoryEntity> getByArticle(ArticleEntity entity);
 
+    /**
+     * 分页查询文章修改历史, 只返回版本, 作者, 修改时间及内容长度变化
+     *
+     * @param articleId 文章id
+     * @param pageable  分页信息
+     * @return 修改历史列表
+     */
+    Page<ArticleHistorySummaryEntity> getAllByArticle(Long articleId, Pageable pageable);
+
     ArticleHistoryEntity getByVersionAndArticleId(String version, Long articleId);
 
     ArticleEntity restoreVersion(String version, Long articleId);
@@ -1,14 +1,26 @@
 package com.wikift.support.service.article;
 
+import com.wikift.common.utils.ExcerptUtils;
 import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.article.ArticleHistoryEntity;
+import com.wikift.model.article.ArticleHistorySummaryEntity;
 import com.wikift.support.repository.article.ArticleHistoryRepository;
+import com.wikift.support.repository.article.ArticleHistoryRepositoryBatch;
+import com.wikift.support.repository.article.ArticleHistorySummaryRepository;
 import com.wikift.support.repository.article.ArticleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service(value = "articleHistoryService")
 public class ArticleHistoryServiceImpl implements ArticleHistoryService {
@@ -16,32 +28,85 @@ public class ArticleHistoryServiceImpl implements ArticleHistoryService {
     @Autowired
     private ArticleHistoryRepository articleHistoryRepository;
 
+    @Autowired
+    private ArticleHistorySummaryRepository articleHistorySummaryRepository;
+
+    @Autowired
+    private ArticleHistoryRepositoryBatch articleHistoryRepositoryBatch;
+
+    @Autowired
+    private ArticleHistoryCodec articleHistoryCodec;
+
     @Autowired
     private ArticleRepository articleRepository;
 
+    @Autowired
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Autowired
+    private ArticleTreeCache articleTreeCache;
+
     @Override
+    @Transactional
     public ArticleHistoryEntity save(ArticleHistoryEntity entity) {
+        Long articleId = entity.getArticle().getId();
+        articleHistoryRepositoryBatch.lockArticle(articleId);
+        // 调用方在加锁前可能已经读取过数据, 上一版本及其版本链需要使用当前读
+        ArticleHistoryEntity previous = articleHistoryRepositoryBatch.findLatest(articleId);
+        String previousContent = null;
+        if (previous != null) {
+            previousContent = reconstruct(previous, true);
+        }
+        articleHistoryCodec.encode(previous, previousContent, entity);
         return articleHistoryRepository.save(entity);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ArticleHistoryEntity> getByArticle(ArticleEntity entity) {
-        return articleHistoryRepository.findByArticle(entity);
+        List<ArticleHistoryEntity> entities = new ArrayList<>(articleHistoryRepository.findByArticle(entity));
+        entities.sort(Comparator.comparing(ArticleHistoryEntity::getId));
+        // 按版本顺序依次还原完整内容
+        List<ArticleHistoryEntity> chain = articleHistoryRepositoryBatch.findAllByArticle(entity.getId());
+        List<String> contents = articleHistoryCodec.decodeAll(chain);
+        Map<Long, String> contentMap = new HashMap<>();
+        for (int i = 0; i < chain.size(); i++) {
+            contentMap.put(chain.get(i).getId(), contents.get(i));
+        }
+        List<ArticleHistoryEntity> histories = new ArrayList<>(entities.size());
+        entities.forEach(history -> histories.add(copyOf(history, contentMap.get(history.getId()))));
+        return histories;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Page<ArticleHistorySummaryEntity> getAllByArticle(Long articleId, Pageable pageable) {
+        return articleHistorySummaryRepository.findAllByArticle(articleId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ArticleHistoryEntity getByVersionAndArticleId(String version, Long articleId) {
         ArticleEntity entity = new ArticleEntity();
         entity.setId(articleId);
-        return articleHistoryRepository.findByVersionAndArticle(version, entity);
+        ArticleHistoryEntity history = articleHistoryRepository.findByVersionAndArticle(version, entity);
+        if (ObjectUtils.isEmpty(history)) {
+            return null;
+        }
+        return copyOf(history, reconstruct(history, false));
     }
 
     @Override
+    @Transactional
     public ArticleEntity restoreVersion(String version, Long articleId) {
         ArticleEntity entity = articleRepository.findById(articleId);
         ArticleHistoryEntity historyEntity = this.getByVersionAndArticleId(version, articleId);
         entity.setContent(historyEntity.getContent());
         articleRepository.save(entity);
+        // 与更新文章一致, 同步摘要, 检索索引及导航树缓存
+        articleRepository.updateExcerpt(articleId, ExcerptUtils.excerpt(entity.getContent()));
+        articleSearchIndex.index(entity);
+        articleTreeCache.put(entity);
         ArticleHistoryEntity restoreHistory = new ArticleHistoryEntity();
         // 保存还原历史
         restoreHistory.setId(0L);
@@ -49,7 +114,40 @@ public class ArticleHistoryServiceImpl implements ArticleHistoryService {
         restoreHistory.setUser(entity.getUser());
         restoreHistory.setArticle(entity);
         restoreHistory.setVersion(String.valueOf(new Date().getTime()));
-        articleHistoryRepository.save(restoreHistory);
+        this.save(restoreHistory);
+        return entity;
+    }
+
+    /**
+     * 还原修改历史的完整内容, 差异版本从所属关键帧开始依次应用差异
+     *
+     * @param history 修改历史
+     * @param current 是否使用当前读读取版本链
+     * @return 完整内容
+     */
+    private String reconstruct(ArticleHistoryEntity history, boolean current) {
+        if (history.getType() == null || history.getType() == ArticleHistoryCodec.TYPE_KEYFRAME) {
+            return history.getContent();
+        }
+        Long articleId = history.getArticle().getId();
+        List<ArticleHistoryEntity> chain = current
+                ? articleHistoryRepositoryBatch.findRangeForUpdate(articleId, history.getBaseId(), history.getId())
+                : articleHistoryRepositoryBatch.findRange(articleId, history.getBaseId(), history.getId());
+        return articleHistoryCodec.decode(chain);
+    }
+
+    /**
+     * 复制修改历史并填充完整内容, 避免修改持久化状态的实体导致差异被完整内容覆盖
+     */
+    private ArticleHistoryEntity copyOf(ArticleHistoryEntity history, String content) {
+        ArticleHistoryEntity entity = new ArticleHistoryEntity();
+        entity.setId(history.getId());
+        entity.setVersion(history.getVersion());
+        entity.setContent(content);
+        entity.setSize(history.getSize());
+        entity.setCreateTime(history.getCreateTime());
+        entity.setUser(history.getUser());
+        entity.setArticle(history.getArticle());
         return entity;
     }
 
@@ -0,0 +1,284 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.wikift.common.search.CJKTokenizer;
+import com.wikift.common.search.InvertedIndex;
+import com.wikift.common.search.SearchDocument;
+import com.wikift.common.search.SearchResult;
+import com.wikift.common.utils.TransactionUtils;
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleSummaryEntity;
+import com.wikift.support.repository.article.ArticleRepositoryBatch;
+import com.wikift.support.repository.article.ArticleRepositorySenior;
+import com.wikift.support.repository.space.SpaceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * ArticleSearchIndex <br/>
+ * 描述 : 文章全文检索索引, 随文章保存, 更新, 删除增量维护, 分段持久化到本地磁盘, 启动时并行重建 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "articleSearchIndex")
+public class ArticleSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArticleSearchIndex.class);
+
+    public static final String FILTER_TAG = "tag";
+    public static final String FILTER_SPACE = "space";
+    public static final String FILTER_USER = "user";
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private ArticleRepositoryBatch articleRepositoryBatch;
+
+    @Autowired
+    private ArticleRepositorySenior articleRepositorySenior;
+
+    @Autowired
+    private SpaceRepository spaceRepository;
+
+    private InvertedIndex index;
+
+    private Path indexPath;
+
+    private boolean enable;
+
+    // 索引已加载或重建完成后才提供检索
+    private volatile boolean ready;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile long lastRebuildTime;
+    private volatile long lastRebuildMillis;
+    private volatile long lastPersistTime;
+
+    @PostConstruct
+    public void init() {
+        enable = Boolean.valueOf(environment.getProperty("wikift.search.index.enable", "true"));
+        indexPath = Paths.get(environment.getProperty("wikift.search.index.path", System.getProperty("user.home") + "/.wikift/index"));
+        index = new InvertedIndex(new CJKTokenizer(), environment.getProperty("wikift.search.index.segments", Integer.class, 8));
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (!enable || !started.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ready = index.load(indexPath);
+        } catch (IOException e) {
+            LOGGER.warn("load search index from {} failed, index will be rebuilt", indexPath, e);
+        }
+        // 已加载的磁盘索引可立即提供检索, 重建在后台进行, 完成后替换
+        Boolean rebuildOnStartup = Boolean.valueOf(environment.getProperty("wikift.search.index.rebuild-on-startup", "true"));
+        if (rebuildOnStartup || !ready) {
+            Thread thread = new Thread(this::rebuild, "wikift-search-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public boolean isReady() {
+        return enable && ready;
+    }
+
+    /**
+     * 添加或更新文章索引, 存在事务时在事务提交后执行
+     *
+     * @param entity 文章信息
+     */
+    public void index(ArticleEntity entity) {
+        if (!enable || ObjectUtils.isEmpty(entity) || ObjectUtils.isEmpty(entity.getId())) {
+            return;
+        }
+        // 不属于任何空间的文章不参与检索
+        if (ObjectUtils.isEmpty(entity.getSpace())) {
+            TransactionUtils.afterCommit(() -> index.remove(entity.getId()));
+            return;
+        }
+        SearchDocument document = toDocument(entity);
+        TransactionUtils.afterCommit(() -> index.put(document));
+    }
+
+    /**
+     * 删除文章索引, 存在事务时在事务提交后执行
+     *
+     * @param id 文章id
+     */
+    public void remove(Long id) {
+        if (!enable || ObjectUtils.isEmpty(id)) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> index.remove(id));
+    }
+
+    /**
+     * 检索文章, 标签, 空间, 用户条件作为倒排列表参与求交, 私有空间的文章被排除
+     *
+     * @param tagId    标签id
+     * @param keyword  关键字, 匹配标题及内容
+     * @param spaceId  空间id
+     * @param userId   用户id
+     * @param pageable 分页信息
+     * @return 按相关度排序的文章列表
+     */
+    public Page<ArticleSummaryEntity> search(Long tagId, String keyword, Long spaceId, Long userId, Pageable pageable) {
+        List<String> mustFilters = new ArrayList<>();
+        if (!ObjectUtils.isEmpty(tagId) && tagId > 0) {
+            mustFilters.add(SearchDocument.filter(FILTER_TAG, tagId));
+        }
+        if (!ObjectUtils.isEmpty(spaceId) && spaceId > 0) {
+            mustFilters.add(SearchDocument.filter(FILTER_SPACE, spaceId));
+        }
+        if (!ObjectUtils.isEmpty(userId) && userId > 0) {
+            mustFilters.add(SearchDocument.filter(FILTER_USER, userId));
+        }
+        // 空间的公开状态可能随时变化, 检索时实时排除私有空间
+        List<String> excludeFilters = spaceRepository.findAllPrivatedIds().stream()
+                .map(id -> SearchDocument.filter(FILTER_SPACE, id))
+                .collect(Collectors.toList());
+        SearchResult result = index.search(keyword, mustFilters, excludeFilters, pageable.getOffset(), pageable.getPageSize());
+        List<Long> ids = result.getHits().stream().map(SearchResult.Hit::getId).collect(Collectors.toList());
+        return new PageImpl<>(articleRepositorySenior.findAllByIds(ids), pageable, result.getTotal());
+    }
+
+    /**
+     * 从数据库并行重建索引, 重建期间原索引继续提供检索
+     *
+     * @return 是否重建成功, 正在重建时返回false
+     */
+    public boolean rebuild() {
+        if (!enable || !rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        int threads = environment.getProperty("wikift.search.index.rebuild-threads", Integer.class, Runtime.getRuntime().availableProcessors());
+        long batchSize = environment.getProperty("wikift.search.index.rebuild-batch-size", Long.class, 500L);
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wikift-search-rebuild-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        InvertedIndex.Rebuild rebuild = index.startRebuild();
+        try {
+            Long maxId = articleRepositoryBatch.findMaxArticleId();
+            List<Future<?>> futures = new ArrayList<>();
+            for (long fromId = 0; !ObjectUtils.isEmpty(maxId) && fromId <= maxId; fromId += batchSize) {
+                long from = fromId;
+                futures.add(executor.submit(() -> articleRepositoryBatch.findAllForIndex(from, from + batchSize).stream()
+                        .filter(entity -> !ObjectUtils.isEmpty(entity.getSpace()))
+                        .forEach(entity -> rebuild.put(toDocument(entity)))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            rebuild.commit();
+            ready = true;
+            lastRebuildTime = System.currentTimeMillis();
+            lastRebuildMillis = lastRebuildTime - start;
+            LOGGER.info("search index rebuilt, {} articles in {} ms", index.size(), lastRebuildMillis);
+            persist();
+            return true;
+        } catch (Exception e) {
+            rebuild.abort();
+            LOGGER.error("rebuild search index failed", e);
+            return false;
+        } finally {
+            executor.shutdownNow();
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 索引有变更时将分段写入磁盘
+     */
+    public void persist() {
+        if (!enable || !ready || !index.isModified()) {
+            return;
+        }
+        try {
+            index.persist(indexPath);
+            lastPersistTime = System.currentTimeMillis();
+        } catch (IOException e) {
+            LOGGER.error("persist search index to {} failed", indexPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        persist();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enable", enable);
+        metrics.put("ready", ready);
+        metrics.put("rebuilding", rebuilding.get());
+        metrics.put("documents", index.size());
+        metrics.put("lastRebuildTime", lastRebuildTime);
+        metrics.put("lastRebuildMillis", lastRebuildMillis);
+        metrics.put("lastPersistTime", lastPersistTime);
+        return metrics;
+    }
+
+    private SearchDocument toDocument(ArticleEntity entity) {
+        SearchDocument document = new SearchDocument(entity.getId(), entity.getTitle(), entity.getContent());
+        document.addFilter(FILTER_SPACE, entity.getSpace().getId());
+        if (!ObjectUtils.isEmpty(entity.getUser())) {
+            document.addFilter(FILTER_USER, entity.getUser().getId());
+        }
+        if (!ObjectUtils.isEmpty(entity.getArticleTags())) {
+            entity.getArticleTags().forEach(tag -> document.addFilter(FILTER_TAG, tag.getId()));
+        }
+        return document;
+    }
+
+}
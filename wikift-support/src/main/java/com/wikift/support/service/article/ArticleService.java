@@ -1,9 +1,12 @@
 package com.wikift.support.service.article;
 
+import com.wikift.common.tree.TreeModelSupport;
 import com.wikift.model.enums.OrderEnums;
 import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleSummaryEntity;
 import com.wikift.model.counter.CounterEntity;
 import com.wikift.model.result.CommonResult;
+import com.wikift.model.result.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -28,11 +31,21 @@ public interface ArticleService {
     ArticleEntity update(ArticleEntity entity);
 
     /**
-     * 查询所有文章
+     * 查询所有文章, 只返回文章摘要信息
      *
      * @return 文章列表
      */
-    Page<ArticleEntity> findAll(OrderEnums order, Pageable pageable);
+    Page<ArticleSummaryEntity> findAll(OrderEnums order, Pageable pageable);
+
+    /**
+     * 根据游标查询所有文章, 查询耗时与翻页深度无关
+     *
+     * @param order  排序方式
+     * @param cursor 上一页返回的游标, 为空时查询第一页
+     * @param size   每页数据条数
+     * @return 文章列表及下一页游标
+     */
+    CursorPage<ArticleSummaryEntity> findAll(OrderEnums order, String cursor, Integer size);
 
     /**
      * 根据空间查询当前空间所有文章列表
@@ -43,18 +56,43 @@ public interface ArticleService {
      */
     CommonResult getAllArticleBySpace(String code, Pageable pageable);
 
-    Page<ArticleEntity> getMyArticles(Long userId, Pageable pageable);
+    /**
+     * 懒加载空间导航树, 查询父节点下指定层级内的文章
+     *
+     * @param spaceId 空间id
+     * @param parent  父节点id, -1为空间根节点
+     * @param depth   查询的层级数
+     * @return 树形结构数据
+     */
+    List<TreeModelSupport> getChildren(Long spaceId, Long parent, Integer depth);
 
-    Page<ArticleEntity> getAllByTagAndCreateTime(Long tagId, Pageable pageable);
+    /**
+     * 存在未生成层级路径的文章时, 根据父节点重建所有文章的层级路径
+     *
+     * @return 重建的文章数量
+     */
+    Integer rebuildTreePaths();
+
+    Page<ArticleSummaryEntity> getMyArticles(Long userId, Pageable pageable);
+
+    Page<ArticleSummaryEntity> getAllByTagAndCreateTime(Long tagId, Pageable pageable);
 
     /**
-     * 根据文章ID查询文章信息
+     * 根据文章ID查询文章信息, 只读操作, 不记录浏览量
      *
      * @param id 文章ID
      * @return 文章信息
      */
     ArticleEntity getArticle(Long id);
 
+    /**
+     * 根据文章ID查询文章及文章作者, 不加载文章其他关联信息
+     *
+     * @param id 文章ID
+     * @return 文章信息
+     */
+    ArticleEntity getArticleOwner(Long id);
+
     /**
      * 删除文章
      *
@@ -93,8 +131,25 @@ public interface ArticleService {
 
     ArticleEntity getArticleInfoById(Long id);
 
+    /**
+     * 根据浏览, 点赞, 评论明细重建文章统计信息
+     *
+     * @return 重建的数据条数
+     */
+    Integer rebuildStats();
+
     List<CounterEntity> getArticleViewByCreateTimeAndTop7(Long articleId);
 
-    Page<ArticleEntity> search(Long tagId, String articleTitle, Long spaceId, Long userId, Pageable pageable);
+    /**
+     * 检索文章, 存在关键字时按相关度匹配标题及内容
+     *
+     * @param tagId        标签id
+     * @param articleTitle 关键字
+     * @param spaceId      空间id
+     * @param userId       用户id
+     * @param pageable     分页信息
+     * @return 文章列表
+     */
+    Page<ArticleSummaryEntity> search(Long tagId, String articleTitle, Long spaceId, Long userId, Pageable pageable);
 
 }
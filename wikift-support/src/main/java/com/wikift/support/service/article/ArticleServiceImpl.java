@@ -18,29 +18,38 @@
 package com.wikift.support.service.article;
 
 import com.wikift.common.tree.TreeModelSupport;
+import com.wikift.common.tree.TreeUtils;
+import com.wikift.common.utils.CursorUtils;
+import com.wikift.common.utils.ExcerptUtils;
 import com.wikift.common.utils.ValidateUtils;
 import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.article.ArticleHistoryEntity;
+import com.wikift.model.article.ArticleSummaryEntity;
 import com.wikift.model.counter.CounterEntity;
 import com.wikift.model.enums.MessageEnums;
 import com.wikift.model.enums.OrderEnums;
 import com.wikift.model.result.CommonResult;
+import com.wikift.model.result.CursorPage;
 import com.wikift.model.space.SpaceEntity;
-import com.wikift.support.repository.article.ArticleHistoryRepository;
 import com.wikift.support.repository.article.ArticleRepository;
 import com.wikift.support.repository.article.ArticleRepositorySenior;
+import com.wikift.support.repository.article.ArticleSummaryRepository;
+import com.wikift.support.repository.article.ArticleTreeRepository;
 import com.wikift.support.service.space.SpaceService;
-import org.apache.commons.collections4.IterableUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service(value = "articleService")
 public class ArticleServiceImpl implements ArticleService {
@@ -49,44 +58,123 @@ public class ArticleServiceImpl implements ArticleService {
     private ArticleRepository repository;
 
     @Autowired
-    private ArticleHistoryRepository articleHistoryRepository;
+    private ArticleSummaryRepository summaryRepository;
+
+    @Autowired
+    private ArticleHistoryService articleHistoryService;
 
     @Autowired
     private SpaceService spaceService;
 
+    @Autowired
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Autowired
+    private ArticleTreeCache articleTreeCache;
+
+    @Autowired
+    private ArticleTagIndex articleTagIndex;
+
+    @Autowired
+    private ArticleTreeRepository articleTreeRepository;
+
     @Override
+    @Transactional
     public ArticleEntity save(ArticleEntity entity) {
-        return repository.save(entity);
+        ArticleEntity article = repository.save(entity);
+        // 生成文章列表使用的摘要
+        repository.updateExcerpt(article.getId(), ExcerptUtils.excerpt(article.getContent()));
+        // 初始化文章统计信息
+        repository.initStats(article.getId());
+        // 生成文章层级路径
+        articleTreeRepository.initPath(article.getId(), article.getParent());
+        articleSearchIndex.index(article);
+        articleTreeCache.put(article);
+        articleTagIndex.refreshAfterCommit();
+        return article;
     }
 
     @Override
+    @Transactional
     public ArticleEntity update(ArticleEntity entity) {
         ArticleHistoryEntity historyEntity = new ArticleHistoryEntity();
         ArticleEntity source = this.getArticle(entity.getId());
+        Long sourceParent = source.getParent();
+        boolean moved = !Objects.equals(sourceParent, entity.getParent());
+        if (moved) {
+            Assert.isTrue(!articleTreeRepository.isInSubtree(entity.getId(), entity.getParent()),
+                    MessageEnums.ARTICLE_PARENT_INVALID.getValue());
+        }
         historyEntity.setId(0L);
         historyEntity.setContent(source.getContent());
         historyEntity.setUser(entity.getUser());
         historyEntity.setArticle(source);
         historyEntity.setVersion(String.valueOf(new Date().getTime()));
-        // 存储文章的修改历史
-        articleHistoryRepository.save(historyEntity);
-        return repository.save(entity);
+        // 存储文章的修改历史, 按关键帧间隔保存完整内容或差异
+        articleHistoryService.save(historyEntity);
+        ArticleEntity article = repository.save(entity);
+        repository.updateExcerpt(article.getId(), ExcerptUtils.excerpt(article.getContent()));
+        if (moved) {
+            // 父节点变化时一次更新整个子树的层级路径
+            articleTreeRepository.move(article.getId(), article.getParent());
+        }
+        articleSearchIndex.index(article);
+        articleTreeCache.put(article);
+        articleTagIndex.refreshAfterCommit();
+        return article;
     }
 
     @Override
-    public Page<ArticleEntity> findAll(OrderEnums order, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Page<ArticleSummaryEntity> findAll(OrderEnums order, Pageable pageable) {
         switch (order) {
             case VIEW:
-                return repository.findAllOrderByViewCount(pageable);
+                return summaryRepository.findAllOrderByViewCount(pageable);
             case FABULOU:
-                return repository.findAllOrderByFabulouCount(pageable);
+                return summaryRepository.findAllOrderByFabulouCount(pageable);
             case NATIVE_CREATE_TIME:
             default:
-                return repository.findAllOrderByCreateTime(pageable);
+                return summaryRepository.findAllOrderByCreateTime(pageable);
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ArticleSummaryEntity> findAll(OrderEnums order, String cursor, Integer size) {
+        return CursorUtils.query(order, cursor, size, (current, limit) -> {
+            switch (order) {
+                case VIEW:
+                    return summaryRepository.findAllOrderByViewCountAfter(current.getSortKey(), current.getId(), limit);
+                case FABULOU:
+                    return summaryRepository.findAllOrderByFabulouCountAfter(current.getSortKey(), current.getId(), limit);
+                case NATIVE_CREATE_TIME:
+                default:
+                    return summaryRepository.findAllOrderByCreateTimeAfter(new Date(current.getSortKey()), current.getId(), limit);
+            }
+        }, entity -> getSortKey(order, entity), ArticleSummaryEntity::getId);
+    }
+
+    /**
+     * 获取文章在当前排序方式下的排序键
+     *
+     * @param order  排序方式
+     * @param entity 文章信息
+     * @return 排序键
+     */
+    private Long getSortKey(OrderEnums order, ArticleSummaryEntity entity) {
+        switch (order) {
+            case VIEW:
+                return ObjectUtils.isEmpty(entity.getViewCount()) ? 0L : entity.getViewCount().longValue();
+            case FABULOU:
+                return ObjectUtils.isEmpty(entity.getFabulouCount()) ? 0L : entity.getFabulouCount().longValue();
+            case NATIVE_CREATE_TIME:
+            default:
+                return entity.getCreateTime().getTime();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public CommonResult getAllArticleBySpace(String code, Pageable pageable) {
         // 校验传递参数
         CommonResult validate = ValidateUtils.validateEmpty(code, MessageEnums.PARAMS_NOT_NULL);
@@ -99,62 +187,117 @@ public class ArticleServiceImpl implements ArticleService {
         if (validate.getCode() > 0) {
             return validate;
         }
-        // 获取所有数据集合, 封装树形数据
-        List<ArticleEntity> entities = IterableUtils.toList(this.repository.findAllBySpace(space));
-        return CommonResult.success(this.getChildren(-1L, entities));
+        // 只查询文章id, 父节点及标题, 封装树形数据
+        List<Object[]> rows = this.repository.findAllTreeNodeBySpaceId(space.getId());
+        return CommonResult.success(TreeUtils.getChildren(-1L, rows, row -> (Long) row[1], row -> {
+            TreeModelSupport support = new TreeModelSupport();
+            support.setId((Long) row[0]);
+            support.setName((String) row[2]);
+            support.setItem((Long) row[0]);
+            return support;
+        }));
     }
 
     @Override
-    public Page<ArticleEntity> getMyArticles(Long userId, Pageable pageable) {
-        return repository.findAllToUserAndCreateTime(userId, pageable);
+    @Transactional(readOnly = true)
+    public List<TreeModelSupport> getChildren(Long spaceId, Long parent, Integer depth) {
+        List<Map<String, Object>> rows = articleTreeRepository.findChildren(spaceId, parent, depth);
+        return TreeUtils.getChildren(parent, rows, row -> row.get("parent") == null ? null : ((Number) row.get("parent")).longValue(), row -> {
+            TreeModelSupport support = new TreeModelSupport();
+            support.setId(((Number) row.get("a_id")).longValue());
+            support.setName((String) row.get("a_title"));
+            support.setItem(support.getId());
+            support.setLeaf(((Number) row.get("has_children")).intValue() == 0);
+            return support;
+        });
     }
 
     @Override
-    public Page<ArticleEntity> getAllByTagAndCreateTime(Long tagId, Pageable pageable) {
-        return repository.findAllByTagAndCreateTime(tagId, pageable);
+    @Transactional
+    public Integer rebuildTreePaths() {
+        if (articleTreeRepository.countWithoutPath() == 0) {
+            return 0;
+        }
+        return articleTreeRepository.rebuildPaths();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public Page<ArticleSummaryEntity> getMyArticles(Long userId, Pageable pageable) {
+        return summaryRepository.findAllToUserAndCreateTime(userId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ArticleSummaryEntity> getAllByTagAndCreateTime(Long tagId, Pageable pageable) {
+        return summaryRepository.findAllByTagAndCreateTime(tagId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ArticleEntity getArticle(Long id) {
-        // 设置文章浏览量
-        repository.viewArticle(id, 1);
         return repository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ArticleEntity getArticleOwner(Long id) {
+        return repository.findOwnerById(id);
+    }
+
+    @Override
+    @Transactional
     public Long delete(Long id) {
         repository.delete(id);
+        articleSearchIndex.remove(id);
+        articleTreeCache.remove(id);
+        articleTagIndex.refreshAfterCommit();
         return id;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ArticleEntity> findTopByUserEntityAndCreateTime(String username) {
         return repository.findTopByUserEntityAndCreateTime(username);
     }
 
     @Override
+    @Transactional
     public Integer fabulousArticle(Integer userId, Integer articleId) {
-        return repository.fabulousArticle(userId, articleId);
+        Integer status = repository.fabulousArticle(userId, articleId);
+        if (!ObjectUtils.isEmpty(status) && status > 0) {
+            repository.increaseFabulouCount(Long.valueOf(articleId), status);
+        }
+        return status;
     }
 
     @Override
+    @Transactional
     public Integer unFabulousArticle(Integer userId, Integer articleId) {
-        return repository.unFabulousArticle(userId, articleId);
+        Integer status = repository.unFabulousArticle(userId, articleId);
+        if (!ObjectUtils.isEmpty(status) && status > 0) {
+            repository.increaseFabulouCount(Long.valueOf(articleId), -status);
+        }
+        return status;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Integer fabulousArticleExists(Integer userId, Integer articleId) {
         return repository.findFabulousArticleExists(userId, articleId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Integer fabulousArticleCount(Integer articleId) {
         return repository.findFabulousArticleCount(articleId);
     }
 
     @Override
+    @Transactional
     public Integer viewArticle(Integer userId, Integer articleId, Integer viewCount, String viewDevice) {
+        // 同步累加文章浏览量统计
+        repository.increaseViewCount(Long.valueOf(articleId), viewCount);
         // 查询是否当前设备是否存在于数据库中
         Integer deviceViewCount = repository.findViewArticleByDevice(userId, articleId, viewDevice);
         if (!ObjectUtils.isEmpty(deviceViewCount) && deviceViewCount > 0) {
@@ -166,16 +309,25 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Integer viewArticleCount(Integer userId, Integer articleId) {
         return repository.findViewArticle(userId, articleId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ArticleEntity getArticleInfoById(Long id) {
         return repository.findById(id);
     }
 
     @Override
+    @Transactional
+    public Integer rebuildStats() {
+        return repository.rebuildStats();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<CounterEntity> getArticleViewByCreateTimeAndTop7(Long articleId) {
         List<CounterEntity> counters = new ArrayList<>();
         repository.findArticleViewByCreateTimeAndTop7(articleId).forEach(v -> counters.add(new CounterEntity(v[0], v[1])));
@@ -186,43 +338,13 @@ public class ArticleServiceImpl implements ArticleService {
     private ArticleRepositorySenior articleRepositorySenior;
 
     @Override
-    public Page<ArticleEntity> search(Long tagId, String articleTitle, Long spaceId, Long userId, Pageable pageable) {
-        return articleRepositorySenior.search(tagId, articleTitle, spaceId, userId, pageable);
-    }
-
-    /**
-     * 获取子节点数据
-     *
-     * @param id      当前父节点标志
-     * @param entitys 数据集合
-     * @return 树形结构数据
-     */
-    public List<TreeModelSupport> getChildren(Long id, List<ArticleEntity> entitys) {
-        // 子数据存储器
-        List<TreeModelSupport> childrens = new ArrayList<>();
-        for (ArticleEntity entity : entitys) {
-            // 遍历所有节点,将所有数据的父id与传过来的根节点的id比较,或者-1.相等说明: 为该根节点的子节点
-            if (entity.getParent().equals(id)) {
-                TreeModelSupport support = new TreeModelSupport();
-                support.setId(entity.getId());
-                support.setName(entity.getTitle());
-//                TreeModelItemSupport item = TreeModelItemSupport.buildNew();
-//                item.setPhrase(entity.getId());
-//                support.setItem(item);
-                support.setItem(entity.getId());
-                childrens.add(support);
-            }
+    @Transactional(readOnly = true)
+    public Page<ArticleSummaryEntity> search(Long tagId, String articleTitle, Long spaceId, Long userId, Pageable pageable) {
+        // 存在关键字时使用全文索引检索, 索引未就绪时退化为数据库查询
+        if (!StringUtils.isEmpty(articleTitle) && articleSearchIndex.isReady()) {
+            return articleSearchIndex.search(tagId, articleTitle, spaceId, userId, pageable);
         }
-        // 递归遍历数据填充树形结构
-        for (TreeModelSupport support : childrens) {
-            support.setChildren(getChildren(support.getId(), entitys));
-        }
-        // 如果节点下没有子节点,返回一个空List(递归退出),暂时不做任何操作,直接递归退出
-        if (childrens.size() == 0) {
-            return null;
-//            return new ArrayList<>();
-        }
-        return childrens;
+        return articleRepositorySenior.search(tagId, articleTitle, spaceId, userId, pageable);
     }
 
 }
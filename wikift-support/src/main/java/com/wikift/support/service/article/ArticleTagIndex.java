@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.wikift.common.search.CJKTokenizer;
+import com.wikift.common.utils.TransactionUtils;
+import com.wikift.model.article.ArticleTagEntity;
+import com.wikift.support.repository.article.ArticleTagRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * ArticleTagIndex <br/>
+ * 描述 : 标签名称的内存索引, 按规范化名称及分词词项查找标签, 不再每次查询全部标签.
+ * 标签只会新增, 索引按标签id增量加载新标签, 文章保存后及超过刷新间隔时加载 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "articleTagIndex")
+public class ArticleTagIndex {
+
+    private static final CJKTokenizer TOKENIZER = new CJKTokenizer();
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private ArticleTagRepository articleTagRepository;
+
+    private long refreshInterval;
+
+    // 写入时整体替换, 读取不加锁
+    private volatile Snapshot snapshot;
+
+    private volatile long lastRefreshTime;
+
+    @PostConstruct
+    public void init() {
+        refreshInterval = environment.getProperty("wikift.article.tag.index.refresh-interval", Long.class, 60000L);
+    }
+
+    /**
+     * 根据规范化名称查找标签, 未找到时加载新增的标签后再查找一次
+     *
+     * @param name 标签名称
+     * @return 标签信息, 不存在时返回null
+     */
+    public ArticleTagEntity getByName(String name) {
+        if (StringUtils.isEmpty(name)) {
+            return null;
+        }
+        ArticleTagEntity tag = current().find(name);
+        if (tag == null) {
+            tag = refresh().find(name);
+        }
+        return tag;
+    }
+
+    /**
+     * 查找名称包含关键字所有词项的标签
+     *
+     * @param keyword 关键字
+     * @return 标签列表, 按标签id排序
+     */
+    public List<ArticleTagEntity> search(String keyword) {
+        Set<String> terms = new HashSet<>(TOKENIZER.tokenize(keyword));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Snapshot current = current();
+        // 从最短的倒排列表开始求交集
+        List<Set<Long>> postings = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Set<Long> ids = current.postings.get(term);
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            postings.add(ids);
+        }
+        postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<Long> matched = new TreeSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !matched.isEmpty(); i++) {
+            matched.retainAll(postings.get(i));
+        }
+        List<ArticleTagEntity> tags = new ArrayList<>(matched.size());
+        matched.forEach(id -> tags.add(current.tags.get(id)));
+        return tags;
+    }
+
+    /**
+     * 文章保存后加载新增的标签, 存在事务时在事务提交后执行
+     */
+    public void refreshAfterCommit() {
+        TransactionUtils.afterCommit(this::refresh);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Snapshot current = snapshot;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("tags", current == null ? 0 : current.tags.size());
+        metrics.put("terms", current == null ? 0 : current.postings.size());
+        metrics.put("lastRefreshTime", lastRefreshTime);
+        return metrics;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - lastRefreshTime > refreshInterval) {
+            return refresh();
+        }
+        return current;
+    }
+
+    /**
+     * 加载id大于已加载最大id的标签, 只查询主键范围
+     */
+    private synchronized Snapshot refresh() {
+        Snapshot current = snapshot == null ? new Snapshot() : snapshot;
+        List<ArticleTagEntity> added = articleTagRepository.findAllByIdGreaterThanOrderByIdAsc(current.maxId);
+        lastRefreshTime = System.currentTimeMillis();
+        if (added.isEmpty() && snapshot != null) {
+            return current;
+        }
+        Snapshot next = new Snapshot(current);
+        added.forEach(next::add);
+        snapshot = next;
+        return next;
+    }
+
+    private static String normalize(String name) {
+        return CJKTokenizer.normalize(name.trim());
+    }
+
+    private static class Snapshot {
+
+        private final Map<Long, ArticleTagEntity> tags;
+        private final Map<String, ArticleTagEntity> exactNames;
+        private final Map<String, ArticleTagEntity> names;
+        private final Map<String, Set<Long>> postings;
+        private long maxId;
+
+        Snapshot() {
+            tags = new HashMap<>();
+            exactNames = new HashMap<>();
+            names = new HashMap<>();
+            postings = new HashMap<>();
+        }
+
+        Snapshot(Snapshot source) {
+            tags = new HashMap<>(source.tags);
+            exactNames = new HashMap<>(source.exactNames);
+            names = new HashMap<>(source.names);
+            postings = new HashMap<>(source.postings.size());
+            source.postings.forEach((term, ids) -> postings.put(term, new HashSet<>(ids)));
+            maxId = source.maxId;
+        }
+
+        // 优先匹配名称完全相同的标签, 其次匹配规范化后相同的标签
+        ArticleTagEntity find(String name) {
+            ArticleTagEntity tag = exactNames.get(name);
+            return tag != null ? tag : names.get(normalize(name));
+        }
+
+        void add(ArticleTagEntity tag) {
+            maxId = Math.max(maxId, tag.getId());
+            if (StringUtils.isEmpty(tag.getName())) {
+                return;
+            }
+            tags.put(tag.getId(), tag);
+            exactNames.putIfAbsent(tag.getName(), tag);
+            // 规范化后重名时保留最早的标签
+            names.putIfAbsent(normalize(tag.getName()), tag);
+            for (String term : TOKENIZER.tokenize(tag.getName())) {
+                postings.computeIfAbsent(term, key -> new HashSet<>()).add(tag.getId());
+            }
+        }
+
+    }
+
+}
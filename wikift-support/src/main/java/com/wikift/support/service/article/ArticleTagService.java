@@ -18,6 +18,20 @@ public interface ArticleTagService {
 
     List<CounterEntity> getAllByArticlesCounterAndTop(Long top);
 
+    /**
+     * 根据标签名称查询标签信息, 名称不完全一致时按规范化(全角半角, 大小写)后的名称匹配
+     *
+     * @param name 标签名称
+     * @return 标签信息
+     */
     ArticleTagEntity getByTitle(String name);
 
+    /**
+     * 根据关键字检索标签, 标签名称需包含关键字的所有词项
+     *
+     * @param keyword 关键字
+     * @return 标签列表
+     */
+    List<ArticleTagEntity> search(String keyword);
+
 }
@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,12 +35,17 @@ public class ArticleTagServiceImpl implements ArticleTagService {
     @Autowired
     private ArticleTagRepository articleTagRepository;
 
+    @Autowired
+    private ArticleTagIndex articleTagIndex;
+
     @Override
+    @Transactional(readOnly = true)
     public Page<ArticleTagEntity> findAll(Pageable pageable) {
         return articleTagRepository.findAll(pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CounterEntity> getAllByArticlesCounterAndTop(Long top) {
         List<CounterEntity> counters = new ArrayList<>();
         articleTagRepository.findAllByArticlesCounterAndTop(top).forEach(v -> {
@@ -50,7 +56,12 @@ public class ArticleTagServiceImpl implements ArticleTagService {
 
     @Override
     public ArticleTagEntity getByTitle(String name) {
-        return articleTagRepository.findByName(name);
+        return articleTagIndex.getByName(name);
+    }
+
+    @Override
+    public List<ArticleTagEntity> search(String keyword) {
+        return articleTagIndex.search(keyword);
     }
 
 }
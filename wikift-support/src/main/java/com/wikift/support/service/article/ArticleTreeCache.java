@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wikift.common.tree.TreeModelSupport;
+import com.wikift.common.tree.TreeUtils;
+import com.wikift.common.utils.TransactionUtils;
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.result.CommonResult;
+import com.wikift.model.space.SpaceEntity;
+import com.wikift.support.repository.article.ArticleRepository;
+import com.wikift.support.service.space.SpaceService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ArticleTreeCache <br/>
+ * 描述 : 空间文章导航树缓存, 每个空间缓存文章节点及序列化后的导航树, 文章新增, 删除或修改父节点时
+ * 只修改缓存中对应的节点并更新版本号, 读取导航树时不访问数据库 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "articleTreeCache")
+public class ArticleTreeCache {
+
+    // 根节点的父节点标志
+    private static final Long ROOT = -1L;
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SpaceService spaceService;
+
+    private final ConcurrentHashMap<Long, SpaceTree> trees = new ConcurrentHashMap<>();
+
+    // 空间编码与空间id的对应关系, 空间编码创建后不可修改
+    private final ConcurrentHashMap<String, Long> spaceIds = new ConcurrentHashMap<>();
+
+    // 版本号全局递增, 空间导航树被淘汰后重新加载也不会出现重复的版本号
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    // 文章变更次数, 加载期间发生变更时不缓存加载结果, 避免缓存旧数据
+    private final AtomicLong modifications = new AtomicLong();
+    private final Object modificationLock = new Object();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder patchCount = new LongAdder();
+
+    private int maxSpaces;
+
+    @PostConstruct
+    public void init() {
+        maxSpaces = Math.max(1, Integer.valueOf(environment.getProperty("wikift.space.tree.cache.max-spaces", "1000")));
+    }
+
+    /**
+     * 根据空间编码获取空间id
+     *
+     * @param code 空间编码
+     * @return 空间id, 空间不存在时返回null
+     */
+    public Long getSpaceId(String code) {
+        if (StringUtils.isEmpty(code)) {
+            return null;
+        }
+        Long spaceId = spaceIds.get(code);
+        if (spaceId == null) {
+            SpaceEntity space = spaceService.getSpaceInfoByCode(code);
+            if (ObjectUtils.isEmpty(space)) {
+                return null;
+            }
+            spaceId = space.getId();
+            if (spaceIds.size() >= maxSpaces) {
+                spaceIds.clear();
+            }
+            spaceIds.put(code, spaceId);
+        }
+        return spaceId;
+    }
+
+    /**
+     * 获取空间导航树, 未缓存时从数据库加载
+     *
+     * @param spaceId 空间id
+     * @return 导航树版本及序列化后的数据
+     */
+    public Snapshot getTree(Long spaceId) {
+        SpaceTree tree = trees.get(spaceId);
+        if (tree != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+            long modification = modifications.get();
+            tree = load(spaceId);
+            synchronized (modificationLock) {
+                if (modifications.get() == modification) {
+                    SpaceTree previous = trees.putIfAbsent(spaceId, tree);
+                    if (previous != null) {
+                        tree = previous;
+                    }
+                }
+            }
+            evictIfNecessary();
+        }
+        tree.lastAccessTime = System.currentTimeMillis();
+        return tree.snapshot();
+    }
+
+    /**
+     * 文章新增或修改后更新导航树节点, 在事务提交后执行
+     *
+     * @param entity 文章信息
+     */
+    public void put(ArticleEntity entity) {
+        if (entity.getSpace() == null) {
+            return;
+        }
+        Long spaceId = entity.getSpace().getId();
+        Node node = new Node(entity.getId(), entity.getParent(), entity.getTitle());
+        TransactionUtils.afterCommit(() -> modify(tree -> {
+            if (tree.spaceId.equals(spaceId)) {
+                return tree.put(node);
+            }
+            // 文章移动到其他空间
+            return tree.remove(node.id);
+        }));
+    }
+
+    /**
+     * 文章删除后移除导航树节点, 在事务提交后执行
+     *
+     * @param id 文章id
+     */
+    public void remove(Long id) {
+        TransactionUtils.afterCommit(() -> modify(tree -> tree.remove(id)));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("spaces", trees.size());
+        metrics.put("maxSpaces", maxSpaces);
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        metrics.put("patchCount", patchCount.sum());
+        return metrics;
+    }
+
+    private SpaceTree load(Long spaceId) {
+        SpaceTree tree = new SpaceTree(spaceId);
+        for (Object[] row : articleRepository.findAllTreeNodeBySpaceId(spaceId)) {
+            Node node = new Node((Long) row[0], (Long) row[1], (String) row[2]);
+            tree.nodes.put(node.id, node);
+        }
+        tree.version = versions.incrementAndGet();
+        return tree;
+    }
+
+    private void modify(TreePatch patch) {
+        synchronized (modificationLock) {
+            modifications.incrementAndGet();
+            for (SpaceTree tree : trees.values()) {
+                synchronized (tree) {
+                    if (patch.apply(tree)) {
+                        tree.version = versions.incrementAndGet();
+                        tree.bytes = null;
+                        patchCount.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 缓存的空间数量超过上限时淘汰最久未访问的空间
+     */
+    private void evictIfNecessary() {
+        while (trees.size() > maxSpaces) {
+            SpaceTree eldest = null;
+            for (SpaceTree tree : trees.values()) {
+                if (eldest == null || tree.lastAccessTime < eldest.lastAccessTime) {
+                    eldest = tree;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            trees.remove(eldest.spaceId, eldest);
+        }
+    }
+
+    private interface TreePatch {
+
+        /**
+         * 修改空间导航树
+         *
+         * @param tree 空间导航树
+         * @return 是否发生修改
+         */
+        boolean apply(SpaceTree tree);
+
+    }
+
+    @AllArgsConstructor
+    private static class Node {
+
+        private final Long id;
+        private final Long parent;
+        private final String title;
+
+        private Long getParent() {
+            return parent;
+        }
+
+        private TreeModelSupport toSupport() {
+            TreeModelSupport support = new TreeModelSupport();
+            support.setId(id);
+            support.setName(title);
+            support.setItem(id);
+            return support;
+        }
+
+    }
+
+    private class SpaceTree {
+
+        private final Long spaceId;
+        // 按文章id排序, 与数据库查询顺序一致
+        private final TreeMap<Long, Node> nodes = new TreeMap<>();
+        private long version;
+        private byte[] bytes;
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+        private SpaceTree(Long spaceId) {
+            this.spaceId = spaceId;
+        }
+
+        private boolean put(Node node) {
+            Node previous = nodes.put(node.id, node);
+            return previous == null || !Objects.equals(previous.title, node.title) || !Objects.equals(previous.parent, node.parent);
+        }
+
+        private boolean remove(Long id) {
+            return nodes.remove(id) != null;
+        }
+
+        private synchronized Snapshot snapshot() {
+            if (bytes == null) {
+                List<Node> datas = new ArrayList<>(nodes.values());
+                List<TreeModelSupport> children = TreeUtils.getChildren(ROOT, datas, Node::getParent, Node::toSupport);
+                try {
+                    bytes = objectMapper.writeValueAsBytes(CommonResult.success(children));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new Snapshot(version, bytes);
+        }
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+
+        // 导航树版本号, 导航树发生变化时递增
+        private final long version;
+        // 序列化后的导航树
+        private final byte[] bytes;
+
+    }
+
+}
@@ -23,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -33,6 +34,7 @@ public class ArticleTypeServiceImpl implements ArticleTypeService {
     private ArticleTypeRepository articleTypeRepository;
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ArticleTypeEntity> findAll(Pageable pageable) {
         return articleTypeRepository.findAll(pageable);
     }
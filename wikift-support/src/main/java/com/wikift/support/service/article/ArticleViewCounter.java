@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.wikift.support.repository.article.ArticleRepositoryBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ArticleViewCounter <br/>
+ * 描述 : 文章浏览量写缓冲, 浏览量先在内存中按文章累加, 由定时任务批量写入数据库 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "articleViewCounter")
+public class ArticleViewCounter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArticleViewCounter.class);
+
+    // 计数器已被回收的标志, 写入线程遇到该标志时重新创建计数器
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    @Autowired
+    private ArticleRepositoryBatch articleRepositoryBatch;
+
+    // 每篇文章一个计数器, 不同文章之间互不竞争
+    private final ConcurrentHashMap<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final LongAdder pendingCount = new LongAdder();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong flushTimes = new AtomicLong();
+    private final AtomicLong flushFailedTimes = new AtomicLong();
+    private volatile long lastFlushTime;
+
+    /**
+     * 记录文章浏览事件, 只在内存中累加, 直接在请求线程中执行
+     *
+     * @param event 文章浏览事件
+     */
+    @EventListener
+    public void onArticleView(ArticleViewEvent event) {
+        increase(event.getArticleId(), 1);
+    }
+
+    /**
+     * 累加文章浏览量, 不访问数据库
+     *
+     * @param articleId 文章id
+     * @param viewCount 新增浏览量
+     */
+    public void increase(Long articleId, long viewCount) {
+        for (; ; ) {
+            AtomicLong counter = counters.get(articleId);
+            if (counter == null) {
+                counter = counters.computeIfAbsent(articleId, key -> new AtomicLong());
+            }
+            long current = counter.get();
+            if (current == RETIRED) {
+                // 计数器正在被回收, 移除后重新创建
+                counters.remove(articleId, counter);
+                continue;
+            }
+            if (counter.compareAndSet(current, current + viewCount)) {
+                pendingCount.add(viewCount);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 将缓冲的浏览量批量写入数据库, 写入失败时浏览量回到缓冲等待下次写入
+     *
+     * @return 本次写入的浏览量
+     */
+    public synchronized long flush() {
+        Map<Long, Long> views = new HashMap<>();
+        counters.forEach((articleId, counter) -> {
+            long viewCount = counter.getAndSet(0);
+            if (viewCount > 0) {
+                views.put(articleId, viewCount);
+            } else if (counter.compareAndSet(0, RETIRED)) {
+                // 一个周期内没有新增浏览量, 回收计数器
+                counters.remove(articleId, counter);
+            }
+        });
+        if (views.isEmpty()) {
+            return 0;
+        }
+        long total = views.values().stream().mapToLong(Long::longValue).sum();
+        pendingCount.add(-total);
+        try {
+            articleRepositoryBatch.batchViewArticle(views);
+        } catch (RuntimeException e) {
+            flushFailedTimes.incrementAndGet();
+            LOGGER.error("flush {} article views failed, retry in next flush", total, e);
+            views.forEach(this::increase);
+            return 0;
+        }
+        flushedCount.addAndGet(total);
+        flushTimes.incrementAndGet();
+        lastFlushTime = System.currentTimeMillis();
+        return total;
+    }
+
+    /**
+     * 获取写缓冲统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("pendingCount", pendingCount.sum());
+        metrics.put("pendingArticles", counters.size());
+        metrics.put("flushedCount", flushedCount.get());
+        metrics.put("flushTimes", flushTimes.get());
+        metrics.put("flushFailedTimes", flushFailedTimes.get());
+        metrics.put("lastFlushTime", lastFlushTime);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 应用关闭前写入剩余的浏览量
+        flush();
+    }
+
+}
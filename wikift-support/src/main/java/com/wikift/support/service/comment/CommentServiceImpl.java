@@ -21,11 +21,14 @@ import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.comment.CommentEntity;
 import com.wikift.model.counter.CounterEntity;
 import com.wikift.model.result.CommonResult;
+import com.wikift.support.repository.article.ArticleRepository;
 import com.wikift.support.repository.comment.CommentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,22 +39,33 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private ArticleRepository articleRepository;
+
     @Override
+    @Transactional
     public CommentEntity createComment(CommentEntity entity) {
-        return commentRepository.save(entity);
+        CommentEntity comment = commentRepository.save(entity);
+        if (!ObjectUtils.isEmpty(comment.getArticle())) {
+            articleRepository.increaseCommentsCount(comment.getArticle().getId(), 1);
+        }
+        return comment;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public CommentEntity getCommentById(Long id) {
         return commentRepository.findOne(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<CommentEntity> getAllCommentByArticle(ArticleEntity entity, Pageable pageable) {
         return commentRepository.findAllByArticle(entity, pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CounterEntity> getArticleCommentsByCreateTimeAndTop7(Long articleId) {
         List<CounterEntity> counters = new ArrayList<>();
         commentRepository.findArticleCommentsByCreateTimeAndTop7(articleId).forEach(v -> {
@@ -61,8 +75,13 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
+    @Transactional
     public Long deleteCommentById(Long id) {
+        CommentEntity comment = commentRepository.findOne(id);
         commentRepository.delete(id);
+        if (!ObjectUtils.isEmpty(comment) && !ObjectUtils.isEmpty(comment.getArticle())) {
+            articleRepository.increaseCommentsCount(comment.getArticle().getId(), -1);
+        }
         return id;
     }
 
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.remind;
+
+import com.wikift.model.remind.RemindInboxEntity;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * 提醒发送事件, 每批接收用户写入收件箱并提交后发布, 用于向在线用户推送提醒
+ *
+ * @author qianmoQ
+ */
+@Getter
+public class RemindCreatedEvent extends ApplicationEvent {
+
+    private final RemindInboxEntity remind;
+
+    private final List<Long> userIds;
+
+    public RemindCreatedEvent(Object source, RemindInboxEntity remind, List<Long> userIds) {
+        super(source);
+        this.remind = remind;
+        this.userIds = userIds;
+    }
+
+}
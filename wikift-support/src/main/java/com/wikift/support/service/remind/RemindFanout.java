@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.remind;
+
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.remind.RemindInboxEntity;
+import com.wikift.support.repository.remind.RemindInboxRepository;
+import com.wikift.support.repository.remind.RemindRepositoryBatch;
+import com.wikift.support.service.article.ArticleService;
+import com.wikift.support.service.user.UserFollowGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RemindFanout <br/>
+ * 描述 : 向文章作者的关注者发送提醒, 按用户id顺序分批读取关注者, 每批在独立事务中批量写入接收用户及收件箱并记录发送进度,
+ * 服务中断后可从记录的进度继续发送 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "remindFanout")
+public class RemindFanout {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemindFanout.class);
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private RemindRepositoryBatch remindRepositoryBatch;
+
+    @Autowired
+    private RemindInboxRepository remindInboxRepository;
+
+    @Autowired
+    private RemindUnreadCounter remindUnreadCounter;
+
+    @Autowired
+    private UserFollowGraph userFollowGraph;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int chunkSize;
+
+    // 当前服务中正在发送的提醒id
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder reminds = new LongAdder();
+    private final LongAdder recipients = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalMillis = new LongAdder();
+    private volatile long lastRecipients;
+    private volatile long lastMillis;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        chunkSize = Math.max(1, Integer.valueOf(environment.getProperty("wikift.remind.fanout.chunk-size", "500")));
+    }
+
+    /**
+     * 创建提醒并发送给文章作者的所有关注者, 作者没有关注者时不创建提醒
+     *
+     * @param article 文章信息, 需包含文章作者
+     * @param typeId  提醒类型id
+     * @param title   提醒标题
+     * @param content 提醒内容
+     */
+    public void send(ArticleEntity article, Long typeId, String title, String content) {
+        Long authorId = article.getUser().getId();
+        if (nextChunk(authorId, 0L).isEmpty()) {
+            return;
+        }
+        // 数据库时间只保存到秒, 提醒与收件箱使用相同的时间
+        Date createTime = new Date(System.currentTimeMillis() / 1000 * 1000);
+        Long remindId = transactionTemplate.execute(status ->
+                remindRepositoryBatch.insertPending(title, content, typeId, article.getId(), createTime));
+        fanout(new RemindInboxEntity(remindId, title, content, article.getId(), createTime, false, null), authorId, 0L);
+    }
+
+    /**
+     * 继续发送所有未完成的提醒, 当前服务正在发送的提醒会被跳过
+     *
+     * @return 处理的提醒数量
+     */
+    public int resumePending() {
+        int count = 0;
+        for (Map<String, Object> pending : remindRepositoryBatch.findAllPending()) {
+            Long remindId = ((Number) pending.get("r_id")).longValue();
+            Long cursor = ((Number) pending.get("r_fanout_cursor")).longValue();
+            if (running.contains(remindId)) {
+                continue;
+            }
+            Long articleId = ((Number) pending.get("article_id")).longValue();
+            ArticleEntity article = articleService.getArticleOwner(articleId);
+            if (article == null || article.getUser() == null) {
+                // 文章已删除, 不再继续发送
+                remindRepositoryBatch.updateCursor(remindId, cursor, cursor, true);
+                continue;
+            }
+            LOGGER.info("resume remind {} fan-out from user {}", remindId, cursor);
+            RemindInboxEntity remind = new RemindInboxEntity(remindId, (String) pending.get("r_title"), (String) pending.get("r_content"),
+                    articleId, (Date) pending.get("r_create_time"), false, null);
+            fanout(remind, article.getUser().getId(), cursor);
+            count++;
+        }
+        return count;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long millis = totalMillis.sum();
+        metrics.put("chunkSize", chunkSize);
+        metrics.put("running", running.size());
+        metrics.put("reminds", reminds.sum());
+        metrics.put("recipients", recipients.sum());
+        metrics.put("chunks", chunks.sum());
+        metrics.put("conflicts", conflicts.sum());
+        metrics.put("skipped", skipped.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("recipientsPerSecond", millis > 0 ? recipients.sum() * 1000 / millis : 0);
+        metrics.put("lastRecipients", lastRecipients);
+        metrics.put("lastMillis", lastMillis);
+        return metrics;
+    }
+
+    private void fanout(RemindInboxEntity remind, Long authorId, Long fromCursor) {
+        Long remindId = remind.getRemindId();
+        if (!running.add(remindId)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long sent = 0;
+        Long cursor = fromCursor;
+        try {
+            while (true) {
+                List<Long> userIds = nextChunk(authorId, cursor);
+                boolean done = userIds.size() < chunkSize;
+                Long expected = cursor;
+                Long next = userIds.isEmpty() ? cursor : userIds.get(userIds.size() - 1);
+                List<Long> recipientIds = transactionTemplate.execute(status -> {
+                    // 先更新进度锁定提醒记录, 其他任务已发送该批次时放弃写入
+                    if (!remindRepositoryBatch.updateCursor(remindId, expected, next, done)) {
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                    // 关注关系中可能包含已删除的用户, 跳过这些用户, 进度仍然前进到本批最后一个用户
+                    List<Long> existing = remindRepositoryBatch.findExistingUserIds(userIds);
+                    if (!existing.isEmpty()) {
+                        remindRepositoryBatch.batchInsertUsers(remindId, existing);
+                        remindInboxRepository.batchInsert(remindId, remind.getCreateTime(), existing);
+                        remindInboxRepository.batchIncrementUnread(existing);
+                    }
+                    return existing;
+                });
+                if (recipientIds == null) {
+                    conflicts.increment();
+                    return;
+                }
+                if (recipientIds.size() < userIds.size()) {
+                    skipped.add(userIds.size() - recipientIds.size());
+                }
+                remindUnreadCounter.increment(recipientIds);
+                if (!recipientIds.isEmpty()) {
+                    applicationEventPublisher.publishEvent(new RemindCreatedEvent(this, remind, recipientIds));
+                }
+                chunks.increment();
+                recipients.add(recipientIds.size());
+                sent += recipientIds.size();
+                cursor = next;
+                if (done) {
+                    reminds.increment();
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            LOGGER.error("remind {} fan-out failed at user {}, it will be resumed later", remindId, cursor, e);
+        } finally {
+            running.remove(remindId);
+            lastMillis = System.currentTimeMillis() - start;
+            lastRecipients = sent;
+            totalMillis.add(lastMillis);
+        }
+    }
+
+    private List<Long> nextChunk(Long authorId, Long cursor) {
+        if (userFollowGraph.isReady()) {
+            return userFollowGraph.getCoversAfter(authorId, cursor, chunkSize);
+        }
+        return remindRepositoryBatch.findCoverIds(authorId, cursor, chunkSize);
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.wikift.support.service.remind;
 
 import com.wikift.model.remind.RemindEntity;
+import com.wikift.model.remind.RemindInboxEntity;
+import com.wikift.model.result.CursorPage;
 import com.wikift.model.user.UserEntity;
 
 import java.util.List;
@@ -26,4 +28,41 @@ public interface RemindService {
 
     Integer read(Long id);
 
+    /**
+     * 游标分页查询用户收件箱, 按提醒时间倒序
+     *
+     * @param userId 接收用户id
+     * @param unread 是否只查询未读提醒
+     * @param cursor 上一页返回的游标, 为空时查询第一页
+     * @param size   每页数据条数
+     * @return 提醒列表及下一页游标
+     */
+    CursorPage<RemindInboxEntity> getInbox(Long userId, Boolean unread, String cursor, Integer size);
+
+    /**
+     * 阅读收件箱中的单条提醒
+     *
+     * @param userId   接收用户id
+     * @param remindId 提醒id
+     * @return 更新的数据条数
+     */
+    Integer readInbox(Long userId, Long remindId);
+
+    /**
+     * 将收件箱中指定提醒及更早的提醒全部标记为已读
+     *
+     * @param userId   接收用户id
+     * @param remindId 提醒id
+     * @return 更新的数据条数
+     */
+    Integer readInboxUpTo(Long userId, Long remindId);
+
+    /**
+     * 查询用户未读提醒数量, 不查询收件箱
+     *
+     * @param userId 接收用户id
+     * @return 未读提醒数量
+     */
+    Long getInboxUnreadCount(Long userId);
+
 }
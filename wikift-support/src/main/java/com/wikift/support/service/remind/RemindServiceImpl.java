@@ -17,12 +17,20 @@
  */
 package com.wikift.support.service.remind;
 
+import com.wikift.common.utils.CursorUtils;
+import com.wikift.model.enums.OrderEnums;
 import com.wikift.model.remind.RemindEntity;
+import com.wikift.model.remind.RemindInboxEntity;
+import com.wikift.model.result.CursorPage;
 import com.wikift.model.user.UserEntity;
+import com.wikift.support.repository.remind.RemindInboxRepository;
 import com.wikift.support.repository.remind.RemindRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
 
+import java.util.Date;
 import java.util.List;
 
 @Service(value = "remindService")
@@ -31,32 +39,43 @@ public class RemindServiceImpl implements RemindService {
     @Autowired
     private RemindRepository remindRepository;
 
+    @Autowired
+    private RemindInboxRepository remindInboxRepository;
+
+    @Autowired
+    private RemindUnreadCounter remindUnreadCounter;
+
     @Override
     public RemindEntity save(RemindEntity entity) {
         return remindRepository.save(entity);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RemindEntity> findAll() {
         return (List<RemindEntity>) remindRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RemindEntity> getAllRemindByUsers(List<UserEntity> users) {
         return remindRepository.findAllByUsers(users);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RemindEntity> getAllUnreadRemindByUsers(List<UserEntity> users) {
         return remindRepository.findAllByUsersAndReadTimeIsNull(users);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RemindEntity> getAllReadRemindByUsers(List<UserEntity> users) {
         return remindRepository.findAllByUsersAndReadTimeNotNull(users);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public RemindEntity getById(Long id) {
         return remindRepository.findOne(id);
     }
@@ -66,4 +85,42 @@ public class RemindServiceImpl implements RemindService {
         return remindRepository.read(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RemindInboxEntity> getInbox(Long userId, Boolean unread, String cursor, Integer size) {
+        return CursorUtils.query(OrderEnums.NATIVE_CREATE_TIME, cursor, size,
+                (current, limit) -> remindInboxRepository.findAllBefore(userId, unread, new Date(current.getSortKey()), current.getId(), limit),
+                entity -> entity.getCreateTime().getTime(), RemindInboxEntity::getRemindId);
+    }
+
+    @Override
+    @Transactional
+    public Integer readInbox(Long userId, Long remindId) {
+        return decrementUnread(userId, remindInboxRepository.read(userId, remindId));
+    }
+
+    @Override
+    @Transactional
+    public Integer readInboxUpTo(Long userId, Long remindId) {
+        Date createTime = remindInboxRepository.findCreateTime(userId, remindId);
+        if (ObjectUtils.isEmpty(createTime)) {
+            return 0;
+        }
+        return decrementUnread(userId, remindInboxRepository.readUpTo(userId, createTime, remindId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long getInboxUnreadCount(Long userId) {
+        return remindUnreadCounter.getCount(userId);
+    }
+
+    private Integer decrementUnread(Long userId, Integer count) {
+        if (count > 0) {
+            remindInboxRepository.decrementUnread(userId, count);
+            remindUnreadCounter.decrement(userId, count);
+        }
+        return count;
+    }
+
 }
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.remind;
+
+import com.wikift.common.utils.TransactionUtils;
+import com.wikift.support.repository.remind.RemindInboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RemindUnreadCounter <br/>
+ * 描述 : 用户未读提醒数量, 数量保存在 remind_unread 中随发送及阅读增减, 本地缓存查询结果,
+ * 定期与收件箱中实际的未读数量校正 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "remindUnreadCounter")
+public class RemindUnreadCounter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemindUnreadCounter.class);
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private RemindInboxRepository remindInboxRepository;
+
+    private final Map<Long, CachedCount> cache = new ConcurrentHashMap<>();
+
+    private long ttl;
+    private int maxUsers;
+    private int reconcileBatchSize;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder reconciledCount = new LongAdder();
+    private final LongAdder correctedCount = new LongAdder();
+    private volatile long lastReconcileTime;
+    private volatile long lastReconcileMillis;
+
+    @PostConstruct
+    public void init() {
+        ttl = environment.getProperty("wikift.remind.unread.cache.ttl", Long.class, 30000L);
+        maxUsers = environment.getProperty("wikift.remind.unread.cache.max-users", Integer.class, 100000);
+        reconcileBatchSize = Math.max(1, environment.getProperty("wikift.remind.unread.reconcile.batch-size", Integer.class, 1000));
+    }
+
+    /**
+     * 查询用户未读提醒数量, 缓存未过期时不访问数据库
+     *
+     * @param userId 用户id
+     * @return 未读提醒数量
+     */
+    public Long getCount(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = cache.get(userId);
+        if (cached != null && cached.expireTime > now) {
+            hitCount.increment();
+            return cached.count;
+        }
+        missCount.increment();
+        Long count = remindInboxRepository.findUnread(userId);
+        if (cache.size() >= maxUsers) {
+            cache.values().removeIf(value -> value.expireTime <= now);
+        }
+        if (cache.size() < maxUsers) {
+            cache.put(userId, new CachedCount(count, now + ttl));
+        }
+        return count;
+    }
+
+    /**
+     * 接收用户未读数量加1, 只修改已缓存的数量
+     *
+     * @param userIds 接收用户id列表
+     */
+    public void increment(List<Long> userIds) {
+        userIds.forEach(userId -> adjust(userId, 1));
+    }
+
+    /**
+     * 用户阅读提醒后减少未读数量, 存在事务时在事务提交后执行
+     *
+     * @param userId 用户id
+     * @param count  已阅读的提醒数量
+     */
+    public void decrement(Long userId, Integer count) {
+        TransactionUtils.afterCommit(() -> adjust(userId, -count));
+    }
+
+    /**
+     * 分批对比记录的未读数量与收件箱中的实际数量, 不一致时校正并清除缓存
+     *
+     * @return 校正的用户数量, 正在执行时返回0
+     */
+    public int reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        int corrected = 0;
+        try {
+            Long afterUserId = 0L;
+            while (true) {
+                List<Map<String, Object>> rows = remindInboxRepository.findUnreadWithActual(afterUserId, reconcileBatchSize);
+                for (Map<String, Object> row : rows) {
+                    Long userId = ((Number) row.get("ru_user_id")).longValue();
+                    Long count = ((Number) row.get("ru_count")).longValue();
+                    Long actual = ((Number) row.get("actual")).longValue();
+                    if (!count.equals(actual) && remindInboxRepository.updateUnread(userId, count, actual)) {
+                        cache.remove(userId);
+                        corrected++;
+                    }
+                    afterUserId = userId;
+                }
+                reconciledCount.add(rows.size());
+                if (rows.size() < reconcileBatchSize) {
+                    break;
+                }
+            }
+            correctedCount.add(corrected);
+            if (corrected > 0) {
+                LOGGER.info("reconciled unread remind counts, {} users corrected", corrected);
+            }
+            return corrected;
+        } finally {
+            lastReconcileTime = System.currentTimeMillis();
+            lastReconcileMillis = lastReconcileTime - start;
+            reconciling.set(false);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cachedUsers", cache.size());
+        metrics.put("maxUsers", maxUsers);
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        metrics.put("reconciledCount", reconciledCount.sum());
+        metrics.put("correctedCount", correctedCount.sum());
+        metrics.put("lastReconcileTime", lastReconcileTime);
+        metrics.put("lastReconcileMillis", lastReconcileMillis);
+        return metrics;
+    }
+
+    private void adjust(Long userId, long delta) {
+        cache.computeIfPresent(userId, (key, cached) -> new CachedCount(Math.max(0, cached.count + delta), cached.expireTime));
+    }
+
+    private static class CachedCount {
+
+        private final long count;
+        private final long expireTime;
+
+        CachedCount(long count, long expireTime) {
+            this.count = count;
+            this.expireTime = expireTime;
+        }
+
+    }
+
+}
@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -34,6 +35,7 @@ public class SpaceServiceImpl implements SpaceService {
     private SpaceRepository spaceRepository;
 
     @Override
+    @Transactional(readOnly = true)
     public Page<SpaceEntity> getAllPublicSpace(Pageable pageable) {
         return spaceRepository.findAllByPrivatedFalse(pageable);
     }
@@ -44,36 +46,43 @@ public class SpaceServiceImpl implements SpaceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public SpaceEntity getSpaceInfoByCode(String code) {
         return spaceRepository.findByCode(code);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public SpaceEntity getSpaceInfoById(Long id) {
         return spaceRepository.findOne(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<SpaceEntity> getAllSpaceByPrivatedFalseOrUser(UserEntity entity, Pageable pageable) {
         return spaceRepository.findAllByPrivatedFalseOrUser(entity, pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<SpaceEntity> getAllSpaceByUser(UserEntity entity, Pageable pageable) {
         return spaceRepository.findAllByUser(entity, pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<SpaceEntity> getAllPublicSpaceByUser(UserEntity entity, Pageable pageable) {
         return spaceRepository.findAllByUserAndPrivatedFalse(entity, pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<SpaceEntity> getAllPrivateSpaceByUser(UserEntity entity, Pageable pageable) {
         return spaceRepository.findAllByUserAndPrivatedTrue(entity, pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Long getArticleCountById(Long spaceId) {
         return spaceRepository.findArticleCountById(spaceId);
     }
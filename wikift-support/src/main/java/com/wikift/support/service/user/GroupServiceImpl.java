@@ -21,6 +21,7 @@ import com.wikift.model.user.GroupEntity;
 import com.wikift.support.repository.user.GroupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -42,6 +43,7 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<GroupEntity> findAll() {
         return (List<GroupEntity>) groupRepository.findAll();
     }
@@ -0,0 +1,408 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.user;
+
+import com.wikift.common.utils.TransactionUtils;
+import com.wikift.support.repository.user.UserRepositoryBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * UserFollowGraph <br/>
+ * 描述 : 用户关注关系图, 以有序long数组保存每个用户的关注列表及被关注列表, 关注总数直接取数组长度,
+ * 是否关注使用二分查找, 关注及取消关注在事务提交后增量维护, 启动时从数据库后台重建 <br/>
+ * 作者 : qianmoQ <br/>
+ * 版本 : 1.0 <br/>
+ * 联系作者 : <a href="mailTo:shichengoooo@163.com">qianmoQ</a>
+ */
+@Service(value = "userFollowGraph")
+public class UserFollowGraph {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserFollowGraph.class);
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final int OP_FOLLOW = 1;
+    private static final int OP_UNFOLLOW = 2;
+    private static final int OP_REMOVE = 3;
+
+    @Resource
+    private Environment environment;
+
+    @Autowired
+    private UserRepositoryBatch userRepositoryBatch;
+
+    private boolean enable;
+
+    // 关注者id -> 已关注的用户id, 数组有序且不可修改, 变更时整体替换, 读取无需加锁
+    private volatile Map<Long, long[]> follows = new ConcurrentHashMap<>();
+
+    // 被关注者id -> 关注该用户的用户id
+    private volatile Map<Long, long[]> covers = new ConcurrentHashMap<>();
+
+    // 关系图重建完成后才提供查询
+    private volatile boolean ready;
+
+    private volatile long edges;
+
+    // 重建期间记录的关注变更, 重建完成后重放到新的关系图
+    private List<long[]> journal;
+
+    private final Object lock = new Object();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile long lastRebuildTime;
+    private volatile long lastRebuildMillis;
+
+    @PostConstruct
+    public void init() {
+        enable = Boolean.valueOf(environment.getProperty("wikift.user.follow.graph.enable", "true"));
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (!enable || !started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "wikift-follow-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isReady() {
+        return enable && ready;
+    }
+
+    /**
+     * 用户关注的用户总数
+     *
+     * @param userId 关注者用户id
+     * @return 关注总数
+     */
+    public int getFollowCount(Long userId) {
+        return get(follows, userId).length;
+    }
+
+    /**
+     * 关注该用户的用户总数
+     *
+     * @param userId 被关注者用户id
+     * @return 被关注总数
+     */
+    public int getCoverCount(Long userId) {
+        return get(covers, userId).length;
+    }
+
+    /**
+     * 是否已关注用户
+     *
+     * @param followUserId 关注者用户id
+     * @param coverUserId  被关注者用户id
+     * @return 是否已关注
+     */
+    public boolean isFollowing(Long followUserId, Long coverUserId) {
+        return coverUserId != null && Arrays.binarySearch(get(follows, followUserId), coverUserId) >= 0;
+    }
+
+    /**
+     * 分页查询用户关注的用户id, 按用户id排序
+     *
+     * @param userId 关注者用户id
+     * @param offset 起始位置
+     * @param limit  数据条数
+     * @return 用户id列表
+     */
+    public List<Long> getFollows(Long userId, long offset, int limit) {
+        return slice(get(follows, userId), offset, limit);
+    }
+
+    /**
+     * 分页查询关注该用户的用户id, 按用户id排序
+     *
+     * @param userId 被关注者用户id
+     * @param offset 起始位置
+     * @param limit  数据条数
+     * @return 用户id列表
+     */
+    public List<Long> getCovers(Long userId, long offset, int limit) {
+        return slice(get(covers, userId), offset, limit);
+    }
+
+    /**
+     * 按用户id顺序查询关注该用户且id大于指定值的用户id, 用于分批遍历
+     *
+     * @param userId  被关注者用户id
+     * @param afterId 上一批最后的用户id
+     * @param limit   数据条数
+     * @return 用户id列表
+     */
+    public List<Long> getCoversAfter(Long userId, long afterId, int limit) {
+        long[] values = get(covers, userId);
+        int index = Arrays.binarySearch(values, afterId);
+        return slice(values, index >= 0 ? index + 1 : -index - 1, limit);
+    }
+
+    /**
+     * 添加关注关系, 存在事务时在事务提交后执行
+     *
+     * @param followUserId 关注者用户id
+     * @param coverUserId  被关注者用户id
+     */
+    public void follow(Long followUserId, Long coverUserId) {
+        if (enable) {
+            TransactionUtils.afterCommit(() -> apply(OP_FOLLOW, followUserId, coverUserId));
+        }
+    }
+
+    /**
+     * 删除关注关系, 存在事务时在事务提交后执行
+     *
+     * @param followUserId 关注者用户id
+     * @param coverUserId  被关注者用户id
+     */
+    public void unFollow(Long followUserId, Long coverUserId) {
+        if (enable) {
+            TransactionUtils.afterCommit(() -> apply(OP_UNFOLLOW, followUserId, coverUserId));
+        }
+    }
+
+    /**
+     * 删除用户的所有关注及被关注关系, 用于删除用户, 存在事务时在事务提交后执行
+     *
+     * @param userId 用户id
+     */
+    public void removeUser(Long userId) {
+        if (enable) {
+            TransactionUtils.afterCommit(() -> apply(OP_REMOVE, userId, 0L));
+        }
+    }
+
+    /**
+     * 从数据库重建关系图, 重建期间的关注变更在完成后重放, 原关系图继续提供查询
+     *
+     * @return 是否重建成功, 正在重建时返回false
+     */
+    public boolean rebuild() {
+        if (!enable || !rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (lock) {
+            journal = new ArrayList<>();
+        }
+        try {
+            Map<Long, LongArrayBuilder> followBuilders = new HashMap<>();
+            Map<Long, LongArrayBuilder> coverBuilders = new HashMap<>();
+            userRepositoryBatch.findAllFollows(rs -> {
+                long follow = rs.getLong(1);
+                long cover = rs.getLong(2);
+                followBuilders.computeIfAbsent(follow, k -> new LongArrayBuilder()).add(cover);
+                coverBuilders.computeIfAbsent(cover, k -> new LongArrayBuilder()).add(follow);
+            });
+            Map<Long, long[]> newFollows = build(followBuilders);
+            Map<Long, long[]> newCovers = build(coverBuilders);
+            long newEdges = newFollows.values().stream().mapToLong(v -> v.length).sum();
+            synchronized (lock) {
+                // 重放的变更可能已包含在查询结果中, 关注及取消关注均为幂等操作
+                for (long[] op : journal) {
+                    newEdges += apply(newFollows, newCovers, (int) op[0], op[1], op[2]);
+                }
+                follows = newFollows;
+                covers = newCovers;
+                edges = newEdges;
+                journal = null;
+                ready = true;
+            }
+            lastRebuildTime = System.currentTimeMillis();
+            lastRebuildMillis = lastRebuildTime - start;
+            LOGGER.info("follow graph rebuilt, {} users, {} relations in {} ms", newFollows.size(), newEdges, lastRebuildMillis);
+            return true;
+        } catch (Exception e) {
+            synchronized (lock) {
+                journal = null;
+            }
+            LOGGER.error("rebuild follow graph failed", e);
+            return false;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enable", enable);
+        metrics.put("ready", ready);
+        metrics.put("rebuilding", rebuilding.get());
+        metrics.put("followUsers", follows.size());
+        metrics.put("coverUsers", covers.size());
+        metrics.put("relations", edges);
+        metrics.put("lastRebuildTime", lastRebuildTime);
+        metrics.put("lastRebuildMillis", lastRebuildMillis);
+        return metrics;
+    }
+
+    private void apply(int op, Long followUserId, Long coverUserId) {
+        if (followUserId == null || coverUserId == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (journal != null) {
+                journal.add(new long[]{op, followUserId, coverUserId});
+            }
+            edges += apply(follows, covers, op, followUserId, coverUserId);
+        }
+    }
+
+    /**
+     * 修改关系图, 返回关系数量的变化
+     */
+    private static int apply(Map<Long, long[]> follows, Map<Long, long[]> covers, int op, long follow, long cover) {
+        if (op == OP_REMOVE) {
+            return remove(follows, covers, follow);
+        }
+        long[] followIds = get(follows, follow);
+        long[] updated = op == OP_FOLLOW ? insert(followIds, cover) : delete(followIds, cover);
+        if (updated == followIds) {
+            return 0;
+        }
+        put(follows, follow, updated);
+        long[] coverIds = get(covers, cover);
+        put(covers, cover, op == OP_FOLLOW ? insert(coverIds, follow) : delete(coverIds, follow));
+        return op == OP_FOLLOW ? 1 : -1;
+    }
+
+    /**
+     * 删除用户的所有关系, 遍历的是删除前的数组, 修改时整体替换不影响遍历
+     */
+    private static int remove(Map<Long, long[]> follows, Map<Long, long[]> covers, long userId) {
+        int count = 0;
+        for (long cover : get(follows, userId)) {
+            count += apply(follows, covers, OP_UNFOLLOW, userId, cover);
+        }
+        for (long follow : get(covers, userId)) {
+            count += apply(follows, covers, OP_UNFOLLOW, follow, userId);
+        }
+        return count;
+    }
+
+    private static long[] get(Map<Long, long[]> graph, Long userId) {
+        if (userId == null) {
+            return EMPTY;
+        }
+        long[] values = graph.get(userId);
+        return values == null ? EMPTY : values;
+    }
+
+    private static void put(Map<Long, long[]> graph, long userId, long[] values) {
+        if (values.length == 0) {
+            graph.remove(userId);
+        } else {
+            graph.put(userId, values);
+        }
+    }
+
+    private static long[] insert(long[] values, long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return values;
+        }
+        index = -index - 1;
+        long[] updated = new long[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, index);
+        updated[index] = value;
+        System.arraycopy(values, index, updated, index + 1, values.length - index);
+        return updated;
+    }
+
+    private static long[] delete(long[] values, long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return values;
+        }
+        long[] updated = new long[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, index);
+        System.arraycopy(values, index + 1, updated, index, values.length - index - 1);
+        return updated;
+    }
+
+    private static List<Long> slice(long[] values, long offset, int limit) {
+        if (offset < 0 || offset >= values.length || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int from = (int) offset;
+        int to = (int) Math.min(values.length, offset + limit);
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(values[i]);
+        }
+        return ids;
+    }
+
+    private static Map<Long, long[]> build(Map<Long, LongArrayBuilder> builders) {
+        Map<Long, long[]> graph = new ConcurrentHashMap<>(Math.max(16, builders.size() * 4 / 3 + 1));
+        builders.forEach((userId, builder) -> graph.put(userId, builder.toSortedArray()));
+        return graph;
+    }
+
+    private static class LongArrayBuilder {
+
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * 排序并去除重复的关注关系
+         */
+        long[] toSortedArray() {
+            Arrays.sort(values, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || values[i] != values[unique - 1]) {
+                    values[unique++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, unique);
+        }
+
+    }
+
+}
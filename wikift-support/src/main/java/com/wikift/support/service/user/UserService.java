@@ -18,7 +18,10 @@
 package com.wikift.support.service.user;
 
 import com.wikift.model.user.UserContributionEntity;
+import com.wikift.model.user.UserAuthorityEntity;
 import com.wikift.model.user.UserEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -40,12 +43,46 @@ public interface UserService {
 
     UserEntity getInfoByUsername(String username);
 
+    /**
+     * 根据用户名查询用户认证信息, 只查询用户名, 密码及角色名称, 不加载用户实体
+     *
+     * @param username 用户名
+     * @return 用户认证信息, 用户不存在时返回null
+     */
+    UserAuthorityEntity getAuthorityProjectionByUsername(String username);
+
+    /**
+     * 根据用户名查询用户是否为LDAP用户
+     *
+     * @param username 用户名
+     * @return 是否为LDAP用户, 用户不存在时返回null
+     */
+    Boolean isLdapUser(String username);
+
     List<UserEntity> findTopByArticle();
 
     List<UserEntity> findAllFollowersByUserId(Long userId);
 
     List<UserEntity> findAllCoversByUserId(Long userId);
 
+    /**
+     * 分页查询用户关注的用户
+     *
+     * @param userId   关注者用户id
+     * @param pageable 分页信息
+     * @return 用户列表
+     */
+    Page<UserEntity> getAllFollowsByUserId(Long userId, Pageable pageable);
+
+    /**
+     * 分页查询关注该用户的用户
+     *
+     * @param userId   被关注者用户id
+     * @param pageable 分页信息
+     * @return 用户列表
+     */
+    Page<UserEntity> getAllCoversByUserId(Long userId, Pageable pageable);
+
     UserEntity findUserEntityByFollowsExists(Long followUserId, Long coverUserId);
 
     Integer follow(Long followUserId, Long coverUserId);
@@ -22,17 +22,27 @@ import com.wikift.common.utils.CalendarUtils;
 import com.wikift.model.article.ArticleEntity;
 import com.wikift.model.role.RoleEntity;
 import com.wikift.model.user.UserContributionEntity;
+import com.wikift.model.user.UserAuthorityEntity;
 import com.wikift.model.user.UserEntity;
 import com.wikift.support.repository.article.ArticleRepository;
 import com.wikift.support.repository.role.RoleRepository;
 import com.wikift.support.repository.user.UserRepository;
+import com.wikift.support.repository.user.UserRepositoryBatch;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service(value = "userService")
 public class UserServiceImpl implements UserService {
@@ -40,13 +50,23 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserRepositoryBatch userRepositoryBatch;
+
     @Autowired
     private RoleRepository roleRepository;
 
     @Autowired
     private ArticleRepository articleRepository;
 
+    @Autowired
+    private UserFollowGraph userFollowGraph;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @Override
+    @Transactional(readOnly = true)
     public UserEntity getUserById(Long id) {
         return userRepository.findOne(id);
     }
@@ -63,7 +83,9 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserEntity update(UserEntity entity) {
         entity.setPassword(userRepository.findByUsername(entity.getUsername()).getPassword());
-        return userRepository.save(entity);
+        UserEntity saved = userRepository.save(entity);
+        applicationEventPublisher.publishEvent(new UserChangedEvent(this, saved.getId(), saved.getUsername()));
+        return saved;
     }
 
     @Override
@@ -73,10 +95,13 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Integer updatePassword(UserEntity entity) {
-        return userRepository.updateByPassword(entity.getId(), entity.getPassword());
+        Integer count = userRepository.updateByPassword(entity.getId(), entity.getPassword());
+        applicationEventPublisher.publishEvent(new UserChangedEvent(this, entity.getId(), entity.getUsername()));
+        return count;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserEntity getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -84,60 +109,124 @@ public class UserServiceImpl implements UserService {
     @Override
     public Long delete(Long id) {
         userRepository.delete(id);
+        userFollowGraph.removeUser(id);
+        applicationEventPublisher.publishEvent(new UserChangedEvent(this, id, null));
         return id;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserEntity getInfoByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     @Override
+    public UserAuthorityEntity getAuthorityProjectionByUsername(String username) {
+        return userRepositoryBatch.findAuthorityByUsername(username);
+    }
+
+    @Override
+    public Boolean isLdapUser(String username) {
+        return userRepositoryBatch.isLdapUser(username);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<UserEntity> findTopByArticle() {
         return userRepository.findTopByArticle();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserEntity> findAllFollowersByUserId(Long userId) {
+        if (userFollowGraph.isReady()) {
+            return findAllByIds(userFollowGraph.getFollows(userId, 0, Integer.MAX_VALUE));
+        }
         return userRepository.findAllFollowersByUserId(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserEntity> findAllCoversByUserId(Long userId) {
+        if (userFollowGraph.isReady()) {
+            return findAllByIds(userFollowGraph.getCovers(userId, 0, Integer.MAX_VALUE));
+        }
         return userRepository.findAllCoversByUserId(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Page<UserEntity> getAllFollowsByUserId(Long userId, Pageable pageable) {
+        if (userFollowGraph.isReady()) {
+            List<Long> ids = userFollowGraph.getFollows(userId, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(findAllByIds(ids), pageable, userFollowGraph.getFollowCount(userId));
+        }
+        return toPage(userRepository.findAllFollowersByUserId(userId), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserEntity> getAllCoversByUserId(Long userId, Pageable pageable) {
+        if (userFollowGraph.isReady()) {
+            List<Long> ids = userFollowGraph.getCovers(userId, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(findAllByIds(ids), pageable, userFollowGraph.getCoverCount(userId));
+        }
+        return toPage(userRepository.findAllCoversByUserId(userId), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public UserEntity findUserEntityByFollowsExists(Long followUserId, Long coverUserId) {
+        if (userFollowGraph.isReady()) {
+            return userFollowGraph.isFollowing(followUserId, coverUserId) ? userRepository.findOne(followUserId) : null;
+        }
         return userRepository.findUserEntityByFollowsExists(followUserId, coverUserId);
     }
 
     @Override
     public Integer follow(Long followUserId, Long coverUserId) {
-        return userRepository.follow(followUserId, coverUserId);
+        Integer count = userRepository.follow(followUserId, coverUserId);
+        if (count > 0) {
+            userFollowGraph.follow(followUserId, coverUserId);
+        }
+        return count;
     }
 
     @Override
     public Integer unFollow(Long followUserId, Long coverUserId) {
-        return userRepository.unFollow(followUserId, coverUserId);
+        Integer count = userRepository.unFollow(followUserId, coverUserId);
+        if (count > 0) {
+            userFollowGraph.unFollow(followUserId, coverUserId);
+        }
+        return count;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Integer findFollowCount(Long followUserId) {
+        if (userFollowGraph.isReady()) {
+            return userFollowGraph.getFollowCount(followUserId);
+        }
         return userRepository.findFollowCount(followUserId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Integer findFollowCoverCount(Long followUserId) {
+        if (userFollowGraph.isReady()) {
+            return userFollowGraph.getCoverCount(followUserId);
+        }
         return userRepository.findFollowCoverCount(followUserId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserEntity> getAllUsers() {
         return (List<UserEntity>) userRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserContributionEntity> getUserContribution(String username) {
         List<Date> days = CalendarUtils.getRangerAllDays();
         List<UserContributionEntity> userContributions = new ArrayList<>();
@@ -176,8 +265,32 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserEntity> getUserFollowed(Long userId) {
+        if (userFollowGraph.isReady()) {
+            return findAllByIds(userFollowGraph.getFollows(userId, 0, Integer.MAX_VALUE));
+        }
         return userRepository.findUserFollowed(userId);
     }
 
+    /**
+     * 根据用户id批量查询用户信息, 返回结果与传入id的顺序一致
+     */
+    private List<UserEntity> findAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, UserEntity> entities = new HashMap<>();
+        userRepository.findAll(ids).forEach(entity -> entities.put(entity.getId(), entity));
+        List<UserEntity> sorted = new ArrayList<>(ids.size());
+        ids.stream().filter(entities::containsKey).forEach(id -> sorted.add(entities.get(id)));
+        return sorted;
+    }
+
+    private Page<UserEntity> toPage(List<UserEntity> entities, Pageable pageable) {
+        int from = Math.min(pageable.getOffset(), entities.size());
+        int to = Math.min(from + pageable.getPageSize(), entities.size());
+        return new PageImpl<>(entities.subList(from, to), pageable, entities.size());
+    }
+
 }
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CJKTokenizer 分词吞吐量, 语料为中文句子与英文单词混合的文章内容
+ * <p>
+ * 每次操作处理约 1MB(UTF-8) 的语料, 运行 main 方法时按语料实际大小将 ops/s 换算为 MB/s
+ *
+ * @author qianmoQ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CJKTokenizerBenchmark {
+
+    private static final int CORPUS_BYTES = 1024 * 1024;
+
+    private static final String[] CJK_SENTENCES = {
+            "全文检索使用倒排索引存储文章内容。", "中文按单字及相邻两字切分，",
+            "支持ＷＩＫＩ文档的全角字符规范化。", "日本語のテキストも同じ規則で分割します。",
+            "한국어 문서도 색인됩니다。", "空间中的文章按照层级路径组织，"
+    };
+
+    private static final String[] LATIN_WORDS = {
+            "spring", "boot", "markdown", "Index", "search", "tokenizer", "2018", "v1.6.0",
+            "README", "wikift", "JavaScript", "UTF-8", "release", "article", "space"
+    };
+
+    // 中日韩句子在语料中所占的比例
+    @Param({"0.2", "0.5", "0.8"})
+    private double cjkRatio;
+
+    private String corpus;
+
+    private CJKTokenizer tokenizer;
+
+    @Setup
+    public void setUp() {
+        corpus = corpus(cjkRatio);
+        tokenizer = new CJKTokenizer();
+    }
+
+    static String corpus(double cjkRatio) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        int bytes = 0;
+        while (bytes < CORPUS_BYTES) {
+            String part;
+            if (random.nextDouble() < cjkRatio) {
+                part = CJK_SENTENCES[random.nextInt(CJK_SENTENCES.length)];
+            } else {
+                part = LATIN_WORDS[random.nextInt(LATIN_WORDS.length)] + (random.nextInt(8) == 0 ? ". " : " ");
+            }
+            if (random.nextInt(40) == 0) {
+                part += "\n\n## ";
+            }
+            builder.append(part);
+            bytes += part.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public List<String> tokenize() {
+        return tokenizer.tokenize(corpus);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return CJKTokenizer.normalize(corpus);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (RunResult result : new Runner(new OptionsBuilder().include(CJKTokenizerBenchmark.class.getSimpleName()).build()).run()) {
+            double ratio = Double.parseDouble(result.getParams().getParam("cjkRatio"));
+            double megabytes = corpus(ratio).getBytes(StandardCharsets.UTF_8).length / (1024.0 * 1024.0);
+            System.out.printf("%s cjkRatio=%s: %.1f MB/s%n", result.getParams().getBenchmark(), ratio,
+                    result.getPrimaryResult().getScore() * megabytes);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CJKTokenizerTest {
+
+    private final CJKTokenizer tokenizer = new CJKTokenizer();
+
+    @Test
+    public void tokenizeCJKRunIntoUnigramsAndBigrams() {
+        assertEquals(Arrays.asList("数", "据", "数据", "库", "据库"), tokenizer.tokenize("数据库"));
+    }
+
+    @Test
+    public void singleCharacterQueryMatchesLongerWord() {
+        assertTrue(tokenizer.tokenize("数据库").containsAll(tokenizer.tokenize("据")));
+    }
+
+    @Test
+    public void tokenizeMixedText() {
+        assertEquals(Arrays.asList("spring", "框", "架", "框架", "2"), tokenizer.tokenize("Spring框架 2"));
+    }
+
+    @Test
+    public void normalizeFullWidthAndCase() {
+        assertEquals(Collections.singletonList("java"), tokenizer.tokenize("ＪＡＶＡ"));
+    }
+
+    @Test
+    public void tokenizeEmptyText() {
+        assertTrue(tokenizer.tokenize("").isEmpty());
+        assertTrue(tokenizer.tokenize(null).isEmpty());
+    }
+
+}
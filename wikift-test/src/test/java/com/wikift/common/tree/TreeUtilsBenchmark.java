@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 TreeUtils.getChildren 与原先逐层递归扫描全部数据构建树形数据的耗时
+ * <p>
+ * 数据与空间文章树查询结果一致, 每行为 文章id, 父节点, 标题
+ *
+ * @author qianmoQ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeUtilsBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int size;
+
+    // 每个节点的父节点从已生成的节点中随机选择, 该比例的节点直接挂在根节点下
+    @Param({"0.1"})
+    private double rootRatio;
+
+    private List<Object[]> rows;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(size);
+        rows = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            long parent = id == 1 || random.nextDouble() < rootRatio ? -1L : 1 + random.nextInt((int) id - 1);
+            rows.add(new Object[]{id, parent, "article " + id});
+        }
+    }
+
+    @Benchmark
+    public List<TreeModelSupport> iterative() {
+        return TreeUtils.getChildren(-1L, rows, row -> (Long) row[1], TreeUtilsBenchmark::toSupport);
+    }
+
+    @Benchmark
+    public List<TreeModelSupport> recursive() {
+        return recursiveChildren(-1L, rows);
+    }
+
+    private static TreeModelSupport toSupport(Object[] row) {
+        TreeModelSupport support = new TreeModelSupport();
+        support.setId((Long) row[0]);
+        support.setName((String) row[2]);
+        support.setItem((Long) row[0]);
+        return support;
+    }
+
+    /**
+     * 原先 ArticleServiceImpl 中的实现, 每一层都遍历全部数据查找子节点
+     */
+    private static List<TreeModelSupport> recursiveChildren(Long id, List<Object[]> rows) {
+        List<TreeModelSupport> childrens = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[1].equals(id)) {
+                childrens.add(toSupport(row));
+            }
+        }
+        for (TreeModelSupport support : childrens) {
+            support.setChildren(recursiveChildren(support.getId(), rows));
+        }
+        if (childrens.size() == 0) {
+            return null;
+        }
+        return childrens;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TreeUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
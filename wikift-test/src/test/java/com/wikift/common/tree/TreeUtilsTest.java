@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TreeUtilsTest {
+
+    private static Long[] row(Long id, Long parent) {
+        return new Long[]{id, parent};
+    }
+
+    private static List<TreeModelSupport> build(Long... pairs) {
+        List<Long[]> rows = new ArrayList<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            rows.add(row(pairs[i], pairs[i + 1]));
+        }
+        return TreeUtils.getChildren(-1L, rows, row -> row[1], row -> {
+            TreeModelSupport support = new TreeModelSupport();
+            support.setId(row[0]);
+            support.setName(String.valueOf(row[0]));
+            return support;
+        });
+    }
+
+    private static List<Long> ids(List<TreeModelSupport> supports) {
+        List<Long> ids = new ArrayList<>();
+        if (supports != null) {
+            supports.forEach(support -> ids.add(support.getId()));
+        }
+        return ids;
+    }
+
+    @Test
+    public void emptyDataReturnsNull() {
+        assertNull(TreeUtils.getChildren(-1L, Collections.<Long[]>emptyList(), row -> row[1], row -> new TreeModelSupport()));
+    }
+
+    @Test
+    public void buildNestedTree() {
+        List<TreeModelSupport> roots = build(1L, -1L, 2L, 1L, 3L, 2L, 4L, -1L);
+        assertEquals(Arrays.asList(1L, 4L), ids(roots));
+        assertEquals(Collections.singletonList(2L), ids(roots.get(0).getChildren()));
+        assertEquals(Collections.singletonList(3L), ids(roots.get(0).getChildren().get(0).getChildren()));
+        // 叶子节点的子节点为null
+        assertNull(roots.get(0).getChildren().get(0).getChildren().get(0).getChildren());
+        assertNull(roots.get(1).getChildren());
+    }
+
+    @Test
+    public void nullParentTreatedAsRoot() {
+        List<TreeModelSupport> roots = build(1L, null, 2L, -1L, 3L, 1L);
+        assertEquals(Arrays.asList(1L, 2L), ids(roots));
+        assertEquals(Collections.singletonList(3L), ids(roots.get(0).getChildren()));
+    }
+
+    @Test
+    public void missingParentExcluded() {
+        List<TreeModelSupport> roots = build(1L, -1L, 2L, 99L, 3L, 2L);
+        assertEquals(Collections.singletonList(1L), ids(roots));
+        assertNull(roots.get(0).getChildren());
+    }
+
+    @Test
+    public void cycleExcluded() {
+        List<TreeModelSupport> roots = build(1L, -1L, 2L, 3L, 3L, 2L, 4L, 1L);
+        assertEquals(Collections.singletonList(1L), ids(roots));
+        assertEquals(Collections.singletonList(4L), ids(roots.get(0).getChildren()));
+    }
+
+    @Test
+    public void selfParentExcluded() {
+        List<TreeModelSupport> roots = build(1L, -1L, 2L, 2L);
+        assertEquals(Collections.singletonList(1L), ids(roots));
+        assertNull(roots.get(0).getChildren());
+    }
+
+    @Test
+    public void preserveInputOrder() {
+        // 子节点先于父节点出现时同样可以挂载, 同级节点按数据集合中的顺序排列
+        List<TreeModelSupport> roots = build(5L, 2L, 3L, -1L, 4L, 2L, 2L, -1L, 1L, 2L);
+        assertEquals(Arrays.asList(3L, 2L), ids(roots));
+        assertEquals(Arrays.asList(5L, 4L, 1L), ids(roots.get(1).getChildren()));
+    }
+
+    @Test
+    public void buildDeepTreeWithoutRecursion() {
+        List<Long[]> rows = new ArrayList<>();
+        rows.add(row(0L, -1L));
+        for (long i = 1; i < 100000; i++) {
+            rows.add(row(i, i - 1));
+        }
+        List<TreeModelSupport> roots = TreeUtils.getChildren(-1L, rows, row -> row[1], row -> {
+            TreeModelSupport support = new TreeModelSupport();
+            support.setId(row[0]);
+            return support;
+        });
+        TreeModelSupport node = roots.get(0);
+        int depth = 1;
+        while (node.getChildren() != null) {
+            node = node.getChildren().get(0);
+            depth++;
+        }
+        assertEquals(100000, depth);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.ObjectUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 AttributeMapper 与 ReflectUtils.getFieldValue 按优先级读取LDAP用户属性的耗时
+ * <p>
+ * 用户名按 name, cn, sn 的顺序读取, 第一个属性为空时需要继续读取后续属性
+ *
+ * @author qianmoQ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeMapperBenchmark {
+
+    private static final String[] USERNAME = new String[]{"name", "cn", "sn"};
+
+    // 与LdapUserModel的属性数量及顺序一致, 读取的属性位于中后部
+    static class Entry {
+        private Object dn;
+        private String cn;
+        private String sn;
+        private String description;
+        private String title;
+        private String givenName;
+        private String name;
+        private String mail;
+        private String mailNickname;
+        private String company;
+        private String department;
+        private String email;
+        private String emailAddress;
+        private String modifyTimestamp;
+    }
+
+    private Entry named;
+
+    private Entry unnamed;
+
+    private AttributeMapper<Entry> usernameMapper;
+
+    private AttributeMapper<Entry> emailMapper;
+
+    @Setup
+    public void setUp() {
+        named = new Entry();
+        named.name = "alice";
+        named.cn = "alice";
+        named.email = "alice@wikift.com";
+        unnamed = new Entry();
+        unnamed.sn = "bob";
+        unnamed.email = "bob@wikift.com";
+        usernameMapper = AttributeMapper.of(Entry.class, USERNAME);
+        emailMapper = AttributeMapper.of(Entry.class, "email");
+    }
+
+    private static String reflectFirst(Entry entry) {
+        for (String field : USERNAME) {
+            Object value = ReflectUtils.getFieldValue(field, entry);
+            if (!ObjectUtils.isEmpty(value)) {
+                return String.valueOf(value);
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String reflectEmail() {
+        return String.valueOf(ReflectUtils.getFieldValue("email", named));
+    }
+
+    @Benchmark
+    public String mapperEmail() {
+        return emailMapper.getString(named);
+    }
+
+    @Benchmark
+    public String reflectUsername() {
+        return reflectFirst(named);
+    }
+
+    @Benchmark
+    public String mapperUsername() {
+        return usernameMapper.getString(named);
+    }
+
+    @Benchmark
+    public String reflectUsernameFallback() {
+        return reflectFirst(unnamed);
+    }
+
+    @Benchmark
+    public String mapperUsernameFallback() {
+        return usernameMapper.getString(unnamed);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AttributeMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
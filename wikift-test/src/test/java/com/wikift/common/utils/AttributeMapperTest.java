@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AttributeMapperTest {
+
+    static class Entry {
+        private String name;
+        private String cn;
+        private String email;
+        private Integer age;
+
+        Entry(String name, String cn, String email, Integer age) {
+            this.name = name;
+            this.cn = cn;
+            this.email = email;
+            this.age = age;
+        }
+    }
+
+    @Test
+    public void readFirstNonEmptyField() {
+        AttributeMapper<Entry> mapper = AttributeMapper.of(Entry.class, "name", "cn");
+        assertEquals("alice", mapper.getString(new Entry("alice", "a", null, null)));
+        assertEquals("a", mapper.getString(new Entry("", "a", null, null)));
+        assertNull(mapper.getString(new Entry(null, null, null, null)));
+        assertNull(mapper.getValue(null));
+    }
+
+    @Test
+    public void readSameValueAsReflectUtils() {
+        Entry entry = new Entry("alice", "a", "alice@wikift.com", 18);
+        assertEquals(ReflectUtils.getFieldValue("email", entry), AttributeMapper.of(Entry.class, "email").getValue(entry));
+        assertEquals("18", AttributeMapper.of(Entry.class, "age").getString(entry));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnknownField() {
+        AttributeMapper.of(Entry.class, "name", "mail");
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import com.wikift.model.enums.OrderEnums;
+import com.wikift.model.result.CursorPage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CursorUtilsTest {
+
+    // 按id倒序排列的数据, 排序键与id相同
+    private static final List<Long> IDS = Arrays.asList(9L, 8L, 7L, 6L, 5L);
+
+    private static CursorPage<Long> query(OrderEnums order, String cursor, Integer size, List<CursorUtils.Cursor> cursors) {
+        return CursorUtils.query(order, cursor, size, (current, limit) -> {
+            cursors.add(current);
+            List<Long> result = new ArrayList<>();
+            for (Long id : IDS) {
+                if (id < current.getId() && result.size() < limit) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }, id -> id, id -> id);
+    }
+
+    @Test
+    public void firstPageStartsFromMaxValues() {
+        List<CursorUtils.Cursor> cursors = new ArrayList<>();
+        query(OrderEnums.VIEW, null, 2, cursors);
+        query(OrderEnums.NATIVE_CREATE_TIME, "invalid", 2, cursors);
+        assertEquals(Long.valueOf(Long.MAX_VALUE), cursors.get(0).getSortKey());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), cursors.get(0).getId());
+        assertEquals(Long.valueOf(new GregorianCalendar(9999, Calendar.DECEMBER, 31).getTimeInMillis()), cursors.get(1).getSortKey());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), cursors.get(1).getId());
+    }
+
+    @Test
+    public void fetchOneMoreAndFollowCursor() {
+        List<CursorUtils.Cursor> cursors = new ArrayList<>();
+        CursorPage<Long> page = query(OrderEnums.VIEW, null, 2, cursors);
+        assertEquals(Arrays.asList(9L, 8L), page.getContent());
+        assertFalse(page.getLast());
+        page = query(OrderEnums.VIEW, page.getCursor(), 2, cursors);
+        assertEquals(Arrays.asList(7L, 6L), page.getContent());
+        page = query(OrderEnums.VIEW, page.getCursor(), 2, cursors);
+        assertEquals(Collections.singletonList(5L), page.getContent());
+        assertTrue(page.getLast());
+        assertNull(page.getCursor());
+        for (CursorUtils.Cursor cursor : cursors) {
+            assertEquals(OrderEnums.VIEW, cursor.getOrder());
+        }
+    }
+
+    @Test
+    public void fullLastPageHasNoCursor() {
+        CursorPage<Long> page = query(OrderEnums.VIEW, CursorUtils.encode(OrderEnums.VIEW, 8L, 8L), 3, new ArrayList<>());
+        assertEquals(Arrays.asList(7L, 6L, 5L), page.getContent());
+        assertTrue(page.getLast());
+        assertNull(page.getCursor());
+    }
+
+    @Test
+    public void validateSize() {
+        assertFalse(CursorUtils.isValidSize(null));
+        assertFalse(CursorUtils.isValidSize(0));
+        assertFalse(CursorUtils.isValidSize(-1));
+        assertTrue(CursorUtils.isValidSize(1));
+        assertTrue(CursorUtils.isValidSize(CursorUtils.MAX_SIZE));
+        assertFalse(CursorUtils.isValidSize(CursorUtils.MAX_SIZE + 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectZeroSize() {
+        query(OrderEnums.NATIVE_CREATE_TIME, null, 0, new ArrayList<>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectOversizedPage() {
+        query(OrderEnums.NATIVE_CREATE_TIME, null, CursorUtils.MAX_SIZE + 1, new ArrayList<>());
+    }
+
+}
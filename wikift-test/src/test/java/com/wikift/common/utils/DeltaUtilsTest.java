@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DeltaUtilsTest {
+
+    private static void assertRoundTrip(String base, String target) {
+        assertEquals(target, DeltaUtils.decode(base, DeltaUtils.encode(base, target)));
+    }
+
+    @Test
+    public void roundTripEmptyText() {
+        assertRoundTrip("", "");
+        assertRoundTrip("", "first line\nsecond line\n");
+        assertRoundTrip("first line\nsecond line\n", "");
+        assertEquals("", DeltaUtils.encode("", ""));
+    }
+
+    @Test
+    public void roundTripWithoutTrailingNewline() {
+        assertRoundTrip("a\nb\nc", "a\nb\nc\n");
+        assertRoundTrip("a\nb\nc\n", "a\nb\nc");
+        assertRoundTrip("a\nb\nc", "a\nx\nc");
+        assertRoundTrip("no newline", "no newline at all");
+    }
+
+    @Test
+    public void roundTripRepeatedLines() {
+        StringBuilder base = new StringBuilder();
+        StringBuilder target = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            base.append("same\n");
+            target.append(i % 10 == 0 ? "changed\n" : "same\n");
+        }
+        assertRoundTrip(base.toString(), target.toString());
+        assertRoundTrip("x\ny\nx\ny\n", "y\nx\ny\nx\n");
+        assertRoundTrip("\n\n\n", "\n\n\n\n\n");
+    }
+
+    @Test
+    public void roundTripCJK() {
+        assertRoundTrip("第一行内容\n第二行内容\n第三行内容\n", "第一行内容\n修改后的第二行\n第三行内容\n新增一行");
+        assertRoundTrip("中文\n", "中文\n日本語\n한국어\n");
+    }
+
+    @Test
+    public void unchangedTextOnlyCopies() {
+        String text = "line 1\nline 2\nline 3\n";
+        String delta = DeltaUtils.encode(text, text);
+        assertEquals("C0,3\n", delta);
+        assertFalse(delta.contains("I"));
+    }
+
+    @Test
+    public void insertLengthCountsCharacters() {
+        String delta = DeltaUtils.encode("", "修改\n");
+        assertEquals("I3\n修改\n", delta);
+        assertEquals("修改\n", DeltaUtils.decode("", delta));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectInvalidOperation() {
+        DeltaUtils.decode("a\n", "X0,1\n");
+    }
+
+}
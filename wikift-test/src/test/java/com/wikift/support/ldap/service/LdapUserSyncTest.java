@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.ldap.service;
+
+import com.wikift.model.role.RoleEntity;
+import com.wikift.support.ldap.model.LdapSyncReport;
+import com.wikift.support.repository.role.RoleRepository;
+import com.wikift.support.repository.user.UserRepositoryBatch;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.test.LdapTestUtils;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 使用内嵌ApacheDS校验LDAP用户分页同步及增量修改标记, 用户表以内存数据代替
+ *
+ * @author qianmoQ
+ */
+public class LdapUserSyncTest {
+
+    private static final String BASE = "dc=wikift,dc=com";
+
+    private static LdapContextSource contextSource;
+
+    private final Map<String, Map<String, Object>> users = new LinkedHashMap<>();
+
+    private String mark;
+
+    private boolean failInsert;
+
+    private UserRepositoryBatch userRepositoryBatch;
+
+    private LdapUserSync ldapUserSync;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        LdapTestUtils.startEmbeddedServer(port, BASE, "wikift");
+        contextSource = new LdapContextSource();
+        contextSource.setUrl("ldap://localhost:" + port);
+        contextSource.setBase(BASE);
+        contextSource.setUserDn("uid=admin,ou=system");
+        contextSource.setPassword("secret");
+        contextSource.afterPropertiesSet();
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        LdapTestUtils.shutdownEmbeddedServer();
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        LdapTemplate ldapTemplate = new LdapTemplate(contextSource);
+        try {
+            ldapTemplate.unbind("ou=users", true);
+        } catch (NameNotFoundException e) {
+            // 首个用例执行前没有用户数据
+        }
+        MockEnvironment environment = new MockEnvironment();
+        // ApacheDS 只在条目被修改时设置 modifyTimestamp, 新增条目使用 createTimestamp
+        environment.setProperty("wikift.ldap.sync.timestamp-attribute", "createTimestamp");
+        environment.setProperty("wikift.ldap.sync.page-size", "2");
+        LdapUserServiceImpl ldapUserService = new LdapUserServiceImpl();
+        ReflectionTestUtils.setField(ldapUserService, "ldapTemplate", ldapTemplate);
+        userRepositoryBatch = mock(UserRepositoryBatch.class);
+        when(userRepositoryBatch.findAllByUsernames(anyCollectionOf(String.class))).thenAnswer(invocation -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (String username : (Collection<String>) invocation.getArguments()[0]) {
+                if (users.containsKey(username.toLowerCase())) {
+                    rows.add(users.get(username.toLowerCase()));
+                }
+            }
+            return rows;
+        });
+        doAnswer(invocation -> {
+            if (failInsert) {
+                throw new IllegalStateException("insert users failed");
+            }
+            for (String[] user : (List<String[]>) invocation.getArguments()[0]) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("u_id", (long) users.size() + 1);
+                row.put("u_username", user[0]);
+                row.put("u_email", user[1]);
+                users.put(user[0].toLowerCase(), row);
+            }
+            return null;
+        }).when(userRepositoryBatch).batchInsert(anyListOf(String[].class));
+        when(userRepositoryBatch.findLdapSyncMark("users")).thenAnswer(invocation -> mark);
+        doAnswer(invocation -> {
+            mark = (String) invocation.getArguments()[1];
+            return null;
+        }).when(userRepositoryBatch).saveLdapSyncMark(anyString(), anyString());
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        RoleEntity role = new RoleEntity();
+        role.setId(1L);
+        when(roleRepository.findByRoleName(any(String.class))).thenReturn(role);
+        ldapUserSync = new LdapUserSync();
+        ReflectionTestUtils.setField(ldapUserSync, "environment", environment);
+        ReflectionTestUtils.setField(ldapUserSync, "ldapUserService", ldapUserService);
+        ReflectionTestUtils.setField(ldapUserSync, "userRepositoryBatch", userRepositoryBatch);
+        ReflectionTestUtils.setField(ldapUserSync, "roleRepository", roleRepository);
+        ReflectionTestUtils.setField(ldapUserSync, "transactionManager", mock(PlatformTransactionManager.class));
+        ldapUserSync.init();
+    }
+
+    private static void load(String ldif) throws Exception {
+        LdapTestUtils.loadLdif(contextSource, new ClassPathResource("ldap/" + ldif));
+    }
+
+    /**
+     * 修改标记精确到秒, 等待进入下一秒后再新增条目, 使前后两批条目的修改标记不同
+     */
+    private static void nextSecond() throws InterruptedException {
+        long second = System.currentTimeMillis() / 1000;
+        while (System.currentTimeMillis() / 1000 == second) {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void fullSyncReadsEveryPage() throws Exception {
+        load("users-initial.ldif");
+        load("users-batch.ldif");
+        LdapSyncReport report = ldapUserSync.sync();
+        assertTrue(report.getError(), report.isSuccess());
+        assertTrue(report.isFull());
+        assertEquals(3, report.getPages());
+        assertEquals(5, report.getEntries());
+        assertEquals(5, report.getInserted());
+        assertEquals(new HashSet<>(Arrays.asList("ldap-a", "ldap-b", "ldap-c", "ldap-d", "ldap-e")), users.keySet());
+        verify(userRepositoryBatch, times(3)).batchInsert(anyListOf(String[].class));
+        assertNotNull(mark);
+        assertEquals(report.getHighWaterMark(), mark);
+    }
+
+    @Test
+    public void incrementalSyncStartsFromHighWaterMark() throws Exception {
+        load("users-initial.ldif");
+        nextSecond();
+        load("users-batch.ldif");
+        assertTrue(ldapUserSync.sync().isSuccess());
+        String first = mark;
+        nextSecond();
+        load("users-incremental.ldif");
+        LdapSyncReport report = ldapUserSync.sync();
+        assertTrue(report.getError(), report.isSuccess());
+        assertFalse(report.isFull());
+        // 修改标记包含下限, 与上次标记同一秒的条目重新读取, 更早的 ldap-a 不再读取
+        assertEquals(6, report.getEntries());
+        assertEquals(2, report.getInserted());
+        assertEquals(4, report.getUnchanged());
+        assertEquals(7, users.size());
+        assertTrue(mark.compareTo(first) > 0);
+        assertEquals(report.getHighWaterMark(), mark);
+    }
+
+    @Test
+    public void failedSyncKeepsHighWaterMark() throws Exception {
+        load("users-initial.ldif");
+        load("users-batch.ldif");
+        assertTrue(ldapUserSync.sync().isSuccess());
+        String first = mark;
+        nextSecond();
+        load("users-incremental.ldif");
+        failInsert = true;
+        LdapSyncReport report = ldapUserSync.sync();
+        assertFalse(report.isSuccess());
+        assertEquals("insert users failed", report.getError());
+        assertEquals(first, mark);
+        assertEquals(5, users.size());
+        // 下次同步从原标记重新读取失败的条目
+        failInsert = false;
+        report = ldapUserSync.sync();
+        assertTrue(report.getError(), report.isSuccess());
+        assertEquals(2, report.getInserted());
+        assertEquals(7, users.size());
+        assertTrue(mark.compareTo(first) > 0);
+    }
+
+    @Test
+    public void failedFirstSyncLeavesMarkEmpty() throws Exception {
+        load("users-initial.ldif");
+        load("users-batch.ldif");
+        failInsert = true;
+        LdapSyncReport report = ldapUserSync.sync();
+        assertFalse(report.isSuccess());
+        assertNull(mark);
+        assertTrue(ldapUserSync.sync().isFull());
+    }
+
+}
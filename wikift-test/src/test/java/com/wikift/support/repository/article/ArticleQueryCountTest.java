@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleSummaryEntity;
+import com.wikift.model.article.ArticleTagEntity;
+import com.wikift.model.article.ArticleTypeEntity;
+import com.wikift.model.role.RoleEntity;
+import com.wikift.model.space.SpaceEntity;
+import com.wikift.model.user.UserEntity;
+import com.wikift.model.user.UserTypeEntity;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 校验文章列表, 详情, 权限校验及导航树查询执行的SQL语句数量, 避免延迟加载的关联退化为 N+1 查询
+ *
+ * @author qianmoQ
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:wikift;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.javax.persistence.validation.mode=none"})
+public class ArticleQueryCountTest {
+
+    @Configuration
+    @EntityScan(basePackages = "com.wikift.model")
+    @EnableJpaRepositories(basePackages = "com.wikift.support.repository")
+    static class Config {
+    }
+
+    private static final Date MAX_CREATE_TIME = new GregorianCalendar(9999, Calendar.DECEMBER, 31).getTime();
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleSummaryRepository articleSummaryRepository;
+
+    private Statistics statistics;
+
+    private SpaceEntity space;
+
+    private int sequence;
+
+    @Before
+    public void setUp() {
+        // 文章统计表不对应实体, 由升级脚本创建
+        entityManager.getEntityManager().createNativeQuery("CREATE TABLE IF NOT EXISTS article_stats(" +
+                "as_article_id BIGINT NOT NULL PRIMARY KEY, as_view_count BIGINT NOT NULL DEFAULT 0, " +
+                "as_fabulou_count BIGINT NOT NULL DEFAULT 0, as_comments_count BIGINT NOT NULL DEFAULT 0)").executeUpdate();
+        statistics = entityManager.getEntityManager().unwrap(Session.class).getSessionFactory().getStatistics();
+        space = new SpaceEntity();
+        space.setName("wikift");
+        space.setCode("wikift");
+        space.setPrivated(false);
+        space.setUser(user(0));
+        entityManager.persist(space);
+    }
+
+    private UserEntity user(int follows) {
+        List<UserEntity> followed = new ArrayList<>();
+        for (int i = 0; i < follows; i++) {
+            UserEntity cover = new UserEntity();
+            cover.setUsername("cover" + (++sequence));
+            followed.add(entityManager.persist(cover));
+        }
+        UserEntity user = new UserEntity();
+        user.setUsername("user" + (++sequence));
+        user.setFollows(followed);
+        return entityManager.persist(user);
+    }
+
+    private ArticleEntity article(UserEntity user, Long parent, boolean detail) {
+        ArticleEntity article = new ArticleEntity();
+        article.setTitle("article " + (++sequence));
+        article.setContent("content of article " + sequence);
+        article.setParent(parent);
+        article.setCreateTime(new Date(System.currentTimeMillis() - sequence * 1000L));
+        article.setUser(user);
+        article.setSpace(space);
+        if (detail) {
+            // 类型及标签关联表按文章唯一, 只为详情文章创建
+            ArticleTypeEntity type = new ArticleTypeEntity();
+            type.setCode("type" + sequence);
+            type.setName("type" + sequence);
+            article.setArticleType(entityManager.persist(type));
+            List<ArticleTagEntity> tags = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                ArticleTagEntity tag = new ArticleTagEntity();
+                tag.setName("tag" + (++sequence));
+                tags.add(entityManager.persist(tag));
+            }
+            article.setArticleTags(tags);
+        }
+        return entityManager.persist(article);
+    }
+
+    private ArticleEntity detailArticle(int follows) {
+        UserEntity author = user(follows);
+        RoleEntity role = new RoleEntity();
+        role.setRoleName("USER" + (++sequence));
+        author.setUserRoles(Collections.singletonList(entityManager.persist(role)));
+        UserTypeEntity type = new UserTypeEntity();
+        type.setCode("type" + sequence);
+        author.setUserType(entityManager.persist(type));
+        return article(author, -1L, true);
+    }
+
+    private void reset() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    private long readDetail(Long articleId) {
+        reset();
+        ArticleEntity article = articleRepository.findById(articleId);
+        // 与序列化文章详情时读取的关联一致
+        article.getUser().getUsername();
+        article.getArticleType().getName();
+        article.getArticleTags().size();
+        article.getSpace().getName();
+        assertFalse(Hibernate.isInitialized(article.getUser().getFollows()));
+        assertFalse(Hibernate.isInitialized(article.getUser().getUserRoles()));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void listUsesSingleStatement() {
+        for (int i = 0; i < 10; i++) {
+            article(user(i), -1L, false);
+        }
+        reset();
+        List<ArticleSummaryEntity> summaries = articleSummaryRepository.findAllOrderByCreateTimeAfter(MAX_CREATE_TIME, Long.MAX_VALUE, 11);
+        assertEquals(10, summaries.size());
+        summaries.forEach(summary -> assertEquals("wikift", summary.getSpaceName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void detailLoadsOneStatementPerAssociation() {
+        long statements = readDetail(detailArticle(0).getId());
+        // 文章, 作者, 类型, 标签, 空间
+        assertTrue("detail executed " + statements + " statements", statements <= 5);
+        // 作者的关注用户不随文章详情加载
+        assertEquals(statements, readDetail(detailArticle(20).getId()));
+    }
+
+    @Test
+    public void permissionCheckUsesSingleStatement() {
+        Long articleId = detailArticle(20).getId();
+        reset();
+        ArticleEntity article = articleRepository.findOwnerById(articleId);
+        assertTrue(Hibernate.isInitialized(article.getUser()));
+        assertFalse(Hibernate.isInitialized(article.getUser().getFollows()));
+        article.getUser().getUsername();
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void treeUsesSingleStatement() {
+        UserEntity author = user(0);
+        ArticleEntity root = article(author, -1L, false);
+        for (int i = 0; i < 30; i++) {
+            article(author, root.getId(), false);
+        }
+        reset();
+        List<Object[]> rows = articleRepository.findAllTreeNodeBySpaceId(space.getId());
+        assertEquals(31, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.repository.article;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.Invocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * 校验维护文章路径的更新语句保持文章创建时间
+ * <p>
+ * a_create_time 定义了 ON UPDATE CURRENT_TIMESTAMP, 测试使用的 H2 不支持该定义及 MySQL 的多表更新语法,
+ * 因此记录执行的SQL语句并校验每条更新语句都显式保持创建时间
+ *
+ * @author qianmoQ
+ */
+public class ArticleTreeRepositoryTest {
+
+    private static final String SELECT_PATH = "SELECT a_path FROM article WHERE a_id = ?";
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ArticleTreeRepository articleTreeRepository;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doReturn(Collections.singletonList("/1/5/")).when(jdbcTemplate).queryForList(SELECT_PATH, String.class, 5L);
+        doReturn(Collections.singletonList("/2/")).when(jdbcTemplate).queryForList(SELECT_PATH, String.class, 2L);
+        articleTreeRepository = new ArticleTreeRepository();
+        ReflectionTestUtils.setField(articleTreeRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    private List<String> updates() {
+        List<String> statements = new ArrayList<>();
+        for (Invocation invocation : mockingDetails(jdbcTemplate).getInvocations()) {
+            if (invocation.getMethod().getName().equals("update")) {
+                statements.add((String) invocation.getArguments()[0]);
+            }
+        }
+        return statements;
+    }
+
+    private void assertKeepCreateTime(int expected) {
+        List<String> statements = updates();
+        assertEquals(expected, statements.size());
+        for (String sql : statements) {
+            assertTrue(sql, sql.startsWith("UPDATE article "));
+            assertTrue(sql, sql.replace("a.a_create_time", "a_create_time").contains("a_create_time = a_create_time"));
+        }
+    }
+
+    @Test
+    public void initPathKeepsCreateTime() {
+        articleTreeRepository.initPath(9L, -1L);
+        articleTreeRepository.initPath(9L, 2L);
+        assertKeepCreateTime(2);
+    }
+
+    @Test
+    public void moveKeepsCreateTime() {
+        articleTreeRepository.move(5L, 2L);
+        // 移动未生成路径的文章时只生成自身路径
+        articleTreeRepository.move(9L, 2L);
+        assertKeepCreateTime(2);
+    }
+
+    @Test
+    public void rebuildKeepsCreateTime() {
+        when(jdbcTemplate.update(startsWith("UPDATE article AS a LEFT OUTER JOIN"))).thenReturn(3);
+        doReturn(2).when(jdbcTemplate).update(startsWith("UPDATE article AS a INNER JOIN"), eq(0));
+        assertEquals(Integer.valueOf(5), articleTreeRepository.rebuildPaths());
+        // 清空路径, 根节点及两层子节点
+        assertKeepCreateTime(4);
+    }
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.article;
+
+import com.wikift.model.article.ArticleEntity;
+import com.wikift.model.article.ArticleHistoryEntity;
+import com.wikift.support.repository.article.ArticleHistoryRepositoryBatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ArticleHistoryCompactorTest {
+
+    private static final Long ARTICLE_ID = 7L;
+
+    private ArticleHistoryRepositoryBatch articleHistoryRepositoryBatch;
+
+    private ArticleHistoryCodec articleHistoryCodec;
+
+    private ArticleHistoryCompactor compactor;
+
+    @Before
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty("wikift.article.history.keyframe-interval", "4");
+        articleHistoryCodec = new ArticleHistoryCodec();
+        ReflectionTestUtils.setField(articleHistoryCodec, "environment", environment);
+        articleHistoryCodec.init();
+        articleHistoryRepositoryBatch = mock(ArticleHistoryRepositoryBatch.class);
+        when(articleHistoryRepositoryBatch.findUncompactedArticleIds(0L, 100)).thenReturn(Collections.singletonList(ARTICLE_ID));
+        compactor = new ArticleHistoryCompactor();
+        ReflectionTestUtils.setField(compactor, "environment", environment);
+        ReflectionTestUtils.setField(compactor, "articleHistoryRepositoryBatch", articleHistoryRepositoryBatch);
+        ReflectionTestUtils.setField(compactor, "articleHistoryCodec", articleHistoryCodec);
+        ReflectionTestUtils.setField(compactor, "transactionManager", mock(PlatformTransactionManager.class));
+        compactor.init();
+    }
+
+    private static List<String> versions(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            text.append("第").append(i).append("行内容\n");
+        }
+        List<String> versions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            text.append("修改").append(i).append('\n');
+            versions.add(text.toString());
+        }
+        return versions;
+    }
+
+    private static ArticleHistoryEntity legacy(long id, String content) {
+        ArticleHistoryEntity entity = new ArticleHistoryEntity();
+        entity.setId(id);
+        ArticleEntity article = new ArticleEntity();
+        article.setId(ARTICLE_ID);
+        entity.setArticle(article);
+        entity.setType(ArticleHistoryCodec.TYPE_KEYFRAME);
+        entity.setChain(0);
+        entity.setContent(content);
+        return entity;
+    }
+
+    /**
+     * 前三个版本为升级前保存的完整内容, 后三个版本为升级后保存的差异
+     */
+    private List<ArticleHistoryEntity> mixedChain(List<String> versions) {
+        List<ArticleHistoryEntity> chain = new ArrayList<>();
+        for (int i = 0; i < versions.size(); i++) {
+            ArticleHistoryEntity entity = legacy(i + 1, versions.get(i));
+            if (i >= 3) {
+                articleHistoryCodec.encode(chain.get(i - 1), versions.get(i - 1), entity);
+                assertEquals(ArticleHistoryCodec.TYPE_DELTA, entity.getType().intValue());
+            }
+            chain.add(entity);
+        }
+        return chain;
+    }
+
+    private List<ArticleHistoryEntity> compact(List<ArticleHistoryEntity> chain) {
+        when(articleHistoryRepositoryBatch.findAllByArticle(ARTICLE_ID)).thenReturn(chain);
+        compactor.compact();
+        assertNull(compactor.getReport().get("error"));
+        verify(articleHistoryRepositoryBatch).lockArticle(ARTICLE_ID);
+        verify(articleHistoryRepositoryBatch).batchUpdateContent(chain);
+        return chain;
+    }
+
+    @Test
+    public void compactMixedLegacyAndDeltaChain() {
+        List<String> versions = versions(6);
+        List<ArticleHistoryEntity> chain = compact(mixedChain(versions));
+        assertEquals(versions, articleHistoryCodec.decodeAll(chain));
+        List<Integer> types = new ArrayList<>();
+        for (int i = 0; i < chain.size(); i++) {
+            types.add(chain.get(i).getType());
+            assertEquals(versions.get(i).length(), chain.get(i).getSize().intValue());
+        }
+        assertEquals(Arrays.asList(0, 1, 1, 1, 0, 1), types);
+        assertEquals(Long.valueOf(1L), chain.get(3).getBaseId());
+        assertEquals(Long.valueOf(5L), chain.get(5).getBaseId());
+        Map<String, Object> report = compactor.getReport();
+        assertEquals(1L, report.get("articles"));
+        assertEquals(6L, report.get("rows"));
+        assertEquals(2L, report.get("keyframes"));
+        assertEquals(4L, report.get("deltas"));
+    }
+
+    @Test
+    public void compactLegacyOnlyChain() {
+        List<String> versions = versions(3);
+        List<ArticleHistoryEntity> chain = new ArrayList<>();
+        for (int i = 0; i < versions.size(); i++) {
+            chain.add(legacy(i + 1, versions.get(i)));
+        }
+        compact(chain);
+        assertEquals(versions, articleHistoryCodec.decodeAll(chain));
+        assertEquals(Arrays.asList(0, 1, 1), Arrays.asList(chain.get(0).getType(), chain.get(1).getType(), chain.get(2).getType()));
+    }
+
+    @Test
+    public void compactAgainKeepsContent() {
+        List<String> versions = versions(6);
+        List<ArticleHistoryEntity> chain = compact(mixedChain(versions));
+        compactor.compact();
+        assertEquals(versions, articleHistoryCodec.decodeAll(chain));
+        assertEquals(6L, compactor.getReport().get("rows"));
+    }
+
+    @Test
+    public void deltaWithoutKeyframeStopsCompaction() {
+        ArticleHistoryEntity orphan = legacy(2, "C0,1\n");
+        orphan.setType(ArticleHistoryCodec.TYPE_DELTA);
+        orphan.setBaseId(1L);
+        orphan.setChain(1);
+        when(articleHistoryRepositoryBatch.findAllByArticle(ARTICLE_ID)).thenReturn(Collections.singletonList(orphan));
+        compactor.compact();
+        Map<String, Object> report = compactor.getReport();
+        assertNotNull(report.get("error"));
+        assertEquals(false, report.get("running"));
+        assertEquals(0L, report.get("articles"));
+        verify(articleHistoryRepositoryBatch, never()).batchUpdateContent(anyListOf(ArticleHistoryEntity.class));
+    }
+
+}
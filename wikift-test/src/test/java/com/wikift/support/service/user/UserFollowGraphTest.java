@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wikift.support.service.user;
+
+import com.wikift.support.repository.user.UserRepositoryBatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserFollowGraphTest {
+
+    // {关注者, 被关注者}
+    private static final long[][] RELATIONS = {{1, 2}, {1, 4}, {3, 1}, {4, 1}, {3, 2}};
+
+    private UserFollowGraph userFollowGraph;
+
+    @Before
+    public void setUp() throws Exception {
+        UserRepositoryBatch userRepositoryBatch = mock(UserRepositoryBatch.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[0];
+            for (long[] relation : RELATIONS) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(relation[0]);
+                when(rs.getLong(2)).thenReturn(relation[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(userRepositoryBatch).findAllFollows(any(RowCallbackHandler.class));
+        userFollowGraph = new UserFollowGraph();
+        ReflectionTestUtils.setField(userFollowGraph, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(userFollowGraph, "userRepositoryBatch", userRepositoryBatch);
+        userFollowGraph.init();
+        assertTrue(userFollowGraph.rebuild());
+    }
+
+    @Test
+    public void removeUserDropsAllRelations() {
+        userFollowGraph.removeUser(1L);
+        assertEquals(0, userFollowGraph.getFollowCount(1L));
+        assertEquals(0, userFollowGraph.getCoverCount(1L));
+        assertEquals(1, userFollowGraph.getCoverCount(2L));
+        assertEquals(0, userFollowGraph.getCoverCount(4L));
+        assertEquals(1, userFollowGraph.getFollowCount(3L));
+        assertEquals(0, userFollowGraph.getFollowCount(4L));
+        assertFalse(userFollowGraph.isFollowing(3L, 1L));
+        assertEquals(Collections.singletonList(3L), userFollowGraph.getCoversAfter(2L, 0L, 10));
+        assertEquals(1L, userFollowGraph.getMetrics().get("relations"));
+    }
+
+    @Test
+    public void removeUserKeepsOtherRelations() {
+        userFollowGraph.removeUser(5L);
+        assertEquals(Arrays.asList(2L, 4L), userFollowGraph.getFollows(1L, 0, 10));
+        assertEquals(Arrays.asList(3L, 4L), userFollowGraph.getCovers(1L, 0, 10));
+        assertEquals(5L, userFollowGraph.getMetrics().get("relations"));
+    }
+
+}